@@ -0,0 +1,74 @@
+package com.github.shpiyu.huml.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.shpiyu.huml.HumlTable;
+import com.github.shpiyu.huml.HumlTableReader;
+import com.github.shpiyu.huml.HumlValue;
+import com.github.shpiyu.huml.parser.Parser;
+
+/**
+ * Sums a numeric column of a list of 500,000 dicts, once through a {@link HumlTable} and once
+ * through the parsed tree.
+ *
+ * <pre>
+ * mvn -pl huml-benchmarks -am package
+ * java -jar huml-benchmarks/target/benchmarks.jar ColumnarReadBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ColumnarReadBenchmark {
+    private static final int ROWS = 500_000;
+    private static final String[] REGIONS = { "eu", "us", "apac", "latam" };
+
+    private String document;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder(ROWS * 80);
+        sb.append("rows::\n");
+        for (int i = 0; i < ROWS; i++) {
+            sb.append("  - ::\n")
+                    .append("    id: ").append(i).append('\n')
+                    .append("    price: ").append(i % 1000).append('.').append(i % 100).append('\n')
+                    .append("    region: \"").append(REGIONS[i % REGIONS.length]).append("\"\n")
+                    .append("    comment: \"row ").append(i).append("\"\n");
+        }
+        document = sb.toString();
+    }
+
+    @Benchmark
+    public double sumColumnar() {
+        HumlTable table = new HumlTableReader("rows").doubleColumn("price").stringColumn("region").read(document);
+        double sum = 0;
+        for (double price : table.getDoubleColumn("price")) {
+            sum += price;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sumTree() {
+        double sum = 0;
+        for (HumlValue row : Parser.parse(document).get("rows").asList()) {
+            sum += row.asDict().get("price").asDouble();
+        }
+        return sum;
+    }
+}
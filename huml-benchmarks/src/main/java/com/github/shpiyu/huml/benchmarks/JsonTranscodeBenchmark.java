@@ -0,0 +1,84 @@
+package com.github.shpiyu.huml.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.shpiyu.huml.HumlJson;
+import com.github.shpiyu.huml.parser.HumlToken;
+import com.github.shpiyu.huml.parser.HumlTokenizer;
+import com.github.shpiyu.huml.parser.Parser;
+
+/**
+ * Converts a document of 100,000 entries between HUML and JSON, against tokenizing and parsing
+ * the same HUML as baselines.
+ *
+ * <pre>
+ * mvn -pl huml-benchmarks -am package
+ * java -jar huml-benchmarks/target/benchmarks.jar JsonTranscodeBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JsonTranscodeBenchmark {
+    private static final int ENTRIES = 100_000;
+
+    private String huml;
+    private String json;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder sb = new StringBuilder(ENTRIES * 100);
+        for (int i = 0; i < ENTRIES; i++) {
+            sb.append("entry").append(i).append("::\n")
+                    .append("  name: \"item ").append(i).append("\"\n")
+                    .append("  price: ").append(i % 1000).append('.').append(i % 97).append('\n')
+                    .append("  active: ").append(i % 2 == 0).append('\n')
+                    .append("  tags:: \"a\", \"b\", \"c\"\n")
+                    .append("  sizes::\n")
+                    .append("    - ").append(i).append('\n')
+                    .append("    - ").append(-i).append('\n');
+        }
+        huml = sb.toString();
+        json = HumlJson.humlToJson(huml);
+    }
+
+    @Benchmark
+    public int tokenize() {
+        HumlTokenizer tokens = new HumlTokenizer(huml);
+        int count = 0;
+        while (tokens.next() != HumlToken.END_DOCUMENT) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Object parse() {
+        return Parser.parse(huml);
+    }
+
+    @Benchmark
+    public String humlToJson() throws IOException {
+        return HumlJson.humlToJson(huml);
+    }
+
+    @Benchmark
+    public String jsonToHuml() throws IOException {
+        return HumlJson.jsonToHuml(json);
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.shpiyu.huml.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.shpiyu.huml.HumlAdapter;
+import com.github.shpiyu.huml.HumlMapper;
+import com.github.shpiyu.huml.HumlReader;
+import com.github.shpiyu.huml.HumlWriter;
+
+/**
+ * Reads and writes a payload of 5,000 items from several threads, through the pooled buffers of
+ * {@link HumlMapper} and through a fresh reader and writer per call. Run with {@code -prof gc} to
+ * compare the allocation rates.
+ *
+ * <pre>
+ * mvn -pl huml-benchmarks -am package
+ * java -jar huml-benchmarks/target/benchmarks.jar MapperPoolingBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(4)
+@Fork(1)
+public class MapperPoolingBenchmark {
+    private static final int ITEMS = 5_000;
+
+    /**
+     * The payload: a name and a list of numbers
+     */
+    public static final class Payload {
+        String name;
+        List<Long> values = new ArrayList<>();
+    }
+
+    static final class PayloadAdapter extends HumlAdapter<Payload> {
+        @Override
+        public Payload fromHUML(HumlReader reader) throws IOException {
+            Payload payload = new Payload();
+            reader.beginDict();
+            String key;
+            while ((key = reader.nextKey()) != null) {
+                switch (key) {
+                    case "name":
+                        payload.name = reader.readString();
+                        break;
+                    case "values":
+                        payload.values = reader.readList(HumlReader::readLong);
+                        break;
+                    default:
+                        reader.skipUnknownValue(key);
+                }
+            }
+            return payload;
+        }
+
+        @Override
+        public void toHUML(HumlWriter writer, Payload value) throws IOException {
+            writer.writeField("name", "\"" + value.name + "\"");
+            writer.startList("values");
+            for (Long v : value.values) {
+                writer.writeItem(String.valueOf(v));
+            }
+            writer.end();
+        }
+    }
+
+    private final PayloadAdapter adapter = new PayloadAdapter();
+    private HumlMapper mapper;
+    private Payload payload;
+    private String document;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = new HumlMapper();
+        mapper.registerAdapter(Payload.class, adapter);
+        payload = new Payload();
+        payload.name = "payload";
+        for (long i = 0; i < ITEMS; i++) {
+            payload.values.add(i * 7919);
+        }
+        document = mapper.writeValueAsString(payload);
+    }
+
+    @Benchmark
+    public Payload readPooled() throws IOException {
+        return mapper.readValue(document, Payload.class);
+    }
+
+    @Benchmark
+    public Payload readFresh() throws IOException {
+        return adapter.fromHUML(new HumlReader(document));
+    }
+
+    @Benchmark
+    public String writePooled() throws IOException {
+        return mapper.writeValueAsString(payload);
+    }
+
+    @Benchmark
+    public String writeFresh() throws IOException {
+        HumlWriter writer = new HumlWriter();
+        adapter.toHUML(writer, payload);
+        return writer.getOutput();
+    }
+}
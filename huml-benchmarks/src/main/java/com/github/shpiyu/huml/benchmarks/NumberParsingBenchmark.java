@@ -0,0 +1,100 @@
+package com.github.shpiyu.huml.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.shpiyu.huml.HumlDocument;
+import com.github.shpiyu.huml.parser.NumberDecoder;
+import com.github.shpiyu.huml.parser.Parser;
+
+/**
+ * Parses a document holding one million numbers: integers, decimals and exponent forms spread
+ * over inline vectors and a multi-line list.
+ *
+ * <pre>
+ * mvn -pl huml-benchmarks -am package
+ * java -jar huml-benchmarks/target/benchmarks.jar NumberParsingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NumberParsingBenchmark {
+    private static final int NUMBERS = 1_000_000;
+    private static final int NUMBERS_PER_LINE = 100;
+
+    private String document;
+    private String[] numbers;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        numbers = new String[NUMBERS];
+        for (int i = 0; i < NUMBERS; i++) {
+            numbers[i] = switch (i % 4) {
+                case 0 -> Long.toString(random.nextInt(1_000_000));
+                case 1 -> Double.toString(random.nextDouble() * 1000);
+                case 2 -> (random.nextInt(20000) - 10000) + "." + random.nextInt(100);
+                default -> random.nextInt(1000) + "e" + (random.nextInt(40) - 20);
+            };
+        }
+
+        StringBuilder sb = new StringBuilder(NUMBERS * 12);
+        int half = NUMBERS / 2;
+        for (int i = 0; i < half; i += NUMBERS_PER_LINE) {
+            sb.append("row").append(i / NUMBERS_PER_LINE).append(":: ");
+            for (int j = i; j < i + NUMBERS_PER_LINE; j++) {
+                if (j > i) {
+                    sb.append(", ");
+                }
+                sb.append(numbers[j]);
+            }
+            sb.append('\n');
+        }
+        sb.append("points::\n");
+        for (int i = half; i < NUMBERS; i++) {
+            sb.append("  - ").append(numbers[i]).append('\n');
+        }
+        document = sb.toString();
+    }
+
+    @Benchmark
+    public HumlDocument parseDocument() {
+        return Parser.parse(document);
+    }
+
+    @Benchmark
+    public void decodeNumbers(Blackhole blackhole) {
+        NumberDecoder decoder = new NumberDecoder();
+        for (String number : numbers) {
+            int kind = decoder.decode(number, 0, number.length());
+            blackhole.consume(decoder.numberAsDouble(kind));
+        }
+    }
+
+    @Benchmark
+    public void parseNumbersWithJdk(Blackhole blackhole) {
+        for (String number : numbers) {
+            if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0) {
+                blackhole.consume(Double.parseDouble(number));
+            } else {
+                blackhole.consume((double) Long.parseLong(number));
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.shpiyu.huml;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the constructor generated adapters use to create instances of a @Huml class. The
+ * parameters are bound to the keys with the same names.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.CONSTRUCTOR)
+public @interface HumlCreator {
+
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.Writer;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Set;
 
 import javax.annotation.processing.AbstractProcessor;
@@ -15,8 +16,19 @@ import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
 
 /**
@@ -26,23 +38,25 @@ import javax.tools.JavaFileObject;
 @SupportedSourceVersion(SourceVersion.RELEASE_21)
 public class HumlProcessor extends AbstractProcessor {
 
-    // Functional interface for type conversion
+    // Functional interface for type conversion, from the expression of a HumlReader to the
+    // expression reading one value with it
     @FunctionalInterface
     private interface TypeHandler {
-        String convert(String fieldName);
+        String convert(String reader);
 
-        default String apply(String fieldName) {
-            return convert(fieldName);
+        default String apply(String reader) {
+            return convert(reader);
         }
     }
 
-    // Functional interface for type serialization
+    // Functional interface for type serialization, from the key expression (null inside a list)
+    // and the value expression to the statement writing the value
     @FunctionalInterface
     private interface SerializationHandler {
-        String generate(String fieldName);
+        String generate(String key, String value);
 
-        default String apply(String fieldName) {
-            return generate(fieldName);
+        default String apply(String key, String value) {
+            return generate(key, value);
         }
     }
 
@@ -52,19 +66,21 @@ public class HumlProcessor extends AbstractProcessor {
 
     private Filer filer;
     private Elements elementUtils;
+    private Types typeUtils;
 
     @Override
     public synchronized void init(ProcessingEnvironment processingEnv) {
         super.init(processingEnv);
         this.filer = processingEnv.getFiler();
         this.elementUtils = processingEnv.getElementUtils();
+        this.typeUtils = processingEnv.getTypeUtils();
         initTypeHandlers();
     }
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         for (Element e : roundEnv.getElementsAnnotatedWith(Huml.class)) {
-            if (e.getKind() != ElementKind.CLASS)
+            if (e.getKind() != ElementKind.CLASS && e.getKind() != ElementKind.RECORD)
                 continue;
             TypeElement classElement = (TypeElement) e;
             generateAdapter(classElement);
@@ -77,22 +93,32 @@ public class HumlProcessor extends AbstractProcessor {
 
         // Wrapper type handlers
         // todo: handle Character
-        // todo: handle Strings with special characters \t, \n, etc
-        typeHandlers.put("java.lang.Integer", field -> String.format("doc.get(\"%s\").asInteger();", field));
-        typeHandlers.put("java.lang.Double", field -> String.format("doc.get(\"%s\").asDouble();", field));
-        typeHandlers.put("java.lang.Float", field -> String.format("doc.get(\"%s\").asFloat();", field));
-        typeHandlers.put("java.lang.Long", field -> String.format("doc.get(\"%s\").asLong();", field));
-        typeHandlers.put("java.lang.Short", field -> String.format("doc.get(\"%s\").asShort();", field));
-        typeHandlers.put("java.lang.Byte", field -> String.format("doc.get(\"%s\").asByte();", field));
-        typeHandlers.put("java.lang.String", field -> String.format("doc.get(\"%s\").asString();", field));
+        typeHandlers.put("java.lang.Integer", reader -> reader + ".readInteger()");
+        typeHandlers.put("java.lang.Double", reader -> reader + ".readDouble()");
+        typeHandlers.put("java.lang.Float", reader -> reader + ".readFloat()");
+        typeHandlers.put("java.lang.Long", reader -> reader + ".readLong()");
+        typeHandlers.put("java.lang.Short", reader -> reader + ".readShort()");
+        typeHandlers.put("java.lang.Byte", reader -> reader + ".readByte()");
+        typeHandlers.put("java.lang.Boolean", reader -> reader + ".readBoolean()");
+        typeHandlers.put("java.lang.String", reader -> reader + ".readString()");
 
         // Primitives handlers
-        typeHandlers.put("int", field -> String.format("doc.get(\"%s\").asInteger();", field));
-        typeHandlers.put("double", field -> String.format("doc.get(\"%s\").asDouble();", field));
-        typeHandlers.put("float", field -> String.format("doc.get(\"%s\").asFloat();", field));
-        typeHandlers.put("long", field -> String.format("doc.get(\"%s\").asLong();", field));
-        typeHandlers.put("short", field -> String.format("doc.get(\"%s\").asShort();", field));
-        typeHandlers.put("byte", field -> String.format("doc.get(\"%s\").asByte();", field));
+        typeHandlers.put("int", reader -> reader + ".readPrimitiveInt()");
+        typeHandlers.put("double", reader -> reader + ".readPrimitiveDouble()");
+        typeHandlers.put("float", reader -> reader + ".readPrimitiveFloat()");
+        typeHandlers.put("long", reader -> reader + ".readPrimitiveLong()");
+        typeHandlers.put("short", reader -> reader + ".readPrimitiveShort()");
+        typeHandlers.put("byte", reader -> reader + ".readPrimitiveByte()");
+        typeHandlers.put("boolean", reader -> reader + ".readPrimitiveBoolean()");
+
+        // Primitive array handlers, filled without boxing the items
+        typeHandlers.put("int[]", reader -> reader + ".readIntArray()");
+        typeHandlers.put("double[]", reader -> reader + ".readDoubleArray()");
+        typeHandlers.put("float[]", reader -> reader + ".readFloatArray()");
+        typeHandlers.put("long[]", reader -> reader + ".readLongArray()");
+        typeHandlers.put("short[]", reader -> reader + ".readShortArray()");
+        typeHandlers.put("byte[]", reader -> reader + ".readByteArray()");
+        typeHandlers.put("boolean[]", reader -> reader + ".readBooleanArray()");
 
         // Initialize serialization handlers
         // For types that need String.valueOf()
@@ -108,18 +134,23 @@ public class HumlProcessor extends AbstractProcessor {
         };
 
         for (String type : valueOfTypes) {
-            serializationHandlers.put(type,
-                    fieldName -> "writer.writeField(\"" + fieldName + "\", String.valueOf(value." + fieldName + "));");
+            serializationHandlers.put(type, (key, value) -> writeScalar(key, "String.valueOf(" + value + ")"));
         }
 
         // String type
         serializationHandlers.put("java.lang.String",
-                fieldName -> "writer.writeField(\"" + fieldName + "\", handleNullString(value." + fieldName + "));");
+                (key, value) -> writeScalar(key, "handleNullString(" + value + ")"));
 
         // Default handler for unsupported types
         serializationHandlers.put("__DEFAULT__",
-                fieldName -> "writer.writeField(\"" + fieldName + "\", String.valueOf(value." + fieldName
-                        + ")); // Unsupported type");
+                (key, value) -> writeScalar(key, "String.valueOf(" + value + ")") + " // Unsupported type");
+    }
+
+    private static String writeScalar(String key, String text) {
+        if (key == null) {
+            return "writer.writeItem(" + text + ");";
+        }
+        return "writer.writeField(" + key + ", " + text + ");";
     }
 
     // Generates HumlAdapter class file
@@ -128,6 +159,14 @@ public class HumlProcessor extends AbstractProcessor {
         String className = classElement.getSimpleName().toString();
         String adapterClassName = className + "HumlAdapter";
 
+        ExecutableElement creator = creator(classElement);
+        if (creator == null && !hasNoArgConstructor(classElement)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "@Huml types need a no-arg constructor, a canonical constructor or a @HumlCreator constructor",
+                    classElement);
+            return;
+        }
+
         StringBuilder code = new StringBuilder();
         code.append("package ").append(packageName).append(";\n")
                 .append("import com.github.shpiyu.huml.HumlAdapter;\n")
@@ -135,10 +174,10 @@ public class HumlProcessor extends AbstractProcessor {
                 .append("import com.github.shpiyu.huml.HumlWriter;\n")
                 .append("import java.io.IOException;\n")
                 .append("import static com.github.shpiyu.huml.HumlParserUtils.*;\n")
-                .append("public class ").append(adapterClassName).append(" extends HumlAdapter\u003c").append(className)
-                .append("\u003e {\n");
+                .append("public class ").append(adapterClassName).append(" extends HumlAdapter<").append(className)
+                .append("> {\n");
 
-        fromHUML(code, classElement);
+        fromHUML(code, classElement, creator);
 
         toHUML(code, classElement);
 
@@ -154,58 +193,266 @@ public class HumlProcessor extends AbstractProcessor {
         }
     }
 
-    // Generates the fromHUML method which is used to parse HUML to Java object
-    private void fromHUML(StringBuilder code, Element classElement) {
+    // Generates the fromHUML method which is used to parse HUML to Java object. The fields are
+    // bound while pulling tokens from the reader, in a static read method that adapters of
+    // enclosing types call directly. Without a creator the instance is created first and its
+    // fields assigned; with one the values are collected into locals and passed to a single
+    // constructor call.
+    private void fromHUML(StringBuilder code, TypeElement classElement, ExecutableElement creator) {
         String className = classElement.getSimpleName().toString();
 
         code.append("    @Override\n")
                 .append("    public ").append(className).append(" fromHUML(HumlReader reader) throws IOException {\n")
-                .append("        ").append(className).append(" instance = new ").append(className).append("();\n")
-                .append("        HumlDocument doc = reader.readDocument();\n");
-
-        for (Element field : classElement.getEnclosedElements()) {
-            if (field.getKind() == ElementKind.FIELD) {
-                String fieldName = field.getSimpleName().toString();
-                String fieldType = field.asType().toString();
-                code.append("        instance.").append(fieldName).append(" = ");
-
-                // Get the appropriate type handler or use the unknown type handler
-                TypeHandler handler = typeHandlers.getOrDefault(fieldType,
-                        type -> "null; // " + type + " not supported");
-
-                // Apply the handler to get the conversion code
-                String conversionCode = handler.apply(fieldName);
-                code.append(conversionCode).append("\n");
+                .append("        return read(reader);\n")
+                .append("    }\n\n");
+
+        code.append("    public static ").append(className).append(" read(HumlReader reader) {\n")
+                .append("        if (!reader.beginDict()) {\n")
+                .append("            return null;\n")
+                .append("        }\n");
+
+        List<? extends Element> targets;
+        if (creator == null) {
+            targets = fields(classElement);
+            code.append("        ").append(className).append(" instance = new ").append(className).append("();\n");
+        } else {
+            targets = creator.getParameters();
+            for (int i = 0; i < targets.size(); i++) {
+                TypeMirror type = targets.get(i).asType();
+                code.append("        ").append(type).append(" arg").append(i).append(" = ").append(defaultValue(type))
+                        .append(";\n");
+            }
+        }
+        code.append("        String key;\n")
+                .append("        while ((key = reader.nextKey()) != null) {\n")
+                .append("            switch (key) {\n");
+
+        for (int i = 0; i < targets.size(); i++) {
+            Element target = targets.get(i);
+            String name = target.getSimpleName().toString();
+            String conversionCode = readExpression(target.asType(), "reader", 0);
+            code.append("                case \"").append(name).append("\":\n");
+            if (conversionCode == null) {
+                code.append("                    reader.skipValue(); // ").append(target.asType()).append(" not supported\n");
+            } else {
+                code.append("                    ").append(creator == null ? "instance." + name : "arg" + i)
+                        .append(" = ").append(conversionCode).append(";\n");
+            }
+            code.append("                    break;\n");
+        }
+        if (creator != null) {
+            // fields the creator does not take, such as derived ones, are written but not read back
+            for (Element field : fields(classElement)) {
+                String name = field.getSimpleName().toString();
+                if (targets.stream().noneMatch(target -> target.getSimpleName().contentEquals(name))) {
+                    code.append("                case \"").append(name).append("\":\n")
+                            .append("                    reader.skipValue();\n")
+                            .append("                    break;\n");
+                }
             }
         }
 
-        code.append("        return instance;\n");
+        code.append("                default:\n")
+                .append("                    reader.skipUnknownValue(key);\n")
+                .append("            }\n")
+                .append("        }\n");
+        if (creator == null) {
+            code.append("        return instance;\n");
+        } else {
+            code.append("        return new ").append(className).append("(");
+            for (int i = 0; i < targets.size(); i++) {
+                code.append(i == 0 ? "" : ", ").append("arg").append(i);
+            }
+            code.append(");\n");
+        }
         code.append("    }\n\n");
+    }
+
+    // Returns the constructor values are passed to: the one annotated with @HumlCreator, or the
+    // canonical constructor taking every field in declaration order when there is no no-arg
+    // constructor. Records always use their canonical constructor.
+    private ExecutableElement creator(TypeElement classElement) {
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(classElement.getEnclosedElements());
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getAnnotation(HumlCreator.class) != null) {
+                return constructor;
+            }
+        }
+        if (classElement.getKind() != ElementKind.RECORD && hasNoArgConstructor(classElement)) {
+            return null;
+        }
+        List<? extends Element> fields = fields(classElement);
+        for (ExecutableElement constructor : constructors) {
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.size() != fields.size()) {
+                continue;
+            }
+            boolean canonical = true;
+            for (int i = 0; i < fields.size() && canonical; i++) {
+                canonical = parameters.get(i).getSimpleName().contentEquals(fields.get(i).getSimpleName())
+                        && typeUtils.isSameType(parameters.get(i).asType(), fields.get(i).asType());
+            }
+            if (canonical) {
+                return constructor;
+            }
+        }
+        return null;
+    }
 
+    private static boolean hasNoArgConstructor(TypeElement classElement) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(classElement.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case CHAR:
+                return "'\\0'";
+            default:
+                return type.getKind().isPrimitive() ? "0" : "null";
+        }
+    }
+
+    // Returns the expression reading a value of the given type, or null if the type is not
+    // supported
+    private String readExpression(TypeMirror type, String reader, int depth) {
+        if (type == null) {
+            return null; // raw collection types
+        }
+        TypeHandler handler = typeHandlers.get(type.toString());
+        if (handler != null) {
+            return handler.apply(reader);
+        }
+        String item = "r" + depth;
+        if (isList(type)) {
+            String itemCode = readExpression(typeArgument(type, 0), item, depth + 1);
+            return itemCode == null ? null : reader + ".readList(" + item + " -> " + itemCode + ")";
+        }
+        if (isStringMap(type)) {
+            String valueCode = readExpression(typeArgument(type, 1), item, depth + 1);
+            return valueCode == null ? null : reader + ".readMap(" + item + " -> " + valueCode + ")";
+        }
+        if (isHumlType(type)) {
+            return adapterName(type) + ".read(" + reader + ")";
+        }
+        return null;
     }
 
     // Generates the toHUML method which is used to serialize Java object to HUML
     private void toHUML(StringBuilder code, Element classElement) {
         String className = classElement.getSimpleName().toString();
         code.append("    @Override public void toHUML(HumlWriter writer, ").append(className)
+                .append(" value) throws IOException {\n")
+                .append("        write(writer, value);\n")
+                .append("    }\n\n");
+
+        code.append("    public static void write(HumlWriter writer, ").append(className)
                 .append(" value) throws IOException {\n");
 
-        for (Element field : classElement.getEnclosedElements()) {
-            if (field.getKind() == ElementKind.FIELD) {
-                String fieldName = field.getSimpleName().toString();
-                String fieldType = field.asType().toString();
+        for (Element field : fields(classElement)) {
+            String fieldName = field.getSimpleName().toString();
+            String accessor = classElement.getKind() == ElementKind.RECORD ? fieldName + "()" : fieldName;
+            writeStatements(code, field.asType(), "\"" + fieldName + "\"", "value." + accessor, "        ", 0);
+        }
 
-                // Get the appropriate serialization handler or use the default one
-                SerializationHandler handler = serializationHandlers.getOrDefault(
-                        fieldType,
-                        serializationHandlers.get("__DEFAULT__"));
+        code.append("    }\n");
+    }
 
-                // Generate and append the serialization code
-                String serializationCode = handler.apply(fieldName);
-                code.append("        ").append(serializationCode).append("\n");
-            }
+    // Appends the statements writing a value of the given type. The key is null inside a list.
+    private void writeStatements(StringBuilder code, TypeMirror type, String key, String value, String indent,
+            int depth) {
+        SerializationHandler handler = serializationHandlers.get(type.toString());
+        if (handler != null) {
+            code.append(indent).append(handler.apply(key, value)).append("\n");
+            return;
         }
 
-        code.append("    }\n");
+        boolean array = type.getKind() == TypeKind.ARRAY
+                && ((ArrayType) type).getComponentType().getKind().isPrimitive();
+        boolean list = array || isList(type);
+        boolean map = isStringMap(type);
+        if (!list && !map && !isHumlType(type)) {
+            code.append(indent).append(serializationHandlers.get("__DEFAULT__").apply(key, value)).append("\n");
+            return;
+        }
+
+        String inner = indent + "    ";
+        code.append(indent).append("if (").append(value).append(" == null) {\n")
+                .append(inner).append(writeScalar(key, "\"null\"")).append("\n")
+                .append(indent).append("} else {\n");
+        if (list) {
+            TypeMirror itemType = array ? ((ArrayType) type).getComponentType() : upperBound(typeArgument(type, 0));
+            String item = "item" + depth;
+            code.append(inner).append("writer.startList(").append(key).append(");\n")
+                    .append(inner).append("for (").append(itemType).append(" ").append(item).append(" : ")
+                    .append(value).append(") {\n");
+            writeStatements(code, itemType, null, item, inner + "    ", depth + 1);
+            code.append(inner).append("}\n");
+        } else if (map) {
+            TypeMirror valueType = upperBound(typeArgument(type, 1));
+            String entry = "entry" + depth;
+            code.append(inner).append("writer.startDict(").append(key).append(");\n")
+                    .append(inner).append("for (java.util.Map.Entry<String, ? extends ").append(valueType).append("> ")
+                    .append(entry).append(" : ").append(value).append(".entrySet()) {\n");
+            writeStatements(code, valueType, entry + ".getKey()", entry + ".getValue()", inner + "    ", depth + 1);
+            code.append(inner).append("}\n");
+        } else {
+            code.append(inner).append("writer.startDict(").append(key).append(");\n")
+                    .append(inner).append(adapterName(type)).append(".write(writer, ").append(value).append(");\n");
+        }
+        code.append(inner).append("writer.end();\n")
+                .append(indent).append("}\n");
+    }
+
+    // Instance fields bound by the adapter
+    private static List<? extends Element> fields(Element classElement) {
+        return classElement.getEnclosedElements().stream()
+                .filter(e -> e.getKind() == ElementKind.FIELD && !e.getModifiers().contains(Modifier.STATIC))
+                .toList();
+    }
+
+    private boolean isList(TypeMirror type) {
+        return isType(type, "java.util.List") && typeArgument(type, 0) != null;
+    }
+
+    // Maps are bound to dicts, so only String keys are supported
+    private boolean isStringMap(TypeMirror type) {
+        return isType(type, "java.util.Map") && isType(typeArgument(type, 0), "java.lang.String");
+    }
+
+    private boolean isType(TypeMirror type, String qualifiedName) {
+        return type != null && type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) typeUtils.asElement(type)).getQualifiedName().contentEquals(qualifiedName);
+    }
+
+    private static TypeMirror typeArgument(TypeMirror type, int index) {
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        return index < arguments.size() ? arguments.get(index) : null;
+    }
+
+    // Items of wildcard types are written through their upper bound, Object when there is none
+    private TypeMirror upperBound(TypeMirror type) {
+        if (type.getKind() != TypeKind.WILDCARD) {
+            return type;
+        }
+        TypeMirror bound = ((WildcardType) type).getExtendsBound();
+        return bound != null ? bound : elementUtils.getTypeElement("java.lang.Object").asType();
+    }
+
+    private boolean isHumlType(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && typeUtils.asElement(type).getAnnotation(Huml.class) != null;
+    }
+
+    // Nested @Huml types are bound by calling their generated adapter directly
+    private String adapterName(TypeMirror type) {
+        Element element = typeUtils.asElement(type);
+        String packageName = elementUtils.getPackageOf(element).getQualifiedName().toString();
+        return packageName + "." + element.getSimpleName() + "HumlAdapter";
     }
 }
@@ -0,0 +1,54 @@
+package com.github.shpiyu.huml;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free pool of reusable buffers. Threads probe the slots starting from one
+ * derived from their id, so concurrent callers rarely contend for the same slot. Nothing blocks
+ * and nothing is bound to a thread, which keeps the pool cheap for virtual threads: when the pool
+ * is empty callers allocate, and when it is full released buffers are dropped.
+ */
+final class BufferPool<T> {
+    private final AtomicReferenceArray<T> slots;
+
+    BufferPool(int capacity) {
+        slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Takes a buffer out of the pool.
+     *
+     * @return A pooled buffer, or null if there is none.
+     */
+    T acquire() {
+        int length = slots.length();
+        int start = start();
+        for (int i = 0; i < length; i++) {
+            int slot = (start + i) % length;
+            T buffer = slots.get(slot);
+            if (buffer != null && slots.compareAndSet(slot, buffer, null)) {
+                return buffer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a buffer to the pool, or drops it if the pool is full.
+     */
+    void release(T buffer) {
+        int length = slots.length();
+        int start = start();
+        for (int i = 0; i < length; i++) {
+            int slot = (start + i) % length;
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    private int start() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id ^ (id >>> 32)) & Integer.MAX_VALUE) % slots.length();
+    }
+}
@@ -1,16 +1,45 @@
 package com.github.shpiyu.huml;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import com.github.shpiyu.huml.parser.ParserOptions;
+import com.github.shpiyu.huml.parser.TokenizerBuffers;
 
 /**
  * Mapper class for serializing and deserializing objects to and from HUML format. Allows 
  * registration of custom adapters for specific types. 
+ *
+ * <p>The buffers of the tokenizer and of the output are pooled and reused across calls, from any
+ * number of threads, so that repeated reads and writes of large payloads do not grow fresh
+ * arrays every time. Buffers grown past a few megabytes by an unusually large payload are not
+ * kept. Adapters must therefore not use the reader they are given after {@code fromHUML}
+ * returns.
  */
 public class HumlMapper {
+    private static final int POOL_SIZE = Math.min(64, Runtime.getRuntime().availableProcessors() * 2);
+    private static final long MAX_POOLED_BYTES = 8 << 20;
+    private static final int MAX_POOLED_CHARS = 4 << 20;
 
     private final Map<Class<?>, HumlAdapter<?>> adapters = new HashMap<>();
+    private ParserOptions parserOptions = ParserOptions.defaults();
+    private final BufferPool<TokenizerBuffers> readBuffers = new BufferPool<>(POOL_SIZE);
+    private final BufferPool<StringBuilder> writeBuffers = new BufferPool<>(POOL_SIZE);
+    // size of the last output, to size new write buffers
+    private volatile int lastOutputLength = 256;
+    private int readConcurrency = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
 
     /**
      * Registers an adapter for a specific type.
@@ -22,25 +51,119 @@ public class HumlMapper {
         adapters.put(type, adapter);
     }
 
+    /**
+     * Sets the options used to parse input in {@link #readValue(String, Class)}.
+     * 
+     * @param parserOptions The parser options.
+     */
+    public void setParserOptions(ParserOptions parserOptions) {
+        this.parserOptions = parserOptions;
+    }
+
+    /**
+     * Sets how many files {@link #readAll(Collection, Class)} reads and parses at the same time.
+     * Defaults to twice the number of processors, at least 4.
+     * 
+     * @param readConcurrency The maximum number of files in flight.
+     */
+    public void setReadConcurrency(int readConcurrency) {
+        if (readConcurrency < 1) {
+            throw new IllegalArgumentException("Read concurrency must be at least 1: " + readConcurrency);
+        }
+        this.readConcurrency = readConcurrency;
+    }
+
     @SuppressWarnings("unchecked")
     public <T> String writeValueAsString(T value) throws IOException {
-        HumlWriter writer = new HumlWriter();
         HumlAdapter<T> adapter = (HumlAdapter<T>) adapters.get(value.getClass());
         if (adapter == null) {
             throw new IllegalArgumentException("No adapter found for type: " + value.getClass());
         }
-        adapter.toHUML(writer, value);
-        return writer.getOutput();
+        StringBuilder out = writeBuffers.acquire();
+        if (out == null) {
+            out = new StringBuilder(lastOutputLength + (lastOutputLength >> 2));
+        }
+        try {
+            adapter.toHUML(new HumlWriter(out), value);
+            lastOutputLength = out.length();
+            return out.toString();
+        } finally {
+            if (out.capacity() <= MAX_POOLED_CHARS) {
+                out.setLength(0);
+                writeBuffers.release(out);
+            }
+        }
     }
 
     @SuppressWarnings("unchecked")
     public <T> T readValue(String input, Class<T> type) throws IOException {
-        HumlReader reader = new HumlReader(input);
         HumlAdapter<T> adapter = (HumlAdapter<T>) adapters.get(type);
         if (adapter == null) {
             throw new IllegalArgumentException("No adapter found for type: " + type);
         }
-        return adapter.fromHUML(reader);
+        TokenizerBuffers buffers = readBuffers.acquire();
+        if (buffers == null) {
+            buffers = new TokenizerBuffers();
+        }
+        try {
+            return adapter.fromHUML(new HumlReader(input, parserOptions, buffers));
+        } finally {
+            if (buffers.retainedBytes() <= MAX_POOLED_BYTES) {
+                readBuffers.release(buffers);
+            }
+        }
     }
-}
 
+    /**
+     * Reads many UTF-8 files concurrently, each on its own virtual thread, with at most
+     * {@link #setReadConcurrency(int) the read concurrency} files read or parsed at once. A file
+     * that cannot be read or parsed does not stop the others; its exception is collected in the
+     * result instead. Errors thrown for a file are collected too, wrapped in an
+     * {@link ExecutionException}.
+     * 
+     * @param paths The files to read.
+     * @param type The type to read each file as.
+     * @return The values and errors, in the order of {@code paths}.
+     * @throws InterruptedIOException If the calling thread is interrupted while waiting.
+     */
+    public <T> HumlBatchResult<T> readAll(Collection<Path> paths, Class<T> type) throws IOException {
+        if (!adapters.containsKey(type)) {
+            throw new IllegalArgumentException("No adapter found for type: " + type);
+        }
+        List<Path> files = new ArrayList<>(paths);
+        Object[] values = new Object[files.size()];
+        Exception[] errors = new Exception[files.size()];
+        Semaphore permits = new Semaphore(readConcurrency);
+
+        // closing the executor waits for the submitted files
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < files.size(); i++) {
+                // waiting here rather than in the tasks keeps unstarted files from holding threads
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    executor.shutdownNow();
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted after submitting " + i + " of " + files.size() + " files");
+                }
+                int index = i;
+                executor.execute(() -> {
+                    try {
+                        String input = Files.readString(files.get(index), StandardCharsets.UTF_8);
+                        values[index] = readValue(input, type);
+                    } catch (Exception e) {
+                        errors[index] = e;
+                    } catch (Error e) {
+                        // e.g. an OutOfMemoryError for a file too large to read into a string
+                        errors[index] = new ExecutionException("Reading " + files.get(index) + " failed", e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        // every permit is back once all files are done, and taking them makes the results visible here
+        permits.acquireUninterruptibly(readConcurrency);
+        return new HumlBatchResult<>(files, values, errors);
+    }
+}
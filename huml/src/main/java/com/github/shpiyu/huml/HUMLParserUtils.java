@@ -1,5 +1,7 @@
 package com.github.shpiyu.huml;
 
+import com.github.shpiyu.huml.parser.HumlStrings;
+
 /**
  * Utility functions for parsing HUML format.
  */
@@ -8,7 +10,7 @@ public class HumlParserUtils {
         if (value == null) {
             return "null";
         }
-        return "\"" + value + "\"";
+        return HumlStrings.quote(value);
     }
 
     public static Integer parseInt(Object value) {
@@ -95,6 +97,9 @@ public class HumlParserUtils {
         return Byte.parseByte((String) value);
     }
 
+    /**
+     * Decodes a quoted string written by {@link #handleNullString(String)}.
+     */
     public static String parseString(Object value) {
         if (value == null || value.equals("null")) {
             return null;
@@ -103,6 +108,6 @@ public class HumlParserUtils {
         if (s.isEmpty()) {
             return "";
         }
-        return s.substring(1, s.length() - 1);
-    }   
+        return HumlStrings.unescape(s, 1, s.length() - 1);
+    }
 }
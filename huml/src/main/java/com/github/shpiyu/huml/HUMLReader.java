@@ -1,31 +1,498 @@
 package com.github.shpiyu.huml;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import com.github.shpiyu.huml.parser.HumlToken;
+import com.github.shpiyu.huml.parser.HumlTokenizer;
 import com.github.shpiyu.huml.parser.Parser;
+import com.github.shpiyu.huml.parser.ParserException;
+import com.github.shpiyu.huml.parser.ParserOptions;
+import com.github.shpiyu.huml.parser.TokenizerBuffers;
 
 /**
  * Reads HUML format from a string.
+ *
+ * <p>Besides {@link #readDocument()}, the reader offers a pull API over the tokens of the input
+ * that binds values without building a tree: {@link #beginDict()} and {@link #nextKey()} walk a
+ * dict, the typed {@code read} methods consume one value each. Inline and multi-line vectors are
+ * read the same way. A value of another kind than requested is consumed and read as null, or as
+ * zero/false for the primitive variants, like the accessors of {@link HumlValue}.
  */
 public class HumlReader {
     private String input;
+    private final ParserOptions options;
+    // scratch arrays for the tokenizer, null to allocate them
+    private final TokenizerBuffers buffers;
+
+    private HumlTokenizer tokens;
+    // token read ahead by peek(), null if none
+    private HumlToken peeked;
 
     /**
      * Creates a new HUMLReader instance.
-     * 
+     *
      * @param input The input string to read from.
      */
     public HumlReader(String input) {
+        this(input, ParserOptions.defaults());
+    }
+
+    /**
+     * Creates a new HUMLReader instance with the given parser options.
+     *
+     * @param input The input string to read from.
+     * @param options The options used to parse the input.
+     */
+    public HumlReader(String input, ParserOptions options) {
+        this(input, options, null);
+    }
+
+    HumlReader(String input, ParserOptions options, TokenizerBuffers buffers) {
         this.input = input;
+        this.options = options;
+        this.buffers = buffers;
     }
 
     /**
      * Reads a HUML document from a string.
-     * 
+     *
      * @return A map of key-value pairs representing the document.
      * @throws IOException If an I/O error occurs.
      */
     public HumlDocument readDocument() throws IOException {
-        return Parser.parse(input);
+        return Parser.parse(input, options);
+    }
+
+    /**
+     * Streams the items of the list at the given path of dict keys without building the list.
+     * The source range of a multi-line list is split at item boundaries, so a
+     * {@link Stream#parallel() parallel} stream decodes and processes items on every core as
+     * soon as their part is reached. Each item is decoded when the stream asks for it; a
+     * malformed item fails the stream with a {@link ParserException} when it is reached.
+     *
+     * <p>The stream reads the whole input, independently of the pull methods of this reader.
+     *
+     * @param path The keys leading from the root to the list.
+     * @return A sequential stream of the items.
+     * @throws ParserException If there is no list at the path.
+     */
+    public Stream<HumlValue> streamList(String... path) {
+        if (path.length == 0) {
+            throw new IllegalArgumentException("The path to the list is empty");
+        }
+        HumlListSpliterator items = HumlListSpliterator.find(input, path, options);
+        if (items != null) {
+            return StreamSupport.stream(items, false);
+        }
+        // a single line vector is short enough to parse as is
+        HumlValue value = Parser.parse(input, options).getRoot();
+        for (int i = 0; value != null && i < path.length; i++) {
+            value = value.asDict().get(path[i]);
+        }
+        if (value == null || value.getType() != HumlType.LIST) {
+            throw new ParserException("Expected a list at key '" + path[path.length - 1] + "'");
+        }
+        return value.asList().stream();
+    }
+
+    /**
+     * Returns the next token without consuming it.
+     */
+    public HumlToken peek() {
+        if (peeked == null) {
+            peeked = tokens().next();
+        }
+        return peeked;
+    }
+
+    /**
+     * Consumes the start of a dict. The root of the document is a dict.
+     *
+     * @return Whether a dict was started; false if the value was null or not a dict, in which
+     *         case it was consumed.
+     */
+    public boolean beginDict() {
+        return advanceTo(HumlToken.START_DICT);
+    }
+
+    /**
+     * Consumes the next key of the current dict.
+     *
+     * @return The key, or null once the dict has ended.
+     */
+    public String nextKey() {
+        HumlToken token = advance();
+        if (token == HumlToken.KEY) {
+            return tokens.key();
+        }
+        if (token != HumlToken.END_DICT) {
+            throw new ParserException("Expected a key at line " + tokens.line() + " but found " + token);
+        }
+        return null;
+    }
+
+    /**
+     * Consumes the start of a list.
+     *
+     * @return Whether a list was started; false if the value was null or not a list, in which
+     *         case it was consumed.
+     */
+    public boolean beginList() {
+        return advanceTo(HumlToken.START_LIST);
+    }
+
+    /**
+     * Returns whether the current list has another item, consuming its end if not.
+     */
+    public boolean hasNextItem() {
+        if (peek() == HumlToken.END_LIST) {
+            advance();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Skips the next value, scalar or container, without materializing it. Multi-line blocks are
+     * skipped by their indentation only.
+     */
+    public void skipValue() {
+        advance();
+        tokens.skipValue();
+    }
+
+    /**
+     * Skips the value of a key the caller does not bind.
+     *
+     * @param key The key of the value.
+     * @throws ParserException If the reader was created with
+     *         {@link ParserOptions#failOnUnknownKeys(boolean)} enabled.
+     */
+    public void skipUnknownValue(String key) {
+        if (options.isFailOnUnknownKeys()) {
+            throw new ParserException("Unknown key '" + key + "' at line " + tokens.line());
+        }
+        skipValue();
+    }
+
+    /**
+     * Reads the next value and everything nested in it into a tree.
+     */
+    public HumlValue readValue() {
+        advance();
+        return Parser.readValue(tokens);
+    }
+
+    public String readString() {
+        return advanceTo(HumlToken.STRING) ? tokens.stringValue().toString() : null;
+    }
+
+    public Boolean readBoolean() {
+        return advanceTo(HumlToken.BOOLEAN) ? tokens.booleanValue() : null;
+    }
+
+    public boolean readPrimitiveBoolean() {
+        return advanceTo(HumlToken.BOOLEAN) && tokens.booleanValue();
+    }
+
+    public Integer readInteger() {
+        return advanceToNumber() ? (int) integralValue(Integer.MIN_VALUE, Integer.MAX_VALUE) : null;
+    }
+
+    public int readPrimitiveInt() {
+        return advanceToNumber() ? (int) integralValue(Integer.MIN_VALUE, Integer.MAX_VALUE) : 0;
+    }
+
+    public Long readLong() {
+        return advanceToNumber() ? integralValue(Long.MIN_VALUE, Long.MAX_VALUE) : null;
+    }
+
+    public long readPrimitiveLong() {
+        return advanceToNumber() ? integralValue(Long.MIN_VALUE, Long.MAX_VALUE) : 0L;
+    }
+
+    public Short readShort() {
+        return advanceToNumber() ? (short) integralValue(Short.MIN_VALUE, Short.MAX_VALUE) : null;
+    }
+
+    public short readPrimitiveShort() {
+        return advanceToNumber() ? (short) integralValue(Short.MIN_VALUE, Short.MAX_VALUE) : 0;
+    }
+
+    public Byte readByte() {
+        return advanceToNumber() ? (byte) integralValue(Byte.MIN_VALUE, Byte.MAX_VALUE) : null;
+    }
+
+    public byte readPrimitiveByte() {
+        return advanceToNumber() ? (byte) integralValue(Byte.MIN_VALUE, Byte.MAX_VALUE) : 0;
+    }
+
+    public Double readDouble() {
+        return advanceToNumber() ? floatingValue() : null;
+    }
+
+    public double readPrimitiveDouble() {
+        return advanceToNumber() ? floatingValue() : 0.0;
+    }
+
+    public Float readFloat() {
+        return advanceToNumber() ? (float) floatingValue() : null;
+    }
+
+    public float readPrimitiveFloat() {
+        return advanceToNumber() ? (float) floatingValue() : 0.0f;
+    }
+
+    /**
+     * Reads a list of numbers straight into an array, without boxing the items.
+     *
+     * @return The array, or null if the value was not a list.
+     */
+    public int[] readIntArray() {
+        if (!beginList()) {
+            return null;
+        }
+        int[] values = new int[8];
+        int size = 0;
+        while (hasNextItem()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = readPrimitiveInt();
+        }
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads a list of numbers straight into an array, without boxing the items.
+     *
+     * @return The array, or null if the value was not a list.
+     */
+    public long[] readLongArray() {
+        if (!beginList()) {
+            return null;
+        }
+        long[] values = new long[8];
+        int size = 0;
+        while (hasNextItem()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = readPrimitiveLong();
+        }
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads a list of numbers straight into an array, without boxing the items.
+     *
+     * @return The array, or null if the value was not a list.
+     */
+    public short[] readShortArray() {
+        if (!beginList()) {
+            return null;
+        }
+        short[] values = new short[8];
+        int size = 0;
+        while (hasNextItem()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = readPrimitiveShort();
+        }
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads a list of numbers straight into an array, without boxing the items.
+     *
+     * @return The array, or null if the value was not a list.
+     */
+    public byte[] readByteArray() {
+        if (!beginList()) {
+            return null;
+        }
+        byte[] values = new byte[8];
+        int size = 0;
+        while (hasNextItem()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = readPrimitiveByte();
+        }
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads a list of numbers straight into an array, without boxing the items.
+     *
+     * @return The array, or null if the value was not a list.
+     */
+    public double[] readDoubleArray() {
+        if (!beginList()) {
+            return null;
+        }
+        double[] values = new double[8];
+        int size = 0;
+        while (hasNextItem()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = readPrimitiveDouble();
+        }
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads a list of numbers straight into an array, without boxing the items.
+     *
+     * @return The array, or null if the value was not a list.
+     */
+    public float[] readFloatArray() {
+        if (!beginList()) {
+            return null;
+        }
+        float[] values = new float[8];
+        int size = 0;
+        while (hasNextItem()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = readPrimitiveFloat();
+        }
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads a list of booleans straight into an array, without boxing the items.
+     *
+     * @return The array, or null if the value was not a list.
+     */
+    public boolean[] readBooleanArray() {
+        if (!beginList()) {
+            return null;
+        }
+        boolean[] values = new boolean[8];
+        int size = 0;
+        while (hasNextItem()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = readPrimitiveBoolean();
+        }
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Reads a list, binding every item with the given function.
+     *
+     * @param item Reads one item from this reader.
+     * @return The list, or null if the value was not a list.
+     */
+    public <T> List<T> readList(Function<HumlReader, T> item) {
+        if (!beginList()) {
+            return null;
+        }
+        List<T> list = new ArrayList<>();
+        while (hasNextItem()) {
+            list.add(item.apply(this));
+        }
+        return list;
+    }
+
+    /**
+     * Reads a dict into a map, binding every value with the given function.
+     *
+     * @param value Reads one value from this reader.
+     * @return The map, or null if the value was not a dict.
+     */
+    public <T> Map<String, T> readMap(Function<HumlReader, T> value) {
+        if (!beginDict()) {
+            return null;
+        }
+        Map<String, T> map = new LinkedHashMap<>();
+        String key;
+        while ((key = nextKey()) != null) {
+            map.put(key, value.apply(this));
+        }
+        return map;
+    }
+
+    private HumlTokenizer tokens() {
+        if (tokens == null) {
+            if (input == null || input.isBlank()) {
+                throw new ParserException("Empty document is undefined");
+            }
+            tokens = buffers != null ? new HumlTokenizer(input, options, buffers) : new HumlTokenizer(input, options);
+        }
+        return tokens;
+    }
+
+    private HumlToken advance() {
+        HumlToken token = peeked;
+        if (token == null) {
+            return tokens().next();
+        }
+        peeked = null;
+        return token;
+    }
+
+    // Consumes the next value, returning whether it starts with the expected token
+    private boolean advanceTo(HumlToken expected) {
+        HumlToken token = advance();
+        if (token == expected) {
+            return true;
+        }
+        consumeRest(token);
+        return false;
+    }
+
+    private boolean advanceToNumber() {
+        HumlToken token = advance();
+        if (token == HumlToken.LONG || token == HumlToken.DOUBLE) {
+            return true;
+        }
+        consumeRest(token);
+        return false;
+    }
+
+    // Consumes the rest of a value whose first token has been read
+    private void consumeRest(HumlToken token) {
+        switch (token) {
+            case START_DICT:
+            case START_LIST:
+                tokens.skipValue();
+                break;
+            case KEY:
+            case END_DICT:
+            case END_LIST:
+            case END_DOCUMENT:
+                throw new ParserException("Expected a value at line " + tokens.line() + " but found " + token);
+            default:
+                // scalars are a single token
+        }
+    }
+
+    private long integralValue(long min, long max) {
+        if (tokens.token() == HumlToken.LONG) {
+            long value = tokens.longValue();
+            if (value >= min && value <= max) {
+                return value;
+            }
+        }
+        throw new NumberFormatException("Expected an integer in range [" + min + ", " + max + "] at line "
+                + tokens.line());
+    }
+
+    private double floatingValue() {
+        return tokens.token() == HumlToken.LONG ? tokens.longValue() : tokens.doubleValue();
     }
 }
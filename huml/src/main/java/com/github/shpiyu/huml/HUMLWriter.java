@@ -1,16 +1,332 @@
 package com.github.shpiyu.huml;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.github.shpiyu.huml.parser.HumlStrings;
+
 /**
- * Writes HUML format to a string.
+ * Writes HUML format to a string or any other {@link Appendable}.
+ *
+ * <p>Besides flat fields, the writer can stream nested blocks with {@link #startDict(String)},
+ * {@link #startList(String)} and {@link #end()}, and serialize whole {@link HumlValue} trees.
+ * Output goes straight to the sink, so large trees can be written to a {@link java.io.Writer}
+ * without building the document in memory. Errors of the sink are thrown as
+ * {@link UncheckedIOException}.
+ *
+ * <p>Keys are written unquoted, so they must read back unchanged: keys that are empty, have
+ * surrounding whitespace, contain colons, quotes or line breaks, or start with {@code -} or
+ * {@code #} are rejected with an {@link IllegalArgumentException}.
  */
 public class HumlWriter {
-    private final StringBuilder sb = new StringBuilder();
+    private static final byte DICT = 0;
+    private static final byte LIST = 1;
+
+    private final Appendable out;
+
+    // spaces for indentation, grown as needed and shared by every line
+    private final StringBuilder indentation = new StringBuilder("        ");
+
+    // open blocks; headers of the blocks from index flushed onwards are not written yet so that
+    // empty blocks can be written as [] or {}
+    private byte[] kinds = new byte[8];
+    private String[] keys = new String[8];
+    private int depth;
+    private int flushed;
+
+    public HumlWriter() {
+        this(new StringBuilder());
+    }
+
+    /**
+     * Creates a writer that appends to the given sink.
+     *
+     * @param out The sink to write to.
+     */
+    public HumlWriter(Appendable out) {
+        this.out = out;
+    }
 
     public void writeField(String key, String value) {
-        sb.append(key).append(": ").append(value).append("\n");
+        try {
+            startLine(key);
+            out.append(key).append(": ").append(value).append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a list item holding the given scalar text.
+     *
+     * @param value The scalar as it should appear in the document.
+     */
+    public void writeItem(String value) {
+        try {
+            startLine(null);
+            out.append("- ").append(value).append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes scalar texts as an inline vector, {@code key:: a, b}. Commas and colons are only
+     * allowed inside quoted strings, see {@link HumlStrings#quote(CharSequence)}.
+     *
+     * @param key The key of the list in the enclosing dict.
+     * @param items The scalars as they should appear in the document.
+     */
+    public void writeVector(String key, List<String> items) {
+        try {
+            startLine(key);
+            out.append(key).append(":: ");
+            if (items.isEmpty()) {
+                out.append("[]");
+            }
+            for (int i = 0; i < items.size(); i++) {
+                if (i > 0) {
+                    out.append(", ");
+                }
+                out.append(items.get(i));
+            }
+            out.append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Opens a multi-line dict. The key must be null inside a list.
+     *
+     * @param key The key of the dict in the enclosing dict.
+     */
+    public void startDict(String key) {
+        open(DICT, key);
+    }
+
+    /**
+     * Opens a multi-line list. The key must be null inside a list.
+     *
+     * @param key The key of the list in the enclosing dict.
+     */
+    public void startList(String key) {
+        open(LIST, key);
+    }
+
+    /**
+     * Closes the innermost block opened with {@link #startDict(String)} or
+     * {@link #startList(String)}.
+     */
+    public void end() {
+        if (depth == 0) {
+            throw new IllegalStateException("No open block to end");
+        }
+        if (flushed == depth) {
+            flushed--;
+        } else {
+            // nothing was written inside the block
+            try {
+                flushHeaders(depth - 1);
+                writeHeader(depth - 1, kinds[depth - 1] == DICT ? "{}" : "[]");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        depth--;
+    }
+
+    /**
+     * Writes every entry of the document's root dict.
+     *
+     * @param document The document to write.
+     */
+    public void writeDocument(HumlDocument document) {
+        HumlValue root = document.getRoot();
+        if (root.getType() != HumlType.DICT) {
+            throw new IllegalStateException("Root is not a dictionary");
+        }
+        for (Map.Entry<String, HumlValue> entry : root.asDict().entrySet()) {
+            writeValue(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Writes a value and everything nested in it. Lists of plain scalars are written as inline
+     * vectors, everything else as indented blocks. The key must be null inside a list.
+     *
+     * @param key The key of the value in the enclosing dict.
+     * @param value The value to write.
+     */
+    public void writeValue(String key, HumlValue value) {
+        Deque<Iterator<?>> stack = new ArrayDeque<>();
+        try {
+            writeNode(key, value, stack);
+            while (!stack.isEmpty()) {
+                Iterator<?> children = stack.peek();
+                if (!children.hasNext()) {
+                    stack.pop();
+                    end();
+                    continue;
+                }
+                Object child = children.next();
+                if (child instanceof Map.Entry) {
+                    Map.Entry<?, ?> entry = (Map.Entry<?, ?>) child;
+                    writeNode((String) entry.getKey(), (HumlValue) entry.getValue(), stack);
+                } else {
+                    writeNode(null, (HumlValue) child, stack);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public String getOutput() {
-        return sb.toString();
+        return out.toString();
+    }
+
+    private void writeNode(String key, HumlValue value, Deque<Iterator<?>> stack) throws IOException {
+        switch (value.getType()) {
+            case DICT:
+                startDict(key);
+                stack.push(value.asDict().entrySet().iterator());
+                break;
+            case LIST:
+                List<HumlValue> list = value.asList();
+                if (key != null && !list.isEmpty() && isInlineList(list)) {
+                    writeInlineList(key, list);
+                } else {
+                    startList(key);
+                    stack.push(list.iterator());
+                }
+                break;
+            default:
+                startLine(key);
+                if (key == null) {
+                    out.append("- ");
+                } else {
+                    out.append(key).append(": ");
+                }
+                appendScalar(value);
+                out.append('\n');
+        }
+    }
+
+    private void writeInlineList(String key, List<HumlValue> list) throws IOException {
+        startLine(key);
+        out.append(key).append(":: ");
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            appendScalar(list.get(i));
+        }
+        out.append('\n');
+    }
+
+    // Strings are quoted, so their commas and colons do not split an inline vector
+    private static boolean isInlineList(List<HumlValue> list) {
+        for (HumlValue item : list) {
+            HumlType type = item.getType();
+            if (type == HumlType.LIST || type == HumlType.DICT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendScalar(HumlValue value) throws IOException {
+        switch (value.getType()) {
+            case STRING:
+                HumlStrings.appendQuoted(out, value.asCharSequence());
+                break;
+            case NULL:
+                out.append("null");
+                break;
+            default:
+                out.append(value.toString());
+        }
+    }
+
+    private void open(byte kind, String key) {
+        checkKey(key);
+        if (depth == kinds.length) {
+            kinds = Arrays.copyOf(kinds, depth * 2);
+            keys = Arrays.copyOf(keys, depth * 2);
+        }
+        kinds[depth] = kind;
+        keys[depth] = key;
+        depth++;
+    }
+
+    // Writes the indentation for a line inside the innermost block
+    private void startLine(String key) throws IOException {
+        checkKey(key);
+        flushHeaders(depth);
+        indent(depth);
+    }
+
+    private void checkKey(String key) {
+        boolean inList = depth > 0 && kinds[depth - 1] == LIST;
+        if (inList && key != null) {
+            throw new IllegalStateException("Keys cannot be written inside a list");
+        }
+        if (!inList && key == null) {
+            throw new IllegalStateException("A key is required inside a dict");
+        }
+        if (key != null && !isValidKey(key)) {
+            throw new IllegalArgumentException("Key cannot be written in HUML: " + key);
+        }
+    }
+
+    /**
+     * Returns whether a key reads back unchanged when written unquoted.
+     */
+    static boolean isValidKey(String key) {
+        if (key.isEmpty() || !key.strip().equals(key) || key.charAt(0) == '-' || key.charAt(0) == '#') {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == ':' || c == '"' || c == '\n' || c == '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void flushHeaders(int upTo) throws IOException {
+        while (flushed < upTo) {
+            writeHeader(flushed, null);
+            flushed++;
+        }
+    }
+
+    private void writeHeader(int block, String emptyValue) throws IOException {
+        indent(block);
+        if (keys[block] == null) {
+            out.append("- ").append(emptyValue == null ? "::" : emptyValue);
+        } else {
+            out.append(keys[block]).append("::");
+            if (emptyValue != null) {
+                out.append(' ').append(emptyValue);
+            }
+        }
+        out.append('\n');
+    }
+
+    private void indent(int level) throws IOException {
+        int width = level * 2;
+        while (indentation.length() < width) {
+            indentation.append(indentation);
+        }
+        out.append(indentation, 0, width);
     }
 }
@@ -0,0 +1,81 @@
+package com.github.shpiyu.huml;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of reading many files with {@link HumlMapper#readAll(java.util.Collection, Class)}.
+ *
+ * <p>Values and errors are indexed like the input paths. A file that failed to read or parse
+ * has a null value and its exception as error; the other files are unaffected. An
+ * {@link Error} thrown for a file is recorded wrapped in an
+ * {@link java.util.concurrent.ExecutionException}.
+ */
+public final class HumlBatchResult<T> {
+    private final List<Path> paths;
+    private final Object[] values;
+    private final Exception[] errors;
+
+    HumlBatchResult(List<Path> paths, Object[] values, Exception[] errors) {
+        this.paths = Collections.unmodifiableList(paths);
+        this.values = values;
+        this.errors = errors;
+    }
+
+    public int size() {
+        return paths.size();
+    }
+
+    public List<Path> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Returns the value read from the file at the given index, or null if it failed.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) values[index];
+    }
+
+    /**
+     * Returns the exception of the file at the given index, or null if it was read.
+     */
+    public Exception getError(int index) {
+        return errors[index];
+    }
+
+    /**
+     * Returns the values in input order, with null for the files that failed.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getValues() {
+        return (List<T>) Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    /**
+     * Returns the exceptions of the files that failed, in input order.
+     */
+    public Map<Path, Exception> getErrors() {
+        Map<Path, Exception> failed = new LinkedHashMap<>();
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                failed.putIfAbsent(paths.get(i), errors[i]);
+            }
+        }
+        return failed;
+    }
+
+    public boolean hasErrors() {
+        for (Exception error : errors) {
+            if (error != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.shpiyu.huml;
+
+/**
+ * A boolean value.
+ */
+public record HumlBool(boolean value) implements HumlValue {
+    static final HumlBool TRUE = new HumlBool(true);
+    static final HumlBool FALSE = new HumlBool(false);
+
+    @Override
+    public HumlType getType() {
+        return HumlType.BOOLEAN;
+    }
+
+    @Override
+    public Boolean asBoolean() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return Boolean.toString(value);
+    }
+}
@@ -0,0 +1,393 @@
+package com.github.shpiyu.huml;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.github.shpiyu.huml.parser.Parser;
+import com.github.shpiyu.huml.parser.ParserOptions;
+
+/**
+ * A configuration loaded from HUML files and reloaded when they change.
+ *
+ * <p>The files are watched with a {@link WatchService} on a background thread. A burst of
+ * changes, such as an editor saving in several steps, is coalesced into one reload once the
+ * files have been quiet for {@link #debounce(Duration) the debounce delay}. Every reload parses
+ * the files into a new snapshot, either a {@link HumlDocument} or an object bound through a
+ * {@link HumlMapper}, and publishes it with a single reference swap. {@link #get()} never blocks
+ * and always returns a complete snapshot. When a reload fails, the last good snapshot stays
+ * published and listeners are told about the error.
+ *
+ * <pre>{@code
+ * try (HumlConfigSource<HumlDocument> config = HumlConfigSource.forFile(path).start()) {
+ *     HumlValue port = config.get().getRoot().asDict().get("port");
+ * }
+ * }</pre>
+ *
+ * @param <T> The type of the snapshots.
+ */
+public final class HumlConfigSource<T> implements Closeable {
+    private static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(200);
+    private static final String EXTENSION = ".huml";
+
+    /**
+     * Receives the outcome of every reload, on the watching thread.
+     *
+     * @param <T> The type of the snapshots.
+     */
+    public interface Listener<T> {
+        /**
+         * Called after a new snapshot was published.
+         *
+         * @param previous The snapshot that was replaced.
+         * @param current The new snapshot.
+         */
+        void onReload(T previous, T current);
+
+        /**
+         * Called when a reload failed and the previous snapshot was kept, or when the watch
+         * stopped because the directory can no longer be watched.
+         *
+         * @param error The reason of the failure. Errors are wrapped in an
+         *              {@link ExecutionException}.
+         */
+        default void onError(Exception error) {
+        }
+    }
+
+    private interface Loader<T> {
+        T load(ParserOptions options) throws IOException;
+    }
+
+    private interface FileReader<T> {
+        T read(Path path) throws IOException;
+    }
+
+    private final Path directory;
+    // the watched file, or null to watch every HUML file of the directory
+    private final Path file;
+    private final Loader<T> loader;
+    private final AtomicReference<T> current = new AtomicReference<>();
+    private final List<Listener<T>> listeners = new CopyOnWriteArrayList<>();
+    // read by the watching thread, may be changed after start
+    private volatile Duration debounce = DEFAULT_DEBOUNCE;
+    private volatile ParserOptions parserOptions = ParserOptions.defaults();
+    // serializes loads and failure reports; a lock rather than synchronized so that the virtual
+    // watching thread does not pin its carrier while reading files
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile WatchService watcher;
+    private volatile boolean closed;
+
+    private volatile long reloadCount;
+    private volatile long failureCount;
+    private volatile long lastReloadNanos;
+    private volatile Exception lastError;
+
+    private HumlConfigSource(Path directory, Path file, Loader<T> loader) {
+        this.directory = directory;
+        this.file = file;
+        this.loader = loader;
+    }
+
+    /**
+     * Creates a source reading a file as a document.
+     */
+    public static HumlConfigSource<HumlDocument> forFile(Path file) {
+        Path path = file.toAbsolutePath();
+        return new HumlConfigSource<>(path.getParent(), path, options -> readDocument(path, options));
+    }
+
+    /**
+     * Creates a source reading a file as an object, with the adapter registered for its type.
+     */
+    public static <T> HumlConfigSource<T> forFile(Path file, HumlMapper mapper, Class<T> type) {
+        Path path = file.toAbsolutePath();
+        return new HumlConfigSource<>(path.getParent(), path,
+                options -> mapper.readValue(Files.readString(path, StandardCharsets.UTF_8), type));
+    }
+
+    /**
+     * Creates a source reading every {@code .huml} file of a directory as a document. Snapshots
+     * map file names to documents, in the order of the names.
+     */
+    public static HumlConfigSource<Map<String, HumlDocument>> forDirectory(Path directory) {
+        Path dir = directory.toAbsolutePath();
+        return new HumlConfigSource<>(dir, null, options -> readDirectory(dir, path -> readDocument(path, options)));
+    }
+
+    /**
+     * Creates a source reading every {@code .huml} file of a directory as an object, with the
+     * adapter registered for its type. Snapshots map file names to objects, in the order of the
+     * names.
+     */
+    public static <T> HumlConfigSource<Map<String, T>> forDirectory(Path directory, HumlMapper mapper, Class<T> type) {
+        Path dir = directory.toAbsolutePath();
+        return new HumlConfigSource<>(dir, null,
+                options -> readDirectory(dir, path -> mapper.readValue(Files.readString(path, StandardCharsets.UTF_8), type)));
+    }
+
+    /**
+     * Sets how long the files must be left unchanged before a burst of changes is reloaded.
+     * Defaults to 200 milliseconds.
+     *
+     * @param debounce The delay.
+     * @return This source.
+     */
+    public HumlConfigSource<T> debounce(Duration debounce) {
+        if (debounce.isNegative()) {
+            throw new IllegalArgumentException("Debounce delay must not be negative: " + debounce);
+        }
+        this.debounce = debounce;
+        return this;
+    }
+
+    /**
+     * Sets the options used to parse documents. Sources reading objects use the options of their
+     * mapper instead.
+     *
+     * @param parserOptions The parser options.
+     * @return This source.
+     */
+    public HumlConfigSource<T> parserOptions(ParserOptions parserOptions) {
+        this.parserOptions = parserOptions;
+        return this;
+    }
+
+    public HumlConfigSource<T> addListener(Listener<T> listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    public void removeListener(Listener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Loads the first snapshot and starts watching for changes. The watch is registered before
+     * loading, so changes made meanwhile are not missed.
+     *
+     * @return This source.
+     * @throws IOException If the files cannot be watched, read or parsed.
+     */
+    public HumlConfigSource<T> start() throws IOException {
+        lock.lock();
+        try {
+            if (watcher != null) {
+                throw new IllegalStateException("Already started");
+            }
+            WatchService service = directory.getFileSystem().newWatchService();
+            try {
+                directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                long start = System.nanoTime();
+                current.set(loader.load(parserOptions));
+                lastReloadNanos = System.nanoTime() - start;
+            } catch (IOException | RuntimeException e) {
+                service.close();
+                throw e;
+            }
+            watcher = service;
+            if (closed) {
+                // closed while loading, close() may have missed the service
+                service.close();
+                return this;
+            }
+            Thread.ofVirtual().name("huml-config " + (file != null ? file : directory)).start(this::watch);
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current snapshot, without blocking.
+     */
+    public T get() {
+        return current.get();
+    }
+
+    /**
+     * Reloads the files now, outside of the watch.
+     *
+     * @return Whether a new snapshot was published.
+     */
+    public boolean reload() {
+        return reload(System.nanoTime());
+    }
+
+    /**
+     * Returns the number of snapshots published by reloads, the first one excluded.
+     */
+    public long getReloadCount() {
+        return reloadCount;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Returns how long the last successful reload took, from the first change of its burst to the
+     * publication of the snapshot, debounce delay included.
+     */
+    public Duration getLastReloadLatency() {
+        return Duration.ofNanos(lastReloadNanos);
+    }
+
+    /**
+     * Returns the error of the last failed reload, or of the watch if it stopped, or null if none
+     * failed.
+     */
+    public Exception getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Stops watching, without waiting for a reload in progress. The last snapshot stays
+     * readable.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        WatchService service = watcher;
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (!closed) {
+                WatchKey key = watcher.take();
+                long firstChange = System.nanoTime();
+                boolean relevant = drain(key);
+                // wait for the burst to end
+                for (WatchKey more = poll(); more != null; more = poll()) {
+                    relevant |= drain(more);
+                }
+                if (relevant) {
+                    reload(firstChange);
+                }
+                if (!key.isValid()) {
+                    // the directory was deleted or unmounted, no more events will come
+                    fail(new IOException("Directory is no longer watched: " + directory));
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    private WatchKey poll() throws InterruptedException {
+        return watcher.poll(debounce.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Consumes the events of a key and returns whether any of them concerns the watched files.
+     */
+    private boolean drain(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+            } else {
+                Path changed = (Path) event.context();
+                relevant |= file != null ? file.getFileName().equals(changed) : isHuml(changed);
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private boolean reload(long since) {
+        lock.lock();
+        try {
+            T loaded;
+            try {
+                loaded = loader.load(parserOptions);
+            } catch (Throwable e) {
+                fail(e);
+                return false;
+            }
+            T previous = current.getAndSet(loaded);
+            lastReloadNanos = System.nanoTime() - since;
+            reloadCount++;
+            for (Listener<T> listener : listeners) {
+                try {
+                    listener.onReload(previous, loaded);
+                } catch (Throwable ignored) {
+                    // a failing listener must not stop the others or the watch
+                }
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fail(Throwable cause) {
+        Exception e = cause instanceof Exception ex ? ex
+                : new ExecutionException("Reloading " + (file != null ? file : directory) + " failed", cause);
+        lock.lock();
+        try {
+            failureCount++;
+            lastError = e;
+            for (Listener<T> listener : listeners) {
+                try {
+                    listener.onError(e);
+                } catch (Throwable ignored) {
+                    // a failing listener must not stop the others or the watch
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static HumlDocument readDocument(Path path, ParserOptions options) throws IOException {
+        return Parser.parse(Files.readString(path, StandardCharsets.UTF_8), options);
+    }
+
+    private static <V> Map<String, V> readDirectory(Path directory, FileReader<V> reader) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path path : entries) {
+                if (Files.isRegularFile(path)) {
+                    paths.add(path);
+                }
+            }
+        }
+        Collections.sort(paths);
+        Map<String, V> values = new LinkedHashMap<>();
+        for (Path path : paths) {
+            values.put(path.getFileName().toString(), reader.read(path));
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private static boolean isHuml(Path name) {
+        return name.toString().endsWith(EXTENSION);
+    }
+}
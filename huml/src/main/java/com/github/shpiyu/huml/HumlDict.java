@@ -0,0 +1,54 @@
+package com.github.shpiyu.huml;
+
+import java.util.Map;
+
+/**
+ * A dict of values by key. The structural hash of the dict is computed once and cached, so the
+ * entries are not expected to change after the dict is created.
+ */
+public final class HumlDict implements HumlValue {
+    private final Map<String, HumlValue> entries;
+
+    // 64-bit hash of the whole subtree, 0 until computed
+    volatile long hash;
+
+    HumlDict(Map<String, HumlValue> entries) {
+        this.entries = entries;
+    }
+
+    @Override
+    public HumlType getType() {
+        return HumlType.DICT;
+    }
+
+    @Override
+    public Map<String, HumlValue> asDict() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the value of a key, or null if the dict has no such key.
+     */
+    public HumlValue get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof HumlDict other && HumlValues.equal(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return HumlValues.hashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return entries.toString();
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.shpiyu.huml;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The paths that differ between two documents.
+ *
+ * <p>Paths join dict keys with dots and list indexes in brackets, for example
+ * {@code server.ports[1]}. A value is reported as changed when its type or scalar differs; for
+ * dicts and lists on both sides the differences inside them are reported instead. Lists are
+ * compared by index, so an item inserted in the middle reports every following item as changed.
+ *
+ * <p>Subtrees whose cached 64-bit hashes match are treated as identical without being walked, so
+ * diffing large documents that differ in a few places only visits the paths to the changes once
+ * the hashes are computed. Two different subtrees with equal hashes would go unreported; with 64
+ * bits the chance of that is negligible.
+ */
+public final class HumlDiff {
+    private final List<String> added;
+    private final List<String> removed;
+    private final List<String> changed;
+
+    private HumlDiff(List<String> added, List<String> removed, List<String> changed) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * Compares two documents.
+     *
+     * @param before The old document.
+     * @param after The new document.
+     * @return The differences from {@code before} to {@code after}.
+     */
+    public static HumlDiff between(HumlDocument before, HumlDocument after) {
+        return between(before.getRoot(), after.getRoot());
+    }
+
+    /**
+     * Compares two values. Differences of the values themselves are reported at the empty path.
+     *
+     * @param before The old value.
+     * @param after The new value.
+     * @return The differences from {@code before} to {@code after}.
+     */
+    public static HumlDiff between(HumlValue before, HumlValue after) {
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+
+        // breadth first, so that paths are reported level by level
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.add("");
+        pending.add(before);
+        pending.add(after);
+        while (!pending.isEmpty()) {
+            String path = (String) pending.poll();
+            HumlValue a = (HumlValue) pending.poll();
+            HumlValue b = (HumlValue) pending.poll();
+            if (a == b || (a.getType() == b.getType() && HumlValues.hash(a) == HumlValues.hash(b))) {
+                continue;
+            }
+
+            if (a.getType() == HumlType.DICT && b.getType() == HumlType.DICT) {
+                Map<String, HumlValue> dictB = b.asDict();
+                for (Map.Entry<String, HumlValue> entry : a.asDict().entrySet()) {
+                    String childPath = keyPath(path, entry.getKey());
+                    HumlValue other = dictB.get(entry.getKey());
+                    if (other == null) {
+                        removed.add(childPath);
+                    } else {
+                        pending.add(childPath);
+                        pending.add(entry.getValue());
+                        pending.add(other);
+                    }
+                }
+                Map<String, HumlValue> dictA = a.asDict();
+                for (String key : dictB.keySet()) {
+                    if (!dictA.containsKey(key)) {
+                        added.add(keyPath(path, key));
+                    }
+                }
+            } else if (a.getType() == HumlType.LIST && b.getType() == HumlType.LIST) {
+                List<HumlValue> listA = a.asList();
+                List<HumlValue> listB = b.asList();
+                int common = Math.min(listA.size(), listB.size());
+                for (int i = 0; i < common; i++) {
+                    pending.add(path + "[" + i + "]");
+                    pending.add(listA.get(i));
+                    pending.add(listB.get(i));
+                }
+                for (int i = common; i < listA.size(); i++) {
+                    removed.add(path + "[" + i + "]");
+                }
+                for (int i = common; i < listB.size(); i++) {
+                    added.add(path + "[" + i + "]");
+                }
+            } else {
+                changed.add(path);
+            }
+        }
+        return new HumlDiff(added, removed, changed);
+    }
+
+    public List<String> getAdded() {
+        return added;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    public List<String> getChanged() {
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "HumlDiff[added=" + added + ", removed=" + removed + ", changed=" + changed + "]";
+    }
+
+    private static String keyPath(String parent, String key) {
+        return parent.isEmpty() ? key : parent + "." + key;
+    }
+}
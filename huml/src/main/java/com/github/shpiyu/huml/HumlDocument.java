@@ -18,6 +18,23 @@ public class HumlDocument {
         return root.asDict().getOrDefault(key, HumlValue.nullValue());
     }
 
+    /**
+     * Returns a document with the given overlays deep merged over this one, later overlays taking
+     * precedence. Dicts are merged key by key, other values are replaced. The result shares every
+     * subtree the overlays do not touch with this document instead of copying it, and its dicts
+     * resolve lookups through the layers, so merging costs memory in proportion to the overlays.
+     *
+     * @param overlays The documents to apply, in order.
+     * @return The merged document.
+     */
+    public HumlDocument merge(HumlDocument... overlays) {
+        HumlValue merged = root;
+        for (HumlDocument overlay : overlays) {
+            merged = LayeredDict.merge(merged, overlay.getRoot());
+        }
+        return new HumlDocument(merged);
+    }
+
     public boolean isEmpty() {
         return root.isNull() || 
                (root.getType() == HumlType.DICT && root.asDict().isEmpty()) ||
@@ -0,0 +1,51 @@
+package com.github.shpiyu.huml;
+
+/**
+ * A floating point number. Reading it as an integral type fails, even for whole numbers.
+ */
+public record HumlDouble(double value) implements HumlValue {
+
+    @Override
+    public HumlType getType() {
+        return HumlType.NUMBER;
+    }
+
+    @Override
+    public Integer asInteger() {
+        throw notIntegral();
+    }
+
+    @Override
+    public Long asLong() {
+        throw notIntegral();
+    }
+
+    @Override
+    public Float asFloat() {
+        return (float) value;
+    }
+
+    @Override
+    public Double asDouble() {
+        return value;
+    }
+
+    @Override
+    public Short asShort() {
+        throw notIntegral();
+    }
+
+    @Override
+    public Byte asByte() {
+        throw notIntegral();
+    }
+
+    private NumberFormatException notIntegral() {
+        return new NumberFormatException("For input string: \"" + value + "\"");
+    }
+
+    @Override
+    public String toString() {
+        return Double.toString(value);
+    }
+}
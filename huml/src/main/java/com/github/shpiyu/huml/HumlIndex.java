@@ -0,0 +1,399 @@
+package com.github.shpiyu.huml;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * A sidecar index of the dict entries of a large HUML file, for reading single entries without
+ * scanning the file.
+ *
+ * <p>{@link #build(Path, Path)} scans the file once and writes, for every dict entry outside of
+ * lists, the byte offset and length of its block under its path: keys joined with dots, as in
+ * {@code catalog.items.sku42}. The index file is a hash table that {@link #open(Path, Path)}
+ * memory-maps as is, so opening it costs nothing per entry, and a lookup reads and parses only
+ * the block of the requested entry.
+ *
+ * <p>The index records a fingerprint of the file: its size, modification time and a checksum of
+ * its first and last {@value #SAMPLE_SIZE} bytes. An index whose fingerprint no longer matches
+ * is stale and refused. Edits that keep the size, the modification time and both ends of the
+ * file are not detected.
+ *
+ * <p>Instances are thread-safe.
+ */
+public final class HumlIndex implements Closeable {
+    private static final long MAGIC = 0x48554d4c49445831L; // "HUMLIDX1"
+    private static final int SAMPLE_SIZE = 64 * 1024;
+    private static final int HEADER_SIZE = 40;
+    // hash, path position, block offset, block length
+    private static final int SLOT_SIZE = 24;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel file;
+    private final MappedByteBuffer index;
+    private final int slotMask;
+
+    private HumlIndex(FileChannel file, MappedByteBuffer index) {
+        this.file = file;
+        this.index = index;
+        this.slotMask = index.getInt(36) - 1;
+    }
+
+    /**
+     * Scans a HUML file and writes the index of its dict entries. The file is read as a stream,
+     * so its size is not limited by memory; only the index is built in memory.
+     *
+     * @param huml The HUML file.
+     * @param index The index file to write, replaced if it exists.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static void build(Path huml, Path index) throws IOException {
+        Entries entries = scan(huml);
+
+        int slots = Integer.highestOneBit(Math.max(entries.size, 1) * 2 - 1) << 1;
+        byte[][] paths = new byte[entries.size][];
+        int poolSize = 0;
+        for (int i = 0; i < entries.size; i++) {
+            paths[i] = entries.paths[i].getBytes(StandardCharsets.UTF_8);
+            poolSize += 4 + paths[i].length;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + slots * SLOT_SIZE + poolSize);
+        out.putLong(MAGIC);
+        writeFingerprint(huml, out);
+        out.putInt(entries.size);
+        out.putInt(slots);
+        for (int i = 0; i < slots; i++) {
+            out.putInt(HEADER_SIZE + i * SLOT_SIZE + 4, -1);
+        }
+        int poolPosition = HEADER_SIZE + slots * SLOT_SIZE;
+        for (int i = 0; i < entries.size; i++) {
+            int hash = entries.paths[i].hashCode();
+            int slot = hash & (slots - 1);
+            while (out.getInt(HEADER_SIZE + slot * SLOT_SIZE + 4) != -1) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            int at = HEADER_SIZE + slot * SLOT_SIZE;
+            out.putInt(at, hash);
+            out.putInt(at + 4, poolPosition);
+            out.putLong(at + 8, entries.offsets[i]);
+            out.putLong(at + 16, entries.lengths[i]);
+            out.putInt(poolPosition, paths[i].length);
+            out.put(poolPosition + 4, paths[i]);
+            poolPosition += 4 + paths[i].length;
+        }
+
+        try (OutputStream stream = Files.newOutputStream(index)) {
+            stream.write(out.array());
+        }
+    }
+
+    /**
+     * Opens the index of a HUML file.
+     *
+     * @param huml The HUML file.
+     * @param index The index file written by {@link #build(Path, Path)}.
+     * @return The index, to be closed when no longer used.
+     * @throws IOException If a file cannot be read, or the index is not current.
+     */
+    public static HumlIndex open(Path huml, Path index) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapped.capacity() < HEADER_SIZE || mapped.getLong(0) != MAGIC) {
+            throw new IOException("Not a HUML index: " + index);
+        }
+        ByteBuffer fingerprint = ByteBuffer.allocate(24);
+        writeFingerprint(huml, fingerprint);
+        if (!fingerprint.flip().equals(mapped.slice(8, 24))) {
+            throw new IOException("Index " + index + " is stale for " + huml);
+        }
+        return new HumlIndex(FileChannel.open(huml, StandardOpenOption.READ), mapped);
+    }
+
+    /**
+     * Opens the index of a HUML file, building it first if it is missing or stale.
+     *
+     * @param huml The HUML file.
+     * @param index The index file.
+     * @return The index, to be closed when no longer used.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static HumlIndex openOrBuild(Path huml, Path index) throws IOException {
+        if (!isCurrent(huml, index)) {
+            build(huml, index);
+        }
+        return open(huml, index);
+    }
+
+    /**
+     * Returns whether an index exists and matches the fingerprint of its HUML file.
+     */
+    public static boolean isCurrent(Path huml, Path index) throws IOException {
+        if (!Files.exists(index)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(32);
+            channel.read(header, 0);
+            ByteBuffer fingerprint = ByteBuffer.allocate(24);
+            writeFingerprint(huml, fingerprint);
+            return header.getLong(0) == MAGIC && fingerprint.flip().equals(header.slice(8, 24));
+        }
+    }
+
+    /**
+     * Returns the number of indexed entries.
+     */
+    public int size() {
+        return index.getInt(32);
+    }
+
+    /**
+     * Returns whether an entry is indexed under the given path.
+     */
+    public boolean contains(String path) {
+        return slot(path) >= 0;
+    }
+
+    /**
+     * Reads the value of an entry, parsing only its block.
+     *
+     * @param path The path of the entry.
+     * @return The value, or null if no entry is indexed under the path.
+     * @throws IOException If the file cannot be read.
+     */
+    public HumlValue get(String path) throws IOException {
+        HumlReader reader = reader(path);
+        return reader == null ? null : reader.readValue();
+    }
+
+    /**
+     * Returns a reader over the block of an entry, positioned on its value: the next value read
+     * is the value of the entry.
+     *
+     * @param path The path of the entry.
+     * @return The reader, or null if no entry is indexed under the path.
+     * @throws IOException If the file cannot be read.
+     */
+    public HumlReader reader(String path) throws IOException {
+        int slot = slot(path);
+        if (slot < 0) {
+            return null;
+        }
+        long offset = index.getLong(slot + 8);
+        long length = index.getLong(slot + 16);
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Block of " + path + " is too large to read: " + length + " bytes");
+        }
+        ByteBuffer block = ByteBuffer.allocate((int) length);
+        while (block.hasRemaining()) {
+            if (file.read(block, offset + block.position()) < 0) {
+                throw new IOException("Unexpected end of file in the block of " + path);
+            }
+        }
+        HumlReader reader = new HumlReader(dedent(new String(block.array(), StandardCharsets.UTF_8)));
+        reader.beginDict();
+        reader.nextKey();
+        return reader;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Returns the position of the slot holding the path, or -1.
+     */
+    private int slot(String path) {
+        byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+        int hash = path.hashCode();
+        for (int slot = hash & slotMask;; slot = (slot + 1) & slotMask) {
+            int at = HEADER_SIZE + slot * SLOT_SIZE;
+            int pathPosition = index.getInt(at + 4);
+            if (pathPosition == -1) {
+                return -1;
+            }
+            if (index.getInt(at) == hash && index.getInt(pathPosition) == bytes.length
+                    && index.slice(pathPosition + 4, bytes.length).equals(ByteBuffer.wrap(bytes))) {
+                return at;
+            }
+        }
+    }
+
+    /**
+     * Removes the indentation of the first line of a block from all of its lines, so that the
+     * entry reads as the only entry of a document.
+     */
+    private static String dedent(String block) {
+        int indent = 0;
+        while (indent < block.length() && block.charAt(indent) == ' ') {
+            indent++;
+        }
+        if (indent == 0) {
+            return block;
+        }
+        StringBuilder sb = new StringBuilder(block.length());
+        int start = 0;
+        while (start < block.length()) {
+            int end = block.indexOf('\n', start);
+            end = end < 0 ? block.length() : end + 1;
+            int from = start;
+            while (from < end && from - start < indent && block.charAt(from) == ' ') {
+                from++;
+            }
+            sb.append(block, from, end);
+            start = end;
+        }
+        return sb.toString();
+    }
+
+    private static void writeFingerprint(Path huml, ByteBuffer out) throws IOException {
+        try (FileChannel channel = FileChannel.open(huml, StandardOpenOption.READ)) {
+            long size = channel.size();
+            CRC32C crc = new CRC32C();
+            ByteBuffer sample = ByteBuffer.allocate((int) Math.min(size, SAMPLE_SIZE));
+            channel.read(sample, 0);
+            crc.update(sample.flip());
+            if (size > SAMPLE_SIZE) {
+                sample.clear();
+                channel.read(sample, Math.max(SAMPLE_SIZE, size - SAMPLE_SIZE));
+                crc.update(sample.flip());
+            }
+            out.putLong(size);
+            out.putLong(Files.getLastModifiedTime(huml).toMillis());
+            out.putLong(crc.getValue());
+        }
+    }
+
+    /**
+     * Finds the dict entries of a file by their indentation, line by line. Lines are only split
+     * at the first colon, which is as much of an entry as the index needs, so the values are not
+     * validated.
+     */
+    private static Entries scan(Path huml) throws IOException {
+        Entries entries = new Entries();
+        // open blocks: indentation and entry index, -1 for list items and entries inside them
+        int[] indents = new int[16];
+        int[] open = new int[16];
+        String[] paths = new String[16];
+        int depth = 0;
+        int listDepth = 0;
+
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        long lineStart = 0;
+        long position = 0;
+        byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(huml)) {
+            int read;
+            boolean end = false;
+            while (!end) {
+                read = in.read(buffer);
+                end = read < 0;
+                int count = end ? 0 : read;
+                for (int i = 0; i <= count; i++) {
+                    boolean lineEnd = i < count ? buffer[i] == '\n' : end && lineLength > 0;
+                    if (!lineEnd) {
+                        if (i < count) {
+                            if (lineLength == line.length) {
+                                line = Arrays.copyOf(line, lineLength * 2);
+                            }
+                            line[lineLength++] = buffer[i];
+                        }
+                        continue;
+                    }
+
+                    int indent = 0;
+                    while (indent < lineLength && line[indent] == ' ') {
+                        indent++;
+                    }
+                    boolean content = indent < lineLength && line[indent] != '#' && line[indent] != '\r';
+                    if (content) {
+                        while (depth > 0 && indents[depth - 1] >= indent) {
+                            depth--;
+                            if (open[depth] >= 0) {
+                                entries.lengths[open[depth]] = lineStart - entries.offsets[open[depth]];
+                            } else if (paths[depth] == null) {
+                                listDepth--;
+                            }
+                        }
+                        if (depth == indents.length) {
+                            indents = Arrays.copyOf(indents, depth * 2);
+                            open = Arrays.copyOf(open, depth * 2);
+                            paths = Arrays.copyOf(paths, depth * 2);
+                        }
+                        int colon = indexOf(line, (byte) ':', indent, lineLength);
+                        indents[depth] = indent;
+                        if (line[indent] == '-') {
+                            open[depth] = -1;
+                            paths[depth++] = null;
+                            listDepth++;
+                        } else if (colon > indent && listDepth == 0) {
+                            int keyEnd = colon;
+                            while (keyEnd > indent && line[keyEnd - 1] == ' ') {
+                                keyEnd--;
+                            }
+                            String key = new String(line, indent, keyEnd - indent, StandardCharsets.UTF_8);
+                            String path = depth == 0 ? key : paths[depth - 1] + "." + key;
+                            open[depth] = entries.add(path, lineStart);
+                            paths[depth++] = path;
+                        } else if (colon > indent) {
+                            open[depth] = -1;
+                            paths[depth++] = "";
+                        }
+                    }
+                    position = lineStart + lineLength + (i < count ? 1 : 0);
+                    lineStart = position;
+                    lineLength = 0;
+                }
+            }
+        }
+        while (depth > 0) {
+            depth--;
+            if (open[depth] >= 0) {
+                entries.lengths[open[depth]] = position - entries.offsets[open[depth]];
+            }
+        }
+        return entries;
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Entries {
+        String[] paths = new String[64];
+        long[] offsets = new long[64];
+        long[] lengths = new long[64];
+        int size;
+
+        int add(String path, long offset) {
+            if (size == paths.length) {
+                paths = Arrays.copyOf(paths, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            paths[size] = path;
+            offsets[size] = offset;
+            return size++;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.github.shpiyu.huml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.shpiyu.huml.parser.HumlStrings;
+import com.github.shpiyu.huml.parser.HumlToken;
+import com.github.shpiyu.huml.parser.HumlTokenizer;
+import com.github.shpiyu.huml.parser.ParserException;
+import com.github.shpiyu.huml.parser.ParserOptions;
+
+/**
+ * Converts between HUML and JSON token by token, without building a {@link HumlValue} tree.
+ *
+ * <p>HUML is tokenized with {@link HumlTokenizer} and written as compact JSON straight from the
+ * source. JSON is read through a fixed buffer and written with a {@link HumlWriter}, so it may be
+ * any size; only short lists of scalars are held back to be written as inline vectors. Dicts map
+ * to objects, lists to arrays and scalars to their JSON counterparts; the root of a document is
+ * always an object.
+ */
+public final class HumlJson {
+    // lists of scalars up to this many items and characters are written as inline vectors
+    private static final int MAX_VECTOR_ITEMS = 16;
+    private static final int MAX_VECTOR_LENGTH = 100;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    // the HUML written for an empty root object
+    private static final String EMPTY_DOCUMENT = "# empty\n";
+
+    private HumlJson() {
+    }
+
+    public static String humlToJson(String huml) throws IOException {
+        StringBuilder out = new StringBuilder(huml.length() + 16);
+        humlToJson(huml, ParserOptions.defaults(), out);
+        return out.toString();
+    }
+
+    /**
+     * Writes a HUML document as compact JSON.
+     *
+     * @param huml The document to convert.
+     * @param options The options to parse the document with.
+     * @param out The sink to write the JSON to.
+     * @throws ParserException If the document is malformed.
+     * @throws IllegalArgumentException If the document holds a number JSON cannot represent.
+     */
+    public static void humlToJson(String huml, ParserOptions options, Appendable out) throws IOException {
+        if (huml == null || huml.isBlank()) {
+            throw new ParserException("Empty document is undefined");
+        }
+        HumlTokenizer tokens = new HumlTokenizer(huml, options);
+        String src = tokens.source();
+        // whether the next element of the innermost container follows another one
+        boolean comma = false;
+        for (HumlToken token = tokens.next(); token != HumlToken.END_DOCUMENT; token = tokens.next()) {
+            if (token == HumlToken.END_DICT || token == HumlToken.END_LIST) {
+                out.append(token == HumlToken.END_DICT ? '}' : ']');
+                comma = true;
+                continue;
+            }
+            if (comma) {
+                out.append(',');
+            }
+            comma = true;
+            switch (token) {
+                case START_DICT:
+                    out.append('{');
+                    comma = false;
+                    break;
+                case START_LIST:
+                    out.append('[');
+                    comma = false;
+                    break;
+                case KEY:
+                    appendJsonString(src, tokens.keyStart(), tokens.keyEnd(), out);
+                    out.append(':');
+                    comma = false;
+                    break;
+                case STRING:
+                    if (tokens.stringHasEscapes()) {
+                        String decoded = tokens.stringValue().toString();
+                        appendJsonString(decoded, 0, decoded.length(), out);
+                    } else {
+                        appendJsonString(src, tokens.stringStart(), tokens.stringEnd(), out);
+                    }
+                    break;
+                case LONG:
+                    out.append(Long.toString(tokens.longValue()));
+                    break;
+                case DOUBLE:
+                    double d = tokens.doubleValue();
+                    if (Double.isNaN(d) || Double.isInfinite(d)) {
+                        throw new IllegalArgumentException("Number at line " + tokens.line() + " cannot be written as JSON: " + d);
+                    }
+                    out.append(Double.toString(d));
+                    break;
+                case BOOLEAN:
+                    out.append(tokens.booleanValue() ? "true" : "false");
+                    break;
+                default:
+                    out.append("null");
+            }
+        }
+    }
+
+    public static String jsonToHuml(String json) throws IOException {
+        StringBuilder out = new StringBuilder(json.length() + 16);
+        jsonToHuml(new StringReader(json), out);
+        return out.toString();
+    }
+
+    /**
+     * Writes a JSON object as a HUML document. Lists of a few short scalars are written as
+     * inline vectors, everything else as indented blocks. An empty object is written as a
+     * comment line, since a blank HUML document is undefined while one holding only comments is
+     * an empty dict.
+     *
+     * @param json The JSON to convert, read until its end.
+     * @param out The sink to write the HUML to.
+     * @throws ParserException If the JSON is malformed or its root is not an object.
+     * @throws IllegalArgumentException If a key cannot be written in HUML.
+     */
+    public static void jsonToHuml(Reader json, Appendable out) throws IOException {
+        JsonTokenizer tokens = new JsonTokenizer(json);
+        if (tokens.next() != HumlToken.START_DICT) {
+            throw new ParserException("The root of a HUML document must be an object, at line " + tokens.line());
+        }
+        HumlWriter writer = new HumlWriter(out);
+        List<String> vector = new ArrayList<>();
+        // key of the next value, null inside lists
+        String key = null;
+        boolean empty = true;
+        try {
+            HumlToken token = tokens.next();
+            while (token != HumlToken.END_DOCUMENT) {
+                switch (token) {
+                    case KEY:
+                        key = humlKey(tokens);
+                        empty = false;
+                        break;
+                    case START_DICT:
+                        writer.startDict(key);
+                        key = null;
+                        break;
+                    case START_LIST:
+                        if (key != null) {
+                            token = writeList(tokens, writer, key, vector);
+                            key = null;
+                            continue;
+                        }
+                        writer.startList(null);
+                        break;
+                    case END_DICT:
+                    case END_LIST:
+                        // the root object has no block of its own
+                        if (tokens.depth() > 0) {
+                            writer.end();
+                        }
+                        break;
+                    default:
+                        String text = humlScalar(tokens, token);
+                        if (key == null) {
+                            writer.writeItem(text);
+                        } else {
+                            writer.writeField(key, text);
+                        }
+                        key = null;
+                }
+                token = tokens.next();
+            }
+            if (empty) {
+                out.append(EMPTY_DOCUMENT);
+            }
+        } catch (UncheckedIOException e) {
+            // errors of the sink
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes a keyed list, as an inline vector if it turns out to hold only a few short scalars.
+     * Otherwise the items read ahead are written as a block and the token that ended the look
+     * ahead is returned to be handled inside the list.
+     */
+    private static HumlToken writeList(JsonTokenizer tokens, HumlWriter writer, String key, List<String> vector)
+            throws IOException {
+        vector.clear();
+        int length = 0;
+        HumlToken token = tokens.next();
+        while (isScalar(token) && vector.size() < MAX_VECTOR_ITEMS && length <= MAX_VECTOR_LENGTH) {
+            String text = humlScalar(tokens, token);
+            vector.add(text);
+            length += text.length() + 2;
+            token = tokens.next();
+        }
+        if (token == HumlToken.END_LIST) {
+            writer.writeVector(key, vector);
+            return tokens.next();
+        }
+        writer.startList(key);
+        for (String item : vector) {
+            writer.writeItem(item);
+        }
+        return token;
+    }
+
+    private static boolean isScalar(HumlToken token) {
+        return token == HumlToken.STRING || token == HumlToken.LONG || token == HumlToken.DOUBLE
+                || token == HumlToken.BOOLEAN || token == HumlToken.NULL;
+    }
+
+    private static String humlScalar(JsonTokenizer tokens, HumlToken token) {
+        switch (token) {
+            case STRING:
+                return HumlStrings.quote(tokens.text());
+            case LONG:
+            case DOUBLE:
+                // the tokenizer only accepts the JSON number grammar, a subset of the HUML one
+                return tokens.text().toString();
+            case BOOLEAN:
+                return tokens.booleanValue() ? "true" : "false";
+            default:
+                return "null";
+        }
+    }
+
+    private static String humlKey(JsonTokenizer tokens) {
+        String key = tokens.text().toString();
+        // checked here as well as by the writer, to report the line
+        if (!HumlWriter.isValidKey(key)) {
+            throw new IllegalArgumentException("Key at line " + tokens.line() + " cannot be written in HUML: " + key);
+        }
+        return key;
+    }
+
+    private static void appendJsonString(String src, int from, int to, Appendable out) throws IOException {
+        out.append('"');
+        int run = from;
+        for (int i = from; i < to; i++) {
+            char c = src.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) {
+                continue;
+            }
+            out.append(src, run, i);
+            run = i + 1;
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                default:
+                    out.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            }
+        }
+        out.append(src, run, to).append('"');
+    }
+}
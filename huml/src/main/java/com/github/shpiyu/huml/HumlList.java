@@ -0,0 +1,51 @@
+package com.github.shpiyu.huml;
+
+import java.util.List;
+
+/**
+ * A list of values. The structural hash of the list is computed once and cached, so the items
+ * are not expected to change after the list is created.
+ */
+public final class HumlList implements HumlValue {
+    private final List<HumlValue> items;
+
+    // 64-bit hash of the whole subtree, 0 until computed
+    volatile long hash;
+
+    HumlList(List<HumlValue> items) {
+        this.items = items;
+    }
+
+    @Override
+    public HumlType getType() {
+        return HumlType.LIST;
+    }
+
+    @Override
+    public List<HumlValue> asList() {
+        return items;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public HumlValue get(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof HumlList other && HumlValues.equal(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return HumlValues.hashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return items.toString();
+    }
+}
@@ -0,0 +1,200 @@
+package com.github.shpiyu.huml;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import com.github.shpiyu.huml.parser.HumlToken;
+import com.github.shpiyu.huml.parser.HumlTokenizer;
+import com.github.shpiyu.huml.parser.Parser;
+import com.github.shpiyu.huml.parser.ParserException;
+import com.github.shpiyu.huml.parser.ParserOptions;
+
+/**
+ * Splits the source range of a multi-line list at item boundaries and decodes the items of each
+ * part one at a time, so that a parallel stream parses and processes a large list on every core.
+ *
+ * <p>An item boundary is a line indented like the items that starts with {@code -}. A part is
+ * only tokenized when its first item is requested; from then on it no longer splits.
+ */
+final class HumlListSpliterator implements Spliterator<HumlValue> {
+    // parts smaller than this are not worth splitting further
+    private static final int MIN_SPLIT_CHARS = 4096;
+
+    private final String src;
+    private final int indent;
+    private final ParserOptions options;
+    private int from;
+    private final int to;
+    private HumlTokenizer tokens;
+
+    HumlListSpliterator(String src, int from, int to, int indent, ParserOptions options) {
+        this.src = src;
+        this.from = from;
+        this.to = to;
+        this.indent = indent;
+        this.options = options;
+    }
+
+    /**
+     * Finds the multi-line list at the given path of dict keys.
+     *
+     * @return A spliterator over the items, or null if the list is an inline vector, which is too
+     *         short to be worth splitting.
+     * @throws ParserException If there is no list at the path.
+     */
+    static HumlListSpliterator find(String src, String[] path, ParserOptions options) {
+        int from = 0;
+        int to = src.length();
+        int indent = 0;
+        for (int i = 0; i < path.length; i++) {
+            int header = findKeyLine(src, from, to, indent, path[i]);
+            if (header < 0) {
+                throw new ParserException("No key '" + path[i] + "' on the path to the list");
+            }
+            int lineEnd = lineEnd(src, header);
+            int valueFrom = header + indent + path[i].length();
+            while (valueFrom < lineEnd && src.charAt(valueFrom) == ' ') {
+                valueFrom++;
+            }
+            boolean vector = src.startsWith("::", valueFrom);
+            valueFrom += vector ? 2 : 1;
+            boolean block = isBlank(src, valueFrom, lineEnd);
+            boolean last = i == path.length - 1;
+            if (!block && last && vector) {
+                return null;
+            }
+            if (!block || (last && !vector)) {
+                throw new ParserException("Expected " + (last ? "a list" : "a dict") + " at key '" + path[i] + "'");
+            }
+
+            from = Math.min(lineEnd + 1, src.length());
+            to = blockEnd(src, from, to, indent + 2);
+            indent += 2;
+            int first = firstContent(src, from, to);
+            boolean list = first < to && src.charAt(first) == '-';
+            if (list != last) {
+                throw new ParserException("Expected " + (last ? "a list" : "a dict") + " at key '" + path[i] + "'");
+            }
+        }
+        return new HumlListSpliterator(src, from, to, indent, options);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super HumlValue> action) {
+        if (tokens == null) {
+            tokens = HumlTokenizer.forListItems(src, from, to, indent, options);
+            tokens.next();
+        }
+        if (tokens.token() == HumlToken.END_DOCUMENT || tokens.next() == HumlToken.END_LIST) {
+            return false;
+        }
+        action.accept(Parser.readValue(tokens));
+        return true;
+    }
+
+    @Override
+    public Spliterator<HumlValue> trySplit() {
+        if (tokens != null || to - from < MIN_SPLIT_CHARS) {
+            return null;
+        }
+        int middle = from + (to - from) / 2;
+        for (int line = lineEnd(src, middle) + 1; line < to; line = lineEnd(src, line) + 1) {
+            if (isItemStart(line)) {
+                HumlListSpliterator prefix = new HumlListSpliterator(src, from, line, indent, options);
+                from = line;
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        // the number of items is unknown, the size of the range keeps the parts balanced
+        return to - from;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    private boolean isItemStart(int line) {
+        int dash = line + indent;
+        if (dash >= to || src.charAt(dash) != '-') {
+            return false;
+        }
+        for (int i = line; i < dash; i++) {
+            if (src.charAt(i) != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the start of the line in [from, to) holding the key at the given indentation
+    private static int findKeyLine(String src, int from, int to, int indent, String key) {
+        for (int line = from; line < to; line = lineEnd(src, line) + 1) {
+            int content = indentation(src, line, to);
+            if (content == to || content - line != indent || src.charAt(content) == '#') {
+                continue;
+            }
+            if (src.startsWith(key, content)) {
+                int after = content + key.length();
+                while (after < to && src.charAt(after) == ' ') {
+                    after++;
+                }
+                if (after < to && src.charAt(after) == ':') {
+                    return line;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Returns the start of the first line from which on content is indented less than indent
+    private static int blockEnd(String src, int from, int to, int indent) {
+        for (int line = from; line < to; line = lineEnd(src, line) + 1) {
+            int content = indentation(src, line, to);
+            int end = lineEnd(src, line);
+            if (content < end && src.charAt(content) != '#' && src.charAt(content) != '\r' && content - line < indent) {
+                return line;
+            }
+        }
+        return to;
+    }
+
+    // Returns the first non-space of the first content line in [from, to), or to
+    private static int firstContent(String src, int from, int to) {
+        for (int line = from; line < to; line = lineEnd(src, line) + 1) {
+            int content = indentation(src, line, to);
+            int end = lineEnd(src, line);
+            if (!isBlank(src, content, end) && src.charAt(content) != '#') {
+                return content;
+            }
+        }
+        return to;
+    }
+
+    private static int indentation(String src, int line, int to) {
+        int i = line;
+        while (i < to && src.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int lineEnd(String src, int from) {
+        int end = src.indexOf('\n', from);
+        return end < 0 ? src.length() : end;
+    }
+
+    private static boolean isBlank(String src, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (src.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.shpiyu.huml;
+
+/**
+ * An integral number.
+ */
+public record HumlLong(long value) implements HumlValue {
+
+    @Override
+    public HumlType getType() {
+        return HumlType.NUMBER;
+    }
+
+    @Override
+    public Integer asInteger() {
+        return (int) checkRange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Long asLong() {
+        return value;
+    }
+
+    @Override
+    public Float asFloat() {
+        return (float) value;
+    }
+
+    @Override
+    public Double asDouble() {
+        return (double) value;
+    }
+
+    @Override
+    public Short asShort() {
+        return (short) checkRange(Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+
+    @Override
+    public Byte asByte() {
+        return (byte) checkRange(Byte.MIN_VALUE, Byte.MAX_VALUE);
+    }
+
+    private long checkRange(long min, long max) {
+        if (value < min || value > max) {
+            throw new NumberFormatException("Value out of range. Value:\"" + value + "\"");
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(value);
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.shpiyu.huml;
+
+/**
+ * The null value.
+ */
+public record HumlNull() implements HumlValue {
+    static final HumlNull INSTANCE = new HumlNull();
+
+    @Override
+    public HumlType getType() {
+        return HumlType.NULL;
+    }
+
+    @Override
+    public boolean isNull() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "null";
+    }
+}
@@ -0,0 +1,460 @@
+package com.github.shpiyu.huml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.shpiyu.huml.parser.HumlToken;
+import com.github.shpiyu.huml.parser.HumlTokenizer;
+import com.github.shpiyu.huml.parser.Parser;
+import com.github.shpiyu.huml.parser.ParserException;
+import com.github.shpiyu.huml.parser.ParserOptions;
+
+/**
+ * The expected shape of a document: the types of its values, numeric ranges, list lengths and
+ * the keys of its dicts.
+ *
+ * <p>A schema validates a document while it is parsed, so the document is read only once: every
+ * value is checked as soon as its token is read, and parsing stops with a {@link ParserException}
+ * naming the path and line of the first violation. Each schema node holds its checks in a form
+ * ready for the parse loop, with the fields of a dict in a hash table, so validating costs a
+ * lookup and a few comparisons per value.
+ *
+ * <pre>{@code
+ * HumlSchema schema = HumlSchema.dict()
+ *         .required("host", HumlSchema.string())
+ *         .optional("port", HumlSchema.integer().range(1, 65535))
+ *         .required("tags", HumlSchema.list(HumlSchema.string()).size(1, 10))
+ *         .unknownKeys(HumlSchema.UnknownKeys.SKIP);
+ * HumlDocument doc = schema.parse(huml);
+ * }</pre>
+ *
+ * <p>Values matching {@link #any()} are read without checks. Schemas are configured before their
+ * first use and can then be shared between threads.
+ */
+public final class HumlSchema {
+
+    /**
+     * What to do with keys a dict schema does not declare.
+     */
+    public enum UnknownKeys {
+        /** Keep the value, without validating it. */
+        KEEP,
+        /** Drop the value without building it. */
+        SKIP,
+        /** Fail the parse. */
+        REJECT
+    }
+
+    // kinds of schemas
+    private static final int ANY = 0;
+    private static final int STRING = 1;
+    private static final int INTEGER = 2;
+    private static final int NUMBER = 3;
+    private static final int BOOLEAN = 4;
+    private static final int LIST = 5;
+    private static final int DICT = 6;
+
+    private static final String[] KIND_NAMES = { "any value", "a string", "an integer", "a number", "a boolean",
+            "a list", "a dict" };
+
+    private static final HumlSchema ANY_VALUE = new HumlSchema(ANY, null);
+
+    private final int kind;
+    private final HumlSchema items;
+    private boolean nullable;
+    // bounds of floating point values, and exact bounds of integers
+    private double min = Double.NEGATIVE_INFINITY;
+    private double max = Double.POSITIVE_INFINITY;
+    private long minLong = Long.MIN_VALUE;
+    private long maxLong = Long.MAX_VALUE;
+    private String rangeText;
+    private int minSize;
+    private int maxSize = Integer.MAX_VALUE;
+    private final Map<String, HumlSchema> fields;
+    private final List<String> requiredKeys;
+    private UnknownKeys unknownKeys = UnknownKeys.KEEP;
+
+    private HumlSchema(int kind, HumlSchema items) {
+        this.kind = kind;
+        this.items = items;
+        this.fields = kind == DICT ? new HashMap<>() : null;
+        this.requiredKeys = kind == DICT ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Returns a schema matching any value, null included.
+     */
+    public static HumlSchema any() {
+        return ANY_VALUE;
+    }
+
+    public static HumlSchema string() {
+        return new HumlSchema(STRING, null);
+    }
+
+    /**
+     * Returns a schema matching integral numbers only.
+     */
+    public static HumlSchema integer() {
+        return new HumlSchema(INTEGER, null);
+    }
+
+    /**
+     * Returns a schema matching integral and floating point numbers.
+     */
+    public static HumlSchema number() {
+        return new HumlSchema(NUMBER, null);
+    }
+
+    public static HumlSchema bool() {
+        return new HumlSchema(BOOLEAN, null);
+    }
+
+    /**
+     * Returns a schema matching lists of any values.
+     */
+    public static HumlSchema list() {
+        return list(ANY_VALUE);
+    }
+
+    /**
+     * Returns a schema matching lists whose items all match the given schema.
+     */
+    public static HumlSchema list(HumlSchema items) {
+        if (items == null) {
+            throw new IllegalArgumentException("items must not be null");
+        }
+        return new HumlSchema(LIST, items);
+    }
+
+    /**
+     * Returns a schema matching dicts, with no declared keys yet.
+     */
+    public static HumlSchema dict() {
+        return new HumlSchema(DICT, null);
+    }
+
+    /**
+     * Allows null in place of the value.
+     *
+     * @return This schema.
+     */
+    public HumlSchema nullable() {
+        requireConfigurable();
+        this.nullable = true;
+        return this;
+    }
+
+    /**
+     * Restricts a number schema to an inclusive range.
+     *
+     * @param min The smallest valid value.
+     * @param max The largest valid value.
+     * @return This schema.
+     */
+    public HumlSchema range(double min, double max) {
+        requireKind(kind == INTEGER || kind == NUMBER, "range");
+        if (min > max) {
+            throw new IllegalArgumentException("min must not be greater than max");
+        }
+        this.min = min;
+        this.max = max;
+        // casts saturate, so infinite bounds become the extreme longs
+        this.minLong = (long) Math.ceil(min);
+        this.maxLong = (long) Math.floor(max);
+        this.rangeText = format(min) + ".." + format(max);
+        return this;
+    }
+
+    /**
+     * Restricts a number schema to an inclusive range. Integers are compared with the bounds
+     * exactly, beyond the 2^53 up to which doubles hold every integer.
+     *
+     * @param min The smallest valid value.
+     * @param max The largest valid value.
+     * @return This schema.
+     */
+    public HumlSchema range(long min, long max) {
+        requireKind(kind == INTEGER || kind == NUMBER, "range");
+        if (min > max) {
+            throw new IllegalArgumentException("min must not be greater than max");
+        }
+        this.min = min;
+        this.max = max;
+        this.minLong = min;
+        this.maxLong = max;
+        this.rangeText = min + ".." + max;
+        return this;
+    }
+
+    /**
+     * Restricts a list schema to an inclusive range of item counts.
+     *
+     * @param minSize The smallest valid number of items.
+     * @param maxSize The largest valid number of items.
+     * @return This schema.
+     */
+    public HumlSchema size(int minSize, int maxSize) {
+        requireKind(kind == LIST, "size");
+        if (minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid size range " + minSize + ".." + maxSize);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * Declares a key a dict must have.
+     *
+     * @param key The key.
+     * @param schema The schema of its value.
+     * @return This schema.
+     */
+    public HumlSchema required(String key, HumlSchema schema) {
+        field(key, schema);
+        requiredKeys.add(key);
+        return this;
+    }
+
+    /**
+     * Declares a key a dict may have.
+     *
+     * @param key The key.
+     * @param schema The schema of its value.
+     * @return This schema.
+     */
+    public HumlSchema optional(String key, HumlSchema schema) {
+        field(key, schema);
+        return this;
+    }
+
+    /**
+     * Sets what to do with keys of a dict that are not declared, {@link UnknownKeys#KEEP} by
+     * default.
+     *
+     * @param unknownKeys The policy.
+     * @return This schema.
+     */
+    public HumlSchema unknownKeys(UnknownKeys unknownKeys) {
+        requireKind(kind == DICT, "unknownKeys");
+        if (unknownKeys == null) {
+            throw new IllegalArgumentException("unknownKeys must not be null");
+        }
+        this.unknownKeys = unknownKeys;
+        return this;
+    }
+
+    public HumlDocument parse(String huml) {
+        return parse(huml, ParserOptions.defaults());
+    }
+
+    /**
+     * Parses a document and validates it against this schema in the same pass.
+     *
+     * @param huml The document.
+     * @param options The parser options.
+     * @return The document, without the values of skipped keys.
+     * @throws ParserException If the document is malformed or does not match the schema.
+     */
+    public HumlDocument parse(String huml, ParserOptions options) {
+        if (huml == null || huml.isBlank()) {
+            throw new ParserException("Empty document is undefined");
+        }
+        HumlTokenizer tokens = new HumlTokenizer(huml, options);
+        tokens.next();
+        return new HumlDocument(read(tokens));
+    }
+
+    @SuppressWarnings("unchecked")
+    private HumlValue read(HumlTokenizer tokens) {
+        Object[] containers = new Object[16];
+        HumlSchema[] schemas = new HumlSchema[16];
+        String[] keys = new String[16];
+        int depth = 0;
+
+        HumlSchema expected = this;
+        HumlToken token = tokens.token();
+        while (true) {
+            HumlValue value;
+            switch (token) {
+                case START_DICT:
+                case START_LIST:
+                    if (expected.kind == ANY) {
+                        value = Parser.readValue(tokens);
+                        break;
+                    }
+                    boolean dict = token == HumlToken.START_DICT;
+                    if (expected.kind != (dict ? DICT : LIST)) {
+                        throw mismatch(tokens, containers, keys, depth, expected, dict ? "a dict" : "a list");
+                    }
+                    if (depth == containers.length) {
+                        containers = Arrays.copyOf(containers, depth * 2);
+                        schemas = Arrays.copyOf(schemas, depth * 2);
+                        keys = Arrays.copyOf(keys, depth * 2);
+                    }
+                    containers[depth] = dict ? new LinkedHashMap<>() : new ArrayList<>();
+                    schemas[depth++] = expected;
+                    expected = expected.items;
+                    token = tokens.next();
+                    continue;
+                case KEY:
+                    HumlSchema parent = schemas[depth - 1];
+                    String key = tokens.key();
+                    keys[depth - 1] = key;
+                    expected = parent.fields.get(key);
+                    if (expected == null) {
+                        if (parent.unknownKeys == UnknownKeys.SKIP) {
+                            // the value is not built at all
+                            tokens.next();
+                            tokens.skipValue();
+                            token = tokens.next();
+                            continue;
+                        }
+                        if (parent.unknownKeys == UnknownKeys.REJECT) {
+                            throw violation(tokens, containers, keys, depth, "unknown key");
+                        }
+                        expected = ANY_VALUE;
+                    }
+                    token = tokens.next();
+                    continue;
+                case END_DICT:
+                    Map<String, HumlValue> map = (Map<String, HumlValue>) containers[--depth];
+                    for (String required : schemas[depth].requiredKeys) {
+                        if (!map.containsKey(required)) {
+                            throw violation(tokens, containers, keys, depth, "missing required key " + required);
+                        }
+                    }
+                    value = HumlValue.ofDict(map);
+                    break;
+                case END_LIST:
+                    List<HumlValue> list = (List<HumlValue>) containers[--depth];
+                    HumlSchema listSchema = schemas[depth];
+                    if (list.size() < listSchema.minSize || list.size() > listSchema.maxSize) {
+                        throw violation(tokens, containers, keys, depth, list.size() + " items, expected "
+                                + listSchema.minSize + ".." + listSchema.maxSize);
+                    }
+                    value = HumlValue.ofList(list);
+                    break;
+                case END_DOCUMENT:
+                    throw new ParserException("Unexpected end of document");
+                default:
+                    checkScalar(tokens, containers, keys, depth, expected);
+                    value = Parser.scalarValue(tokens);
+            }
+
+            if (depth == 0) {
+                return value;
+            }
+            Object parent = containers[depth - 1];
+            if (parent instanceof Map) {
+                ((Map<String, HumlValue>) parent).put(keys[depth - 1], value);
+            } else {
+                ((List<HumlValue>) parent).add(value);
+                expected = schemas[depth - 1].items;
+            }
+            token = tokens.next();
+        }
+    }
+
+    private static void checkScalar(HumlTokenizer tokens, Object[] containers, String[] keys, int depth,
+            HumlSchema expected) {
+        switch (tokens.token()) {
+            case STRING:
+                if (expected.kind != STRING && expected.kind != ANY) {
+                    throw mismatch(tokens, containers, keys, depth, expected, "a string");
+                }
+                break;
+            case LONG:
+                if (expected.kind != INTEGER && expected.kind != NUMBER && expected.kind != ANY) {
+                    throw mismatch(tokens, containers, keys, depth, expected, "an integer");
+                }
+                long value = tokens.longValue();
+                if (value < expected.minLong || value > expected.maxLong) {
+                    throw outOfRange(tokens, containers, keys, depth, expected, Long.toString(value));
+                }
+                break;
+            case DOUBLE:
+                if (expected.kind != NUMBER && expected.kind != ANY) {
+                    throw mismatch(tokens, containers, keys, depth, expected, "a number");
+                }
+                double number = tokens.doubleValue();
+                if (number < expected.min || number > expected.max) {
+                    throw outOfRange(tokens, containers, keys, depth, expected, format(number));
+                }
+                break;
+            case BOOLEAN:
+                if (expected.kind != BOOLEAN && expected.kind != ANY) {
+                    throw mismatch(tokens, containers, keys, depth, expected, "a boolean");
+                }
+                break;
+            default:
+                if (!expected.nullable && expected.kind != ANY) {
+                    throw mismatch(tokens, containers, keys, depth, expected, "null");
+                }
+        }
+    }
+
+    private static ParserException outOfRange(HumlTokenizer tokens, Object[] containers, String[] keys, int depth,
+            HumlSchema expected, String value) {
+        return violation(tokens, containers, keys, depth, value + " is out of range " + expected.rangeText);
+    }
+
+    private static ParserException mismatch(HumlTokenizer tokens, Object[] containers, String[] keys, int depth,
+            HumlSchema expected, String found) {
+        return violation(tokens, containers, keys, depth, "expected " + KIND_NAMES[expected.kind] + " but found " + found);
+    }
+
+    /**
+     * Reports a violation at the value inside the first {@code depth} open containers.
+     */
+    private static ParserException violation(HumlTokenizer tokens, Object[] containers, String[] keys, int depth,
+            String detail) {
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            if (containers[i] instanceof List) {
+                path.append('[').append(((List<?>) containers[i]).size()).append(']');
+            } else {
+                if (path.length() > 0) {
+                    path.append('.');
+                }
+                path.append(keys[i]);
+            }
+        }
+        return new ParserException("Schema violation at " + (path.length() == 0 ? "the root" : path)
+                + " on line " + tokens.line() + ": " + detail);
+    }
+
+    private static String format(double value) {
+        if (value == (long) value) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private void field(String key, HumlSchema schema) {
+        requireKind(kind == DICT, "required and optional");
+        if (key == null || schema == null) {
+            throw new IllegalArgumentException("key and schema must not be null");
+        }
+        if (fields.putIfAbsent(key, schema) != null) {
+            throw new IllegalArgumentException("Duplicate key " + key);
+        }
+    }
+
+    private void requireKind(boolean valid, String option) {
+        if (!valid) {
+            throw new IllegalStateException(option + " does not apply to " + KIND_NAMES[kind]);
+        }
+    }
+
+    private void requireConfigurable() {
+        if (this == ANY_VALUE) {
+            throw new IllegalStateException("any() is not configurable");
+        }
+    }
+}
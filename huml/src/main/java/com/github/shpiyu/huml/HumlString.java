@@ -0,0 +1,40 @@
+package com.github.shpiyu.huml;
+
+/**
+ * A string value. The characters may be a {@link HumlStringView} over the source document.
+ */
+public record HumlString(CharSequence value) implements HumlValue {
+
+    @Override
+    public HumlType getType() {
+        return HumlType.STRING;
+    }
+
+    @Override
+    public String asString() {
+        return String.valueOf(value);
+    }
+
+    @Override
+    public CharSequence asCharSequence() {
+        return value;
+    }
+
+    /**
+     * Compares the characters, whatever the kind of sequence holding them.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof HumlString other && CharSequence.compare(value, other.value) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return HumlValues.hashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+}
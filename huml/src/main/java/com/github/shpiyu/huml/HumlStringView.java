@@ -0,0 +1,60 @@
+package com.github.shpiyu.huml;
+
+/**
+ * A read-only view over a range of a source character sequence. Used to back string values
+ * without copying the characters out of the parsed document.
+ */
+public final class HumlStringView implements CharSequence {
+    private final CharSequence source;
+    private final int start;
+    private final int end;
+    private String string;
+
+    /**
+     * Creates a new view over {@code source[start, end)}.
+     *
+     * @param source The sequence to share.
+     * @param start The start index, inclusive.
+     * @param end The end index, exclusive.
+     */
+    public HumlStringView(CharSequence source, int start, int end) {
+        if (start < 0 || end > source.length() || start > end) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ") for length " + source.length());
+        }
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= end - start) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + (end - start));
+        }
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to > end - start || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ") for length " + (end - start));
+        }
+        return new HumlStringView(source, start + from, start + to);
+    }
+
+    /**
+     * Copies the viewed characters into a string. The copy is made once and cached.
+     */
+    @Override
+    public String toString() {
+        if (string == null) {
+            string = source.subSequence(start, end).toString();
+        }
+        return string;
+    }
+}
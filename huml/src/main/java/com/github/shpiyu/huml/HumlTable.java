@@ -0,0 +1,262 @@
+package com.github.shpiyu.huml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A list of uniform dicts stored column by column, as read by {@link HumlTableReader}.
+ *
+ * <p>Numeric columns are primitive arrays and string columns are dictionary encoded: every row
+ * holds an index into the distinct values of the column. No object is kept per row. Missing and
+ * null values are tracked separately and read as 0, 0.0 or a code of -1.
+ */
+public final class HumlTable {
+
+    /**
+     * Types of the columns of a table.
+     */
+    public enum ColumnType {
+        LONG,
+        DOUBLE,
+        STRING
+    }
+
+    private final int rowCount;
+    private final Map<String, Column> columns;
+
+    HumlTable(int rowCount, List<Column> columns) {
+        this.rowCount = rowCount;
+        this.columns = new LinkedHashMap<>();
+        for (Column column : columns) {
+            this.columns.put(column.name, column);
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public List<String> getColumnNames() {
+        return new ArrayList<>(columns.keySet());
+    }
+
+    public ColumnType getColumnType(String name) {
+        return column(name).type;
+    }
+
+    /**
+     * Returns the values of a long column, one per row. The array is owned by the table.
+     */
+    public long[] getLongColumn(String name) {
+        return column(name, ColumnType.LONG).longs;
+    }
+
+    /**
+     * Returns the values of a double column, one per row. The array is owned by the table.
+     */
+    public double[] getDoubleColumn(String name) {
+        return column(name, ColumnType.DOUBLE).doubles;
+    }
+
+    /**
+     * Returns the dictionary codes of a string column, one per row, -1 for null values. The
+     * array is owned by the table.
+     */
+    public int[] getStringCodes(String name) {
+        return column(name, ColumnType.STRING).codes;
+    }
+
+    /**
+     * Returns the distinct values of a string column, indexed by code.
+     */
+    public List<String> getDictionary(String name) {
+        Column column = column(name, ColumnType.STRING);
+        return Collections.unmodifiableList(Arrays.asList(column.dictionary).subList(0, column.dictionarySize));
+    }
+
+    public long getLong(String name, int row) {
+        return getLongColumn(name)[checkRow(row)];
+    }
+
+    public double getDouble(String name, int row) {
+        return getDoubleColumn(name)[checkRow(row)];
+    }
+
+    public String getString(String name, int row) {
+        Column column = column(name, ColumnType.STRING);
+        int code = column.codes[checkRow(row)];
+        return code < 0 ? null : column.dictionary[code];
+    }
+
+    /**
+     * Returns whether the value of a row was null or missing.
+     */
+    public boolean isNull(String name, int row) {
+        return column(name).nulls.get(checkRow(row));
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + rowCount + " rows");
+        }
+        return row;
+    }
+
+    private Column column(String name) {
+        Column column = columns.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("No column named " + name);
+        }
+        return column;
+    }
+
+    private Column column(String name, ColumnType type) {
+        Column column = column(name);
+        if (column.type != type) {
+            throw new IllegalArgumentException("Column " + name + " is a " + column.type + " column");
+        }
+        return column;
+    }
+
+    /**
+     * Growable storage of one column while a table is read.
+     */
+    static final class Column {
+        final String name;
+        final ColumnType type;
+        final BitSet nulls = new BitSet();
+        long[] longs;
+        double[] doubles;
+        int[] codes;
+
+        // distinct strings and an open addressing table of their codes plus one
+        String[] dictionary;
+        int dictionarySize;
+        private int[] slots;
+
+        Column(String name, ColumnType type) {
+            this.name = name;
+            this.type = type;
+            switch (type) {
+                case LONG:
+                    longs = new long[16];
+                    break;
+                case DOUBLE:
+                    doubles = new double[16];
+                    break;
+                default:
+                    codes = new int[16];
+                    dictionary = new String[16];
+                    slots = new int[32];
+            }
+        }
+
+        void ensureCapacity(int rows) {
+            int capacity = capacity();
+            if (rows <= capacity) {
+                return;
+            }
+            int grown = Math.max(rows, capacity + (capacity >> 1));
+            switch (type) {
+                case LONG:
+                    longs = Arrays.copyOf(longs, grown);
+                    break;
+                case DOUBLE:
+                    doubles = Arrays.copyOf(doubles, grown);
+                    break;
+                default:
+                    codes = Arrays.copyOf(codes, grown);
+            }
+        }
+
+        void setNull(int row) {
+            nulls.set(row);
+            if (type == ColumnType.STRING) {
+                codes[row] = -1;
+            }
+        }
+
+        /**
+         * Returns the code of {@code source[from, to)}, adding it to the dictionary if new. The
+         * characters are only copied the first time a value is seen.
+         */
+        int code(String source, int from, int to) {
+            int hash = 0;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + source.charAt(i);
+            }
+            int mask = slots.length - 1;
+            int length = to - from;
+            for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+                int code = slots[slot] - 1;
+                if (code < 0) {
+                    return add(source.substring(from, to), slot);
+                }
+                String value = dictionary[code];
+                if (value.length() == length && source.startsWith(value, from)) {
+                    return code;
+                }
+            }
+        }
+
+        private int add(String value, int slot) {
+            if (dictionarySize == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+            }
+            dictionary[dictionarySize] = value;
+            slots[slot] = ++dictionarySize;
+            if (dictionarySize * 2 > slots.length) {
+                rehash();
+            }
+            return dictionarySize - 1;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int code = 0; code < dictionarySize; code++) {
+                int slot = mix(dictionary[code].hashCode()) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = code + 1;
+            }
+        }
+
+        // Trims the arrays to the number of rows once reading is done
+        void trim(int rows) {
+            switch (type) {
+                case LONG:
+                    longs = Arrays.copyOf(longs, rows);
+                    break;
+                case DOUBLE:
+                    doubles = Arrays.copyOf(doubles, rows);
+                    break;
+                default:
+                    codes = Arrays.copyOf(codes, rows);
+                    dictionary = Arrays.copyOf(dictionary, dictionarySize);
+                    slots = null;
+            }
+        }
+
+        private int capacity() {
+            switch (type) {
+                case LONG:
+                    return longs.length;
+                case DOUBLE:
+                    return doubles.length;
+                default:
+                    return codes.length;
+            }
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
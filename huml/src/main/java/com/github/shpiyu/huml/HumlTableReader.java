@@ -0,0 +1,206 @@
+package com.github.shpiyu.huml;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.shpiyu.huml.parser.HumlToken;
+import com.github.shpiyu.huml.parser.HumlTokenizer;
+import com.github.shpiyu.huml.parser.ParserException;
+import com.github.shpiyu.huml.parser.ParserOptions;
+
+/**
+ * Reads a list of dicts into a {@link HumlTable} in a single pass over the tokens of a document.
+ *
+ * <p>Only the declared columns are decoded; other keys of the rows are skipped without being
+ * materialized, and so is everything after the list. Numbers go straight into primitive arrays
+ * and strings are dictionary encoded from the source, so the only allocations are the growing
+ * column arrays and one copy of every distinct string.
+ *
+ * <p>The document itself must be held in memory as a {@code String}, and the tokenizer indexes
+ * all of it before the first row is read: three ints per line and one per structural character
+ * ({@code :}, {@code ,}, {@code "} and line breaks). That index is dropped once the table is
+ * built, but while reading it adds roughly 12 to 20 bytes per line on top of the document and
+ * the columns. Documents of tens of millions of rows should be split into several smaller ones.
+ *
+ * <pre>{@code
+ * HumlTable table = new HumlTableReader("data", "rows")
+ *         .longColumn("id")
+ *         .doubleColumn("price")
+ *         .stringColumn("region")
+ *         .read(huml);
+ * }</pre>
+ */
+public class HumlTableReader {
+    private final String[] path;
+    private final List<String> names = new ArrayList<>();
+    private final List<HumlTable.ColumnType> types = new ArrayList<>();
+
+    /**
+     * Creates a reader for the list found by following the given keys from the root dict.
+     *
+     * @param path The keys leading to the list, at least one.
+     */
+    public HumlTableReader(String... path) {
+        if (path.length == 0) {
+            throw new IllegalArgumentException("The path to the list must not be empty");
+        }
+        this.path = path.clone();
+    }
+
+    public HumlTableReader longColumn(String name) {
+        return column(name, HumlTable.ColumnType.LONG);
+    }
+
+    public HumlTableReader doubleColumn(String name) {
+        return column(name, HumlTable.ColumnType.DOUBLE);
+    }
+
+    public HumlTableReader stringColumn(String name) {
+        return column(name, HumlTable.ColumnType.STRING);
+    }
+
+    /**
+     * Declares a column read from the key with the same name in every row.
+     *
+     * @param name The key of the column.
+     * @param type The type of the column.
+     * @return This instance.
+     */
+    public HumlTableReader column(String name, HumlTable.ColumnType type) {
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("Duplicate column " + name);
+        }
+        names.add(name);
+        types.add(type);
+        return this;
+    }
+
+    public HumlTable read(String huml) {
+        return read(huml, ParserOptions.defaults());
+    }
+
+    /**
+     * Reads the rows of the list.
+     *
+     * @param huml The document.
+     * @param options The options used to parse the document.
+     * @return The table.
+     * @throws ParserException If the document is malformed, the path does not lead to a list of
+     *         dicts or a value does not fit the type of its column.
+     */
+    public HumlTable read(String huml, ParserOptions options) {
+        HumlTokenizer tokens = new HumlTokenizer(huml, options);
+        tokens.next();
+        for (int i = 0; i < path.length; i++) {
+            if (!findKey(tokens, path[i])) {
+                throw new ParserException("No key '" + path[i] + "' on the path to the list");
+            }
+            HumlToken expected = i == path.length - 1 ? HumlToken.START_LIST : HumlToken.START_DICT;
+            if (tokens.next() != expected) {
+                throw new ParserException("Expected " + (expected == HumlToken.START_LIST ? "a list" : "a dict")
+                        + " at key '" + path[i] + "' at line " + tokens.line());
+            }
+        }
+
+        HumlTable.Column[] columns = new HumlTable.Column[names.size()];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = new HumlTable.Column(names.get(c), types.get(c));
+        }
+        boolean[] seen = new boolean[columns.length];
+
+        int rows = 0;
+        while (tokens.next() != HumlToken.END_LIST) {
+            if (tokens.token() != HumlToken.START_DICT) {
+                throw new ParserException("Expected a dict row at line " + tokens.line() + " but found " + tokens.token());
+            }
+            for (HumlTable.Column column : columns) {
+                column.ensureCapacity(rows + 1);
+            }
+            readRow(tokens, columns, seen, rows);
+            rows++;
+        }
+
+        List<HumlTable.Column> result = new ArrayList<>(columns.length);
+        for (HumlTable.Column column : columns) {
+            column.trim(rows);
+            result.add(column);
+        }
+        return new HumlTable(rows, result);
+    }
+
+    private static void readRow(HumlTokenizer tokens, HumlTable.Column[] columns, boolean[] seen, int row) {
+        while (tokens.next() == HumlToken.KEY) {
+            int c = columnIndex(tokens, columns);
+            HumlToken token = tokens.next();
+            if (c < 0) {
+                tokens.skipValue();
+                continue;
+            }
+            HumlTable.Column column = columns[c];
+            seen[c] = true;
+            if (token == HumlToken.NULL) {
+                column.setNull(row);
+                continue;
+            }
+            switch (column.type) {
+                case LONG:
+                    if (token != HumlToken.LONG) {
+                        throw mismatch(tokens, column);
+                    }
+                    column.longs[row] = tokens.longValue();
+                    break;
+                case DOUBLE:
+                    if (token == HumlToken.LONG) {
+                        column.doubles[row] = tokens.longValue();
+                    } else if (token == HumlToken.DOUBLE) {
+                        column.doubles[row] = tokens.doubleValue();
+                    } else {
+                        throw mismatch(tokens, column);
+                    }
+                    break;
+                default:
+                    if (token != HumlToken.STRING) {
+                        throw mismatch(tokens, column);
+                    }
+                    if (tokens.stringHasEscapes()) {
+                        String decoded = tokens.stringValue().toString();
+                        column.codes[row] = column.code(decoded, 0, decoded.length());
+                    } else {
+                        column.codes[row] = column.code(tokens.source(), tokens.stringStart(), tokens.stringEnd());
+                    }
+            }
+        }
+        for (int c = 0; c < columns.length; c++) {
+            if (!seen[c]) {
+                columns[c].setNull(row);
+            }
+            seen[c] = false;
+        }
+    }
+
+    private static int columnIndex(HumlTokenizer tokens, HumlTable.Column[] columns) {
+        for (int c = 0; c < columns.length; c++) {
+            if (tokens.keyEquals(columns[c].name)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    // Moves to the value of the given key in the current dict, skipping the values before it
+    private static boolean findKey(HumlTokenizer tokens, String key) {
+        while (tokens.next() == HumlToken.KEY) {
+            if (tokens.keyEquals(key)) {
+                return true;
+            }
+            tokens.next();
+            tokens.skipValue();
+        }
+        return false;
+    }
+
+    private static ParserException mismatch(HumlTokenizer tokens, HumlTable.Column column) {
+        return new ParserException("Expected a " + column.type.name().toLowerCase() + " for column '" + column.name
+                + "' at line " + tokens.line() + " but found " + tokens.token());
+    }
+}
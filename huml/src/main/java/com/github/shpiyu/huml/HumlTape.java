@@ -0,0 +1,544 @@
+package com.github.shpiyu.huml;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import com.github.shpiyu.huml.parser.HumlToken;
+import com.github.shpiyu.huml.parser.HumlTokenizer;
+import com.github.shpiyu.huml.parser.ParserException;
+import com.github.shpiyu.huml.parser.ParserOptions;
+
+/**
+ * A read-only document flattened into a tape of 64-bit words plus an arena of characters.
+ *
+ * <p>Every value is one word holding an 8-bit tag and a 56-bit payload, in document order:
+ * <ul>
+ * <li>containers start with a word holding the number of children and the index past their end
+ * word, so a whole subtree is skipped in one step, and end with a word pointing back at their
+ * start;</li>
+ * <li>dict entries are a key word followed by the value; when a dict repeats a key, the earlier
+ * entries are marked as shadowed and skipped, so the last value wins as with
+ * {@link com.github.shpiyu.huml.parser.Parser}, though at the position of its last occurrence;</li>
+ * <li>keys and strings point at their characters in the arena, preceded by two chars of length;</li>
+ * <li>numbers are a tag word followed by the raw 64 bits of the long or double;</li>
+ * <li>booleans and null are a single word.</li>
+ * </ul>
+ *
+ * <p>A tape holds a handful of arrays instead of one object per value, and can be moved off the
+ * heap with {@link #toOffHeap()} so that large documents kept resident cost the garbage collector
+ * nothing. Navigate it with a {@link HumlTapeCursor}, or through {@link #getRoot()}, which returns
+ * {@link HumlValue} views decoding the tape on access.
+ *
+ * <p>Instances are immutable and can be shared between threads.
+ */
+public final class HumlTape {
+    static final int DICT_START = 1;
+    static final int DICT_END = 2;
+    static final int LIST_START = 3;
+    static final int LIST_END = 4;
+    static final int KEY = 5;
+    static final int STRING = 6;
+    static final int LONG = 7;
+    static final int DOUBLE = 8;
+    static final int TRUE = 9;
+    static final int FALSE = 10;
+    static final int NULL = 11;
+    static final int SHADOWED_KEY = 12;
+
+    private static final long PAYLOAD_MASK = (1L << 56) - 1;
+    private static final int MAX_COUNT = (1 << 24) - 1;
+
+    private final LongBuffer words;
+    private final CharBuffer arena;
+    private final boolean offHeap;
+
+    private HumlTape(LongBuffer words, CharBuffer arena, boolean offHeap) {
+        this.words = words;
+        this.arena = arena;
+        this.offHeap = offHeap;
+    }
+
+    public static HumlTape parse(String huml) {
+        return parse(huml, ParserOptions.defaults());
+    }
+
+    /**
+     * Parses a document straight into a tape, without building a tree first.
+     *
+     * @param huml The document.
+     * @param options The options used to parse the document.
+     * @return The tape.
+     * @throws ParserException If the document is malformed.
+     */
+    public static HumlTape parse(String huml, ParserOptions options) {
+        if (huml == null || huml.isBlank()) {
+            throw new ParserException("Empty document is undefined");
+        }
+        Builder builder = new Builder(huml.length());
+        HumlTokenizer tokens = new HumlTokenizer(huml, options);
+        for (HumlToken token = tokens.next(); token != HumlToken.END_DOCUMENT; token = tokens.next()) {
+            switch (token) {
+                case START_DICT:
+                    builder.start(DICT_START);
+                    break;
+                case START_LIST:
+                    builder.start(LIST_START);
+                    break;
+                case END_DICT:
+                    builder.end(DICT_END);
+                    break;
+                case END_LIST:
+                    builder.end(LIST_END);
+                    break;
+                case KEY:
+                    builder.string(KEY, tokens.source(), tokens.keyStart(), tokens.keyEnd());
+                    break;
+                case STRING:
+                    builder.value();
+                    if (tokens.stringHasEscapes()) {
+                        String decoded = tokens.stringValue().toString();
+                        builder.string(STRING, decoded, 0, decoded.length());
+                    } else {
+                        builder.string(STRING, tokens.source(), tokens.stringStart(), tokens.stringEnd());
+                    }
+                    break;
+                case LONG:
+                    builder.value();
+                    builder.word(LONG, 0);
+                    builder.raw(tokens.longValue());
+                    break;
+                case DOUBLE:
+                    builder.value();
+                    builder.word(DOUBLE, 0);
+                    builder.raw(Double.doubleToRawLongBits(tokens.doubleValue()));
+                    break;
+                case BOOLEAN:
+                    builder.value();
+                    builder.word(tokens.booleanValue() ? TRUE : FALSE, 0);
+                    break;
+                default:
+                    builder.value();
+                    builder.word(NULL, 0);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a copy of this tape stored in direct buffers, outside of the garbage collected heap.
+     */
+    public HumlTape toOffHeap() {
+        if (offHeap) {
+            return this;
+        }
+        LongBuffer directWords = allocateDirect("words", (long) words.capacity() * Long.BYTES).asLongBuffer();
+        directWords.put(0, words, 0, words.capacity());
+        CharBuffer directArena = allocateDirect("arena", (long) arena.capacity() * Character.BYTES).asCharBuffer();
+        directArena.put(0, arena, 0, arena.capacity());
+        return new HumlTape(directWords, directArena, true);
+    }
+
+    private static ByteBuffer allocateDirect(String part, long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Tape " + part + " of " + bytes
+                    + " bytes exceed the 2 GB limit of a direct buffer");
+        }
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns the number of 64-bit words of the tape.
+     */
+    public int getWordCount() {
+        return words.capacity();
+    }
+
+    /**
+     * Returns the number of characters of the string arena.
+     */
+    public int getArenaLength() {
+        return arena.capacity();
+    }
+
+    /**
+     * Returns a cursor positioned on the root dict.
+     */
+    public HumlTapeCursor cursor() {
+        return new HumlTapeCursor(this);
+    }
+
+    /**
+     * Returns a view of the root dict. Containers of the view decode the tape on access, scalars
+     * are decoded when the view of their container is read.
+     */
+    public HumlValue getRoot() {
+        return value(0);
+    }
+
+    public HumlDocument toDocument() {
+        return new HumlDocument(getRoot());
+    }
+
+    int tag(int index) {
+        return (int) (words.get(index) >>> 56);
+    }
+
+    long payload(int index) {
+        return words.get(index) & PAYLOAD_MASK;
+    }
+
+    long raw(int index) {
+        return words.get(index);
+    }
+
+    // Index of the word following the value at the given index
+    int after(int index) {
+        switch (tag(index)) {
+            case DICT_START:
+            case LIST_START:
+                return (int) payload(index);
+            case LONG:
+            case DOUBLE:
+                return index + 2;
+            default:
+                return index + 1;
+        }
+    }
+
+    // Number of children of a container, counted while skipping them if there are too many
+    int count(int index) {
+        int count = (int) (payload(index) >>> 32);
+        if (count < MAX_COUNT) {
+            return count;
+        }
+        count = 0;
+        for (int i = firstChild(index); i >= 0; i = nextSibling(i)) {
+            count++;
+        }
+        return count;
+    }
+
+    // Index of the first child value of a container, -1 if empty
+    int firstChild(int index) {
+        return child(index + 1);
+    }
+
+    // Index of the value following a child value in its container, -1 if it is the last one
+    int nextSibling(int index) {
+        return child(after(index));
+    }
+
+    // Index of the first child value at or after the given word, skipping shadowed entries
+    private int child(int word) {
+        while (true) {
+            int tag = tag(word);
+            if (tag == DICT_END || tag == LIST_END) {
+                return -1;
+            }
+            if (tag != SHADOWED_KEY) {
+                return tag == KEY ? word + 1 : word;
+            }
+            word = after(word + 1);
+        }
+    }
+
+    int stringLength(int index) {
+        int offset = (int) payload(index);
+        return (arena.get(offset - 2) << 16) | arena.get(offset - 1);
+    }
+
+    CharSequence string(int index) {
+        int offset = (int) payload(index);
+        return new HumlStringView(arena, offset, offset + stringLength(index));
+    }
+
+    boolean stringEquals(int index, String s) {
+        int offset = (int) payload(index);
+        if (stringLength(index) != s.length()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (arena.get(offset + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Index of the value of a key in the dict at the given index, -1 if missing
+    int find(int dict, String key) {
+        for (int i = firstChild(dict); i >= 0; i = nextSibling(i)) {
+            if (stringEquals(i - 1, key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    HumlType type(int index) {
+        switch (tag(index)) {
+            case DICT_START:
+                return HumlType.DICT;
+            case LIST_START:
+                return HumlType.LIST;
+            case STRING:
+                return HumlType.STRING;
+            case LONG:
+            case DOUBLE:
+                return HumlType.NUMBER;
+            case TRUE:
+            case FALSE:
+                return HumlType.BOOLEAN;
+            default:
+                return HumlType.NULL;
+        }
+    }
+
+    HumlValue value(int index) {
+        switch (tag(index)) {
+            case DICT_START:
+                return HumlValue.ofDict(new DictView(index));
+            case LIST_START:
+                return HumlValue.ofList(new ListView(index));
+            case STRING:
+                return HumlValue.ofString(string(index));
+            case LONG:
+                return HumlValue.ofLong(raw(index + 1));
+            case DOUBLE:
+                return HumlValue.ofDouble(Double.longBitsToDouble(raw(index + 1)));
+            case TRUE:
+                return HumlValue.ofBoolean(true);
+            case FALSE:
+                return HumlValue.ofBoolean(false);
+            default:
+                return HumlValue.nullValue();
+        }
+    }
+
+    /**
+     * A dict on the tape. Lookups scan the keys of the dict.
+     */
+    private final class DictView extends AbstractMap<String, HumlValue> {
+        private final int index;
+
+        DictView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public HumlValue get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            int value = find(index, (String) key);
+            return value < 0 ? null : value(value);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && find(index, (String) key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return count(index);
+        }
+
+        @Override
+        public Set<Entry<String, HumlValue>> entrySet() {
+            return new AbstractSet<Entry<String, HumlValue>>() {
+                @Override
+                public Iterator<Entry<String, HumlValue>> iterator() {
+                    return new Iterator<Entry<String, HumlValue>>() {
+                        private int next = firstChild(index);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next >= 0;
+                        }
+
+                        @Override
+                        public Entry<String, HumlValue> next() {
+                            if (next < 0) {
+                                throw new NoSuchElementException();
+                            }
+                            int value = next;
+                            next = nextSibling(value);
+                            return new SimpleImmutableEntry<>(string(value - 1).toString(), value(value));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return count(index);
+                }
+            };
+        }
+    }
+
+    /**
+     * A list on the tape. The positions of the items are found on the first indexed access.
+     */
+    private final class ListView extends AbstractList<HumlValue> implements RandomAccess {
+        private final int index;
+        private volatile int[] items;
+
+        ListView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public HumlValue get(int i) {
+            int[] positions = items;
+            if (positions == null) {
+                positions = new int[count(index)];
+                int n = 0;
+                for (int item = firstChild(index); item >= 0; item = nextSibling(item)) {
+                    positions[n++] = item;
+                }
+                items = positions;
+            }
+            return value(positions[i]);
+        }
+
+        @Override
+        public int size() {
+            return count(index);
+        }
+    }
+
+    /**
+     * Appends words and characters to growable arrays while a document is tokenized.
+     */
+    private static final class Builder {
+        private long[] words;
+        private int size;
+        private char[] arena;
+        private int arenaSize;
+
+        // open containers: index of their start word and number of children so far
+        private int[] starts = new int[16];
+        private int[] counts = new int[16];
+        private int depth;
+        // last key word of every key of a dict, reused while looking for repeated keys
+        private Map<CharBuffer, Integer> keyWords;
+
+        Builder(int sourceLength) {
+            words = new long[Math.max(16, sourceLength / 4)];
+            arena = new char[Math.max(16, sourceLength / 2)];
+        }
+
+        void start(int tag) {
+            value();
+            if (depth == starts.length) {
+                starts = Arrays.copyOf(starts, depth * 2);
+                counts = Arrays.copyOf(counts, depth * 2);
+            }
+            starts[depth] = size;
+            counts[depth] = 0;
+            depth++;
+            word(tag, 0);
+        }
+
+        void end(int tag) {
+            depth--;
+            int start = starts[depth];
+            if (tag == DICT_END && counts[depth] > 1) {
+                counts[depth] -= shadowRepeatedKeys(start);
+            }
+            word(tag, start);
+            long count = Math.min(counts[depth], MAX_COUNT);
+            words[start] = (words[start] & ~PAYLOAD_MASK) | (count << 32) | size;
+        }
+
+        /**
+         * Marks every entry of the dict starting at the given word whose key is repeated later in
+         * the dict as shadowed, and returns how many were.
+         */
+        private int shadowRepeatedKeys(int start) {
+            if (keyWords == null) {
+                keyWords = new HashMap<>();
+            }
+            int shadowed = 0;
+            int i = start + 1;
+            while (i < size) {
+                int offset = (int) (words[i] & PAYLOAD_MASK);
+                int length = (arena[offset - 2] << 16) | arena[offset - 1];
+                Integer previous = keyWords.put(CharBuffer.wrap(arena, offset, length), i);
+                if (previous != null) {
+                    words[previous] = ((long) SHADOWED_KEY << 56) | (words[previous] & PAYLOAD_MASK);
+                    shadowed++;
+                }
+                i = after(i + 1);
+            }
+            keyWords.clear();
+            return shadowed;
+        }
+
+        // Index of the word following the value at the given index
+        private int after(int index) {
+            switch ((int) (words[index] >>> 56)) {
+                case DICT_START:
+                case LIST_START:
+                    return (int) words[index];
+                case LONG:
+                case DOUBLE:
+                    return index + 2;
+                default:
+                    return index + 1;
+            }
+        }
+
+        // Counts a value in its container
+        void value() {
+            if (depth > 0) {
+                counts[depth - 1]++;
+            }
+        }
+
+        void word(int tag, long payload) {
+            raw(((long) tag << 56) | payload);
+        }
+
+        void raw(long word) {
+            if (size == words.length) {
+                words = Arrays.copyOf(words, size + (size >> 1));
+            }
+            words[size++] = word;
+        }
+
+        void string(int tag, String source, int from, int to) {
+            int length = to - from;
+            if (arenaSize + length + 2 > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arenaSize + length + 2, arena.length + (arena.length >> 1)));
+            }
+            arena[arenaSize++] = (char) (length >>> 16);
+            arena[arenaSize++] = (char) length;
+            source.getChars(from, to, arena, arenaSize);
+            word(tag, arenaSize);
+            arenaSize += length;
+        }
+
+        HumlTape build() {
+            return new HumlTape(LongBuffer.wrap(Arrays.copyOf(words, size)),
+                    CharBuffer.wrap(Arrays.copyOf(arena, arenaSize)), false);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.github.shpiyu.huml;
+
+import java.util.Arrays;
+
+/**
+ * A movable position on a {@link HumlTape}. Moving and reading scalars allocates nothing, apart
+ * from the views returned by {@link #getString()} and {@link #toValue()}.
+ *
+ * <pre>{@code
+ * HumlTapeCursor cursor = tape.cursor();
+ * if (cursor.find("servers") && cursor.down()) {
+ *     do {
+ *         cursor.find("port");
+ *         total += cursor.getLong();
+ *         cursor.up();
+ *     } while (cursor.next());
+ * }
+ * }</pre>
+ *
+ * <p>Instances are not thread-safe; create one cursor per thread.
+ */
+public final class HumlTapeCursor {
+    private final HumlTape tape;
+    private int index;
+
+    // start words of the containers above the current value
+    private int[] parents = new int[16];
+    private int depth;
+
+    HumlTapeCursor(HumlTape tape) {
+        this.tape = tape;
+    }
+
+    public HumlType getType() {
+        return tape.type(index);
+    }
+
+    /**
+     * Returns the number of the parents of the current value, 0 on the root.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the key of the current value, or null if it is not inside a dict.
+     */
+    public String getKey() {
+        return inDict() ? tape.string(index - 1).toString() : null;
+    }
+
+    /**
+     * Returns whether the current value is inside a dict under the given key.
+     */
+    public boolean keyEquals(String key) {
+        return inDict() && tape.stringEquals(index - 1, key);
+    }
+
+    /**
+     * Returns whether the current value is a number without a fraction or exponent.
+     */
+    public boolean isIntegral() {
+        return tape.tag(index) == HumlTape.LONG;
+    }
+
+    public long getLong() {
+        switch (tape.tag(index)) {
+            case HumlTape.LONG:
+                return tape.raw(index + 1);
+            case HumlTape.DOUBLE:
+                return (long) Double.longBitsToDouble(tape.raw(index + 1));
+            default:
+                throw new IllegalStateException("Not a number: " + getType());
+        }
+    }
+
+    public double getDouble() {
+        switch (tape.tag(index)) {
+            case HumlTape.LONG:
+                return tape.raw(index + 1);
+            case HumlTape.DOUBLE:
+                return Double.longBitsToDouble(tape.raw(index + 1));
+            default:
+                throw new IllegalStateException("Not a number: " + getType());
+        }
+    }
+
+    public boolean getBoolean() {
+        int tag = tape.tag(index);
+        if (tag != HumlTape.TRUE && tag != HumlTape.FALSE) {
+            throw new IllegalStateException("Not a boolean: " + getType());
+        }
+        return tag == HumlTape.TRUE;
+    }
+
+    /**
+     * Returns the current string as a view over the arena of the tape.
+     */
+    public CharSequence getString() {
+        if (tape.tag(index) != HumlTape.STRING) {
+            throw new IllegalStateException("Not a string: " + getType());
+        }
+        return tape.string(index);
+    }
+
+    /**
+     * Returns the number of children of the current dict or list, 0 for scalars.
+     */
+    public int size() {
+        HumlType type = getType();
+        return type == HumlType.DICT || type == HumlType.LIST ? tape.count(index) : 0;
+    }
+
+    /**
+     * Moves to the first child of the current dict or list.
+     *
+     * @return Whether the cursor moved; false for scalars and empty containers.
+     */
+    public boolean down() {
+        HumlType type = getType();
+        if (type != HumlType.DICT && type != HumlType.LIST) {
+            return false;
+        }
+        int child = tape.firstChild(index);
+        if (child < 0) {
+            return false;
+        }
+        push();
+        index = child;
+        return true;
+    }
+
+    /**
+     * Moves to the next child of the enclosing container, skipping the current value whole.
+     *
+     * @return Whether the cursor moved; false on the last child and on the root.
+     */
+    public boolean next() {
+        if (depth == 0) {
+            return false;
+        }
+        int sibling = tape.nextSibling(index);
+        if (sibling < 0) {
+            return false;
+        }
+        index = sibling;
+        return true;
+    }
+
+    /**
+     * Moves to the enclosing container.
+     *
+     * @return Whether the cursor moved; false on the root.
+     */
+    public boolean up() {
+        if (depth == 0) {
+            return false;
+        }
+        index = parents[--depth];
+        return true;
+    }
+
+    /**
+     * Moves to the value of a key of the current dict.
+     *
+     * @param key The key to look up.
+     * @return Whether the key was found; the cursor does not move otherwise.
+     */
+    public boolean find(String key) {
+        if (getType() != HumlType.DICT) {
+            return false;
+        }
+        int value = tape.find(index, key);
+        if (value < 0) {
+            return false;
+        }
+        push();
+        index = value;
+        return true;
+    }
+
+    /**
+     * Returns a {@link HumlValue} view of the current value.
+     */
+    public HumlValue toValue() {
+        return tape.value(index);
+    }
+
+    private boolean inDict() {
+        return depth > 0 && tape.tag(parents[depth - 1]) == HumlTape.DICT_START;
+    }
+
+    private void push() {
+        if (depth == parents.length) {
+            parents = Arrays.copyOf(parents, depth * 2);
+        }
+        parents[depth++] = index;
+    }
+}
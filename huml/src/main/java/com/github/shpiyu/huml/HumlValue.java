@@ -1,92 +1,125 @@
 package com.github.shpiyu.huml;
 
+import java.math.BigInteger;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-public class HumlValue {
-    private final HumlType type;
-    private final Object value;
+/**
+ * A value of a HUML document.
+ *
+ * <p>The interface is sealed: every value is one of {@link HumlString}, {@link HumlLong},
+ * {@link HumlDouble}, {@link HumlBool}, {@link HumlNull}, {@link HumlList} or {@link HumlDict},
+ * so trees can be walked with an exhaustive pattern matching {@code switch}. Scalars hold their
+ * payload directly. The accessors below work on any value and return null, or an empty
+ * collection, when the value is of another type.
+ *
+ * <p>Values are compared structurally: same types, equal scalars, equal items in the same order
+ * and dicts with the same entries in any order. Integral and floating point numbers are never
+ * equal to each other, so {@code 1} and {@code 1.0} differ.
+ */
+public sealed interface HumlValue permits HumlString, HumlLong, HumlDouble, HumlBool, HumlNull, HumlList, HumlDict {
 
-    private HumlValue(HumlType type, Object value) {
-        this.type = type;
-        this.value = value;
+    static HumlValue ofString(String val) {
+        return new HumlString(val);
     }
 
-    public static HumlValue ofString(String val) {
-        return new HumlValue(HumlType.STRING, val);
+    /**
+     * Creates a string value backed by the given sequence. The sequence is not copied, so it
+     * must not be modified afterwards.
+     */
+    static HumlValue ofString(CharSequence val) {
+        return new HumlString(val);
     }
 
-    public static HumlValue ofNumber(Number val) {
-        return new HumlValue(HumlType.NUMBER, val);
+    /**
+     * Creates a number value. Integral numbers that fit in a {@code long} become a
+     * {@link HumlLong}, everything else a {@link HumlDouble}.
+     */
+    static HumlValue ofNumber(Number val) {
+        if (val instanceof Long || val instanceof Integer || val instanceof Short || val instanceof Byte) {
+            return new HumlLong(val.longValue());
+        }
+        if (val instanceof BigInteger && ((BigInteger) val).bitLength() < Long.SIZE) {
+            return new HumlLong(val.longValue());
+        }
+        return new HumlDouble(val.doubleValue());
     }
 
-    public static HumlValue ofBoolean(boolean val) {
-        return new HumlValue(HumlType.BOOLEAN, val);
+    static HumlValue ofLong(long val) {
+        return new HumlLong(val);
     }
 
-    public static HumlValue ofList(List<HumlValue> val) {
-        return new HumlValue(HumlType.LIST, Collections.unmodifiableList(val));
+    static HumlValue ofDouble(double val) {
+        return new HumlDouble(val);
     }
 
-    public static HumlValue ofDict(Map<String, HumlValue> val) {
-        return new HumlValue(HumlType.DICT, Collections.unmodifiableMap(val));
+    static HumlValue ofBoolean(boolean val) {
+        return val ? HumlBool.TRUE : HumlBool.FALSE;
     }
 
-    public static HumlValue nullValue() {
-        return new HumlValue(HumlType.NULL, null);
+    static HumlValue ofList(List<HumlValue> val) {
+        return new HumlList(Collections.unmodifiableList(val));
     }
 
-    public HumlType getType() {
-        return type;
+    static HumlValue ofDict(Map<String, HumlValue> val) {
+        return new HumlDict(Collections.unmodifiableMap(val));
     }
 
-    public boolean isNull() {
-        return type == HumlType.NULL;
+    static HumlValue nullValue() {
+        return HumlNull.INSTANCE;
     }
 
-    public String asString() {
-        return type == HumlType.STRING ? String.valueOf(value) : null;
+    HumlType getType();
+
+    default boolean isNull() {
+        return false;
+    }
+
+    default String asString() {
+        return null;
     }
 
-    public Integer asInteger() {
-        return type == HumlType.NUMBER ? Integer.parseInt(value.toString()) : null;
+    /**
+     * Returns the string value without copying it, or null if this is not a string.
+     */
+    default CharSequence asCharSequence() {
+        return null;
     }
 
-    public Long asLong() {
-        return type == HumlType.NUMBER ? Long.parseLong(value.toString()) : null;
+    default Integer asInteger() {
+        return null;
     }
 
-    public Float asFloat() {
-        return type == HumlType.NUMBER ? Float.parseFloat(value.toString()) : null;
+    default Long asLong() {
+        return null;
     }
 
-    public Double asDouble() {
-        return type == HumlType.NUMBER ? Double.parseDouble(value.toString()) : null;
+    default Float asFloat() {
+        return null;
     }
 
-    public Short asShort() {
-        return type == HumlType.NUMBER ? Short.parseShort(value.toString()) : null;
+    default Double asDouble() {
+        return null;
     }
 
-    public Byte asByte() {
-        return type == HumlType.NUMBER ? Byte.parseByte(value.toString()) : null;
+    default Short asShort() {
+        return null;
     }
 
-    public Boolean asBoolean() {
-        return type == HumlType.BOOLEAN ? (Boolean) value : null;
+    default Byte asByte() {
+        return null;
     }
 
-    public List<HumlValue> asList() {
-        return type == HumlType.LIST ? (List<HumlValue>) value : Collections.emptyList();
+    default Boolean asBoolean() {
+        return null;
     }
 
-    public Map<String, HumlValue> asDict() {
-        return type == HumlType.DICT ? (Map<String, HumlValue>) value : Collections.emptyMap();
+    default List<HumlValue> asList() {
+        return Collections.emptyList();
     }
 
-    @Override
-    public String toString() {
-        return String.valueOf(value);
-    }    
+    default Map<String, HumlValue> asDict() {
+        return Collections.emptyMap();
+    }
 }
@@ -0,0 +1,222 @@
+package com.github.shpiyu.huml;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structural equality and 64-bit hashing of value trees, without recursion.
+ *
+ * <p>The hashes of lists and dicts are cached in the containers; scalars are hashed on demand.
+ */
+final class HumlValues {
+
+    private HumlValues() {
+    }
+
+    /**
+     * Compares two trees structurally. Subtrees are compared by their cached hashes first, and
+     * nesting is tracked on an explicit stack.
+     */
+    static boolean equal(HumlValue first, HumlValue second) {
+        Deque<HumlValue> pending = new ArrayDeque<>();
+        pending.push(first);
+        pending.push(second);
+        while (!pending.isEmpty()) {
+            HumlValue b = pending.pop();
+            HumlValue a = pending.pop();
+            if (a == b) {
+                continue;
+            }
+            switch (a) {
+                case HumlList listA -> {
+                    if (!(b instanceof HumlList listB) || hash(listA) != hash(listB) || listA.size() != listB.size()) {
+                        return false;
+                    }
+                    List<HumlValue> itemsA = listA.asList();
+                    List<HumlValue> itemsB = listB.asList();
+                    for (int i = 0; i < itemsA.size(); i++) {
+                        pending.push(itemsA.get(i));
+                        pending.push(itemsB.get(i));
+                    }
+                }
+                case HumlDict dictA -> {
+                    if (!(b instanceof HumlDict dictB) || hash(dictA) != hash(dictB) || dictA.size() != dictB.size()) {
+                        return false;
+                    }
+                    for (Map.Entry<String, HumlValue> entry : dictA.asDict().entrySet()) {
+                        HumlValue other = dictB.get(entry.getKey());
+                        if (other == null) {
+                            return false;
+                        }
+                        pending.push(entry.getValue());
+                        pending.push(other);
+                    }
+                }
+                default -> {
+                    if (!a.equals(b)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    static int hashCode(HumlValue value) {
+        long h = hash(value);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the 64-bit structural hash of a subtree, computing the hashes of containers once.
+     */
+    static long hash(HumlValue value) {
+        long h = switch (value) {
+            case HumlList list -> list.hash;
+            case HumlDict dict -> dict.hash;
+            default -> scalarHash(value);
+        };
+        if (h == 0) {
+            computeHashes(value);
+            h = cachedHash(value);
+        }
+        return h;
+    }
+
+    // Computes the hashes of a subtree children first. Each container is iterated once, so
+    // children may be views created on access.
+    private static void computeHashes(HumlValue root) {
+        Deque<HashFrame> stack = new ArrayDeque<>();
+        stack.push(new HashFrame(root));
+        while (true) {
+            HashFrame frame = stack.peek();
+            if (frame.children.hasNext()) {
+                Object next = frame.children.next();
+                String key = null;
+                HumlValue child;
+                if (next instanceof Map.Entry<?, ?> entry) {
+                    key = (String) entry.getKey();
+                    child = (HumlValue) entry.getValue();
+                } else {
+                    child = (HumlValue) next;
+                }
+                long h = cachedHash(child);
+                if (h != 0) {
+                    frame.add(key, h);
+                } else {
+                    frame.pendingKey = key;
+                    stack.push(new HashFrame(child));
+                }
+                continue;
+            }
+            long h = frame.finish();
+            stack.pop();
+            if (stack.isEmpty()) {
+                return;
+            }
+            HashFrame parent = stack.peek();
+            parent.add(parent.pendingKey, h);
+        }
+    }
+
+    // The hash of a scalar, or of a container if already computed, 0 otherwise
+    private static long cachedHash(HumlValue value) {
+        return switch (value) {
+            case HumlList list -> list.hash;
+            case HumlDict dict -> dict.hash;
+            default -> scalarHash(value);
+        };
+    }
+
+    /**
+     * A container whose hash is being computed
+     */
+    private static final class HashFrame {
+        final HumlValue node;
+        final Iterator<?> children;
+        long h;
+        String pendingKey;
+
+        HashFrame(HumlValue node) {
+            this.node = node;
+            switch (node) {
+                case HumlList list -> {
+                    children = list.asList().iterator();
+                    h = seed(HumlType.LIST);
+                }
+                case HumlDict dict -> children = dict.asDict().entrySet().iterator();
+                default -> children = Collections.emptyIterator();
+            }
+        }
+
+        void add(String key, long childHash) {
+            if (key == null) {
+                h = h * 31 + childHash;
+            } else {
+                // entries are combined with a sum so that the order of the keys does not matter
+                h += mix(stringHash(key) * 0xC2B2AE3D27D4EB4FL + childHash);
+            }
+        }
+
+        // Stores and returns the hash of the container
+        long finish() {
+            switch (node) {
+                case HumlList list -> {
+                    list.hash = nonZero(mix(h));
+                    return list.hash;
+                }
+                case HumlDict dict -> {
+                    dict.hash = nonZero(mix(seed(HumlType.DICT) + h));
+                    return dict.hash;
+                }
+                default -> {
+                    return scalarHash(node);
+                }
+            }
+        }
+    }
+
+    private static long scalarHash(HumlValue value) {
+        long h = seed(value.getType());
+        switch (value) {
+            case HumlString s -> h += stringHash(s.value());
+            case HumlLong l -> h += l.value();
+            case HumlDouble d -> h += 31 * Double.doubleToLongBits(d.value()) + 1;
+            case HumlBool b -> h += b.value() ? 1 : 2;
+            default -> {
+            }
+        }
+        return nonZero(mix(h));
+    }
+
+    private static long seed(HumlType type) {
+        return (type.ordinal() + 1) * 0x9E3779B97F4A7C15L;
+    }
+
+    // 0 marks hashes that are not computed yet
+    private static long nonZero(long h) {
+        return h == 0 ? 1 : h;
+    }
+
+    // 64-bit FNV-1a over the characters
+    private static long stringHash(CharSequence s) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001B3L;
+        }
+        return h;
+    }
+
+    // Finalizer of MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,339 @@
+package com.github.shpiyu.huml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import com.github.shpiyu.huml.parser.HumlToken;
+import com.github.shpiyu.huml.parser.NumberDecoder;
+import com.github.shpiyu.huml.parser.ParserException;
+import com.github.shpiyu.huml.parser.ParserOptions;
+
+/**
+ * Pull tokenizer for JSON, emitting the same tokens as the HUML tokenizer so that the two can
+ * be transcoded into each other.
+ *
+ * <p>Input is read through a fixed buffer and only the current key, string or number is held in
+ * memory, so documents of any size can be tokenized. Objects map to dict tokens and arrays to
+ * list tokens.
+ */
+final class JsonTokenizer {
+    private final Reader in;
+    private final int maxDepth;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int line = 1;
+
+    // open containers, true for objects, and whether they have an element yet
+    private boolean[] objects = new boolean[16];
+    private boolean[] nonEmpty = new boolean[16];
+    private int depth;
+    private boolean started;
+    private boolean colonNext;
+    private boolean booleanValue;
+
+    // text of the current key, string or number
+    private final StringBuilder text = new StringBuilder();
+    private final NumberDecoder numbers = new NumberDecoder();
+
+    JsonTokenizer(Reader in) {
+        this(in, ParserOptions.defaults());
+    }
+
+    JsonTokenizer(Reader in, ParserOptions options) {
+        this.in = in;
+        this.maxDepth = options.getMaxDepth();
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @return The new current token.
+     * @throws ParserException If the document is malformed.
+     */
+    HumlToken next() throws IOException {
+        int c = skipWhitespace();
+        if (depth == 0) {
+            if (started) {
+                if (c != -1) {
+                    throw error("Unexpected content after the document");
+                }
+                return HumlToken.END_DOCUMENT;
+            }
+            started = true;
+            return value(c);
+        }
+
+        if (colonNext) {
+            if (c != ':') {
+                throw error("Expected ':'");
+            }
+            colonNext = false;
+            return value(skipWhitespace());
+        }
+
+        boolean object = objects[depth - 1];
+        if (c == (object ? '}' : ']')) {
+            depth--;
+            return object ? HumlToken.END_DICT : HumlToken.END_LIST;
+        }
+        if (nonEmpty[depth - 1]) {
+            if (c != ',') {
+                throw error(object ? "Expected ',' or '}'" : "Expected ',' or ']'");
+            }
+            c = skipWhitespace();
+        }
+        nonEmpty[depth - 1] = true;
+        if (object) {
+            if (c != '"') {
+                throw error("Expected a key");
+            }
+            readString();
+            colonNext = true;
+            return HumlToken.KEY;
+        }
+        return value(c);
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    int line() {
+        return line;
+    }
+
+    /**
+     * Returns the current key or string, or the text of the current number. The builder is
+     * reused by the next token.
+     */
+    StringBuilder text() {
+        return text;
+    }
+
+    boolean booleanValue() {
+        return booleanValue;
+    }
+
+    private HumlToken value(int c) throws IOException {
+        switch (c) {
+            case '{':
+                push(true);
+                return HumlToken.START_DICT;
+            case '[':
+                push(false);
+                return HumlToken.START_LIST;
+            case '"':
+                readString();
+                return HumlToken.STRING;
+            case 't':
+                literal("true");
+                booleanValue = true;
+                return HumlToken.BOOLEAN;
+            case 'f':
+                literal("false");
+                booleanValue = false;
+                return HumlToken.BOOLEAN;
+            case 'n':
+                literal("null");
+                return HumlToken.NULL;
+            case -1:
+                throw error("Unexpected end of input");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return number((char) c);
+                }
+                throw error("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    // The first character of the literal is already read
+    private void literal(String literal) throws IOException {
+        for (int i = 1; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("Invalid literal");
+            }
+        }
+    }
+
+    private HumlToken number(char first) throws IOException {
+        text.setLength(0);
+        text.append(first);
+        int c;
+        while ((c = peek()) >= 0 && (c >= '0' && c <= '9' || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-')) {
+            text.append((char) c);
+            position++;
+        }
+        int kind = isJsonNumber(text) ? numbers.decode(text, 0, text.length()) : NumberDecoder.NOT_A_NUMBER;
+        if (kind == NumberDecoder.NOT_A_NUMBER) {
+            throw error("Invalid number " + text);
+        }
+        return kind == NumberDecoder.LONG ? HumlToken.LONG : HumlToken.DOUBLE;
+    }
+
+    /**
+     * Checks the number against the JSON grammar, which is stricter than the HUML one: no leading
+     * zeros, and digits on both sides of the decimal point.
+     */
+    private static boolean isJsonNumber(CharSequence s) {
+        int i = 0;
+        int length = s.length();
+        if (i < length && s.charAt(i) == '-') {
+            i++;
+        }
+        if (i < length && s.charAt(i) == '0') {
+            i++;
+        } else {
+            int digits = skipDigits(s, i);
+            if (digits == i) {
+                return false;
+            }
+            i = digits;
+        }
+        if (i < length && s.charAt(i) == '.') {
+            int digits = skipDigits(s, i + 1);
+            if (digits == i + 1) {
+                return false;
+            }
+            i = digits;
+        }
+        if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+                i++;
+            }
+            int digits = skipDigits(s, i);
+            if (digits == i) {
+                return false;
+            }
+            i = digits;
+        }
+        return i == length;
+    }
+
+    private static int skipDigits(CharSequence s, int i) {
+        while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private void readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            // copy runs of plain characters straight from the buffer
+            int from = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == '"' || c == '\\' || c < 0x20) {
+                    break;
+                }
+                position++;
+            }
+            text.append(buffer, from, position - from);
+
+            int c = read();
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                text.append(escape());
+            } else if (c == -1) {
+                throw error("Unterminated string");
+            } else if (c < 0x20) {
+                position--;
+                throw error("Unescaped control character in string");
+            } else {
+                // the run stopped at the end of the buffer
+                text.append((char) c);
+            }
+        }
+    }
+
+    private char escape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw error("Invalid unicode escape");
+                    }
+                    code = code * 16 + digit;
+                }
+                return (char) code;
+            default:
+                throw error("Invalid escape");
+        }
+    }
+
+    private void push(boolean object) {
+        if (depth == maxDepth) {
+            throw error("Maximum nesting depth of " + maxDepth + " exceeded");
+        }
+        if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, depth * 2);
+            nonEmpty = Arrays.copyOf(nonEmpty, depth * 2);
+        }
+        objects[depth] = object;
+        nonEmpty[depth] = false;
+        depth++;
+    }
+
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            int c = read();
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        char c = buffer[position++];
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private ParserException error(String message) {
+        return new ParserException(message + " at line " + line);
+    }
+}
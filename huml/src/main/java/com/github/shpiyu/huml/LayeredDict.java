@@ -0,0 +1,122 @@
+package com.github.shpiyu.huml;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A dict made of a base dict and the entries an overlay replaces or adds. The base is shared, not
+ * copied, so a merge costs memory in proportion to the overlay only, and lookups fall through to
+ * the base. Keys keep the order of the base, followed by the keys the overlay adds.
+ */
+final class LayeredDict extends AbstractMap<String, HumlValue> {
+    private final Map<String, HumlValue> base;
+    private final Map<String, HumlValue> overrides;
+    private final int size;
+
+    private LayeredDict(Map<String, HumlValue> base, Map<String, HumlValue> overrides) {
+        this.base = base;
+        this.overrides = overrides;
+        int added = 0;
+        for (String key : overrides.keySet()) {
+            if (!base.containsKey(key)) {
+                added++;
+            }
+        }
+        this.size = base.size() + added;
+    }
+
+    /**
+     * Deep merges an overlay into a base value. Dicts on both sides are merged key by key; any
+     * other overlay value, null included, replaces the base value. Subtrees the overlay does not
+     * touch are shared with the base.
+     */
+    static HumlValue merge(HumlValue base, HumlValue overlay) {
+        if (base.getType() != HumlType.DICT || overlay.getType() != HumlType.DICT) {
+            return overlay;
+        }
+        Map<String, HumlValue> baseDict = base.asDict();
+        Map<String, HumlValue> overrides = new LinkedHashMap<>();
+        for (Map.Entry<String, HumlValue> entry : overlay.asDict().entrySet()) {
+            HumlValue baseValue = baseDict.get(entry.getKey());
+            overrides.put(entry.getKey(), baseValue == null ? entry.getValue() : merge(baseValue, entry.getValue()));
+        }
+        if (overrides.isEmpty()) {
+            return base;
+        }
+        return HumlValue.ofDict(new LayeredDict(baseDict, overrides));
+    }
+
+    @Override
+    public HumlValue get(Object key) {
+        HumlValue value = overrides.get(key);
+        return value != null ? value : base.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return overrides.containsKey(key) || base.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, HumlValue>> entrySet() {
+        return new AbstractSet<Entry<String, HumlValue>>() {
+            @Override
+            public Iterator<Entry<String, HumlValue>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Base entries with their overrides applied, then the entries only the overlay has
+    private final class EntryIterator implements Iterator<Entry<String, HumlValue>> {
+        private final Iterator<Entry<String, HumlValue>> baseEntries = base.entrySet().iterator();
+        private final Iterator<Entry<String, HumlValue>> overlayEntries = overrides.entrySet().iterator();
+        private Entry<String, HumlValue> next;
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (baseEntries.hasNext()) {
+                Entry<String, HumlValue> entry = baseEntries.next();
+                HumlValue override = overrides.get(entry.getKey());
+                next = override == null ? entry : new SimpleImmutableEntry<>(entry.getKey(), override);
+                return true;
+            }
+            while (overlayEntries.hasNext()) {
+                Entry<String, HumlValue> entry = overlayEntries.next();
+                if (!base.containsKey(entry.getKey())) {
+                    next = entry;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Entry<String, HumlValue> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, HumlValue> entry = next;
+            next = null;
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.shpiyu.huml.parser;
+
+/**
+ * Bounds on the resources a single document may use while it is parsed, for reading untrusted
+ * input. Every limit is checked by the tokenizer as the document is read, so parsing fails with a
+ * {@link ParserException} as soon as one is exceeded instead of after the whole tree was built.
+ *
+ * <p>Only the nesting depth is bounded by default; all other limits are off until set.
+ */
+public final class HumlReadLimits {
+    public static final int DEFAULT_MAX_DEPTH = 1000;
+
+    private int maxDocumentLength = Integer.MAX_VALUE;
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private long maxNodes = Long.MAX_VALUE;
+    private int maxStringLength = Integer.MAX_VALUE;
+    private int maxKeyLength = Integer.MAX_VALUE;
+    private int maxEntries = Integer.MAX_VALUE;
+
+    /**
+     * Returns a new instance with the default limits.
+     */
+    public static HumlReadLimits defaults() {
+        return new HumlReadLimits();
+    }
+
+    /**
+     * Sets the maximum length of a document in characters. Longer documents are rejected before
+     * any of it is tokenized.
+     *
+     * @param maxDocumentLength The maximum length, at least 1.
+     * @return This instance.
+     */
+    public HumlReadLimits maxDocumentLength(int maxDocumentLength) {
+        this.maxDocumentLength = atLeastOne(maxDocumentLength, "maxDocumentLength");
+        return this;
+    }
+
+    public int getMaxDocumentLength() {
+        return maxDocumentLength;
+    }
+
+    /**
+     * Sets the maximum number of nested containers, the root dict included.
+     *
+     * @param maxDepth The maximum depth, at least 1.
+     * @return This instance.
+     */
+    public HumlReadLimits maxDepth(int maxDepth) {
+        this.maxDepth = atLeastOne(maxDepth, "maxDepth");
+        return this;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Sets the maximum number of values in a document, containers and the root dict included.
+     *
+     * @param maxNodes The maximum number of values, at least 1.
+     * @return This instance.
+     */
+    public HumlReadLimits maxNodes(long maxNodes) {
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("maxNodes must be at least 1");
+        }
+        this.maxNodes = maxNodes;
+        return this;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Sets the maximum length of a string value in characters, without its quotes.
+     *
+     * @param maxStringLength The maximum length, at least 1.
+     * @return This instance.
+     */
+    public HumlReadLimits maxStringLength(int maxStringLength) {
+        this.maxStringLength = atLeastOne(maxStringLength, "maxStringLength");
+        return this;
+    }
+
+    public int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    /**
+     * Sets the maximum length of a key in characters.
+     *
+     * @param maxKeyLength The maximum length, at least 1.
+     * @return This instance.
+     */
+    public HumlReadLimits maxKeyLength(int maxKeyLength) {
+        this.maxKeyLength = atLeastOne(maxKeyLength, "maxKeyLength");
+        return this;
+    }
+
+    public int getMaxKeyLength() {
+        return maxKeyLength;
+    }
+
+    /**
+     * Sets the maximum number of entries of a single dict, or items of a single list.
+     *
+     * @param maxEntries The maximum number of entries, at least 1.
+     * @return This instance.
+     */
+    public HumlReadLimits maxEntries(int maxEntries) {
+        this.maxEntries = atLeastOne(maxEntries, "maxEntries");
+        return this;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    private static int atLeastOne(int value, String name) {
+        if (value < 1) {
+            throw new IllegalArgumentException(name + " must be at least 1");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.shpiyu.huml.parser;
+
+import java.io.IOException;
+
+/**
+ * Escaping of quoted HUML strings.
+ *
+ * <p>Inside quotes, {@code \"}, {@code \\}, {@code \/}, {@code \b}, {@code \f}, {@code \n},
+ * {@code \r}, {@code \t} and {@code \}{@code uXXXX} stand for the characters they do in JSON.
+ * Quotes, backslashes and control characters are escaped when writing; everything else is
+ * written as is. Strings without any of those are copied in one piece.
+ */
+public final class HumlStrings {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private HumlStrings() {
+    }
+
+    /**
+     * Returns the string in quotes, escaped where needed.
+     */
+    public static String quote(CharSequence value) {
+        int escape = firstToEscape(value);
+        if (escape < 0) {
+            return "\"" + value + "\"";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 8);
+        appendQuoted(sb, value, escape);
+        return sb.toString();
+    }
+
+    /**
+     * Appends the string in quotes, escaped where needed.
+     */
+    public static void appendQuoted(Appendable out, CharSequence value) throws IOException {
+        int escape = firstToEscape(value);
+        if (escape < 0) {
+            out.append('"').append(value).append('"');
+        } else {
+            appendQuoted(out, value, escape);
+        }
+    }
+
+    /**
+     * Decodes the escape sequences in {@code [from, to)} of the source, the contents of a quoted
+     * string without its quotes.
+     *
+     * @throws IllegalArgumentException If an escape sequence is invalid.
+     */
+    public static String unescape(String src, int from, int to) {
+        int backslash = src.indexOf('\\', from, to);
+        if (backslash < 0) {
+            return src.substring(from, to);
+        }
+        StringBuilder sb = new StringBuilder(to - from);
+        int run = from;
+        while (backslash >= 0) {
+            sb.append(src, run, backslash);
+            if (backslash + 1 == to) {
+                throw new IllegalArgumentException("Unterminated escape sequence");
+            }
+            char c = src.charAt(backslash + 1);
+            run = backslash + 2;
+            switch (c) {
+                case '"', '\\', '/' -> sb.append(c);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (run + 4 > to) {
+                        throw new IllegalArgumentException("Invalid escape sequence \\" + src.substring(backslash + 1, to));
+                    }
+                    int code = 0;
+                    for (int i = run; i < run + 4; i++) {
+                        int digit = Character.digit(src.charAt(i), 16);
+                        if (digit < 0) {
+                            throw new IllegalArgumentException("Invalid escape sequence \\" + src.substring(backslash + 1, run + 4));
+                        }
+                        code = code * 16 + digit;
+                    }
+                    sb.append((char) code);
+                    run += 4;
+                }
+                default -> throw new IllegalArgumentException("Invalid escape sequence \\" + c);
+            }
+            backslash = src.indexOf('\\', run, to);
+        }
+        return sb.append(src, run, to).toString();
+    }
+
+    private static int firstToEscape(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendQuoted(Appendable out, CharSequence value, int escape) throws IOException {
+        out.append('"').append(value, 0, escape);
+        int run = escape;
+        for (int i = escape; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) {
+                continue;
+            }
+            out.append(value, run, i);
+            run = i + 1;
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> out.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            }
+        }
+        out.append(value, run, value.length()).append('"');
+    }
+
+    private static void appendQuoted(StringBuilder sb, CharSequence value, int escape) {
+        try {
+            appendQuoted((Appendable) sb, value, escape);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
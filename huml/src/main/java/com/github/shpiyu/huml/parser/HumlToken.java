@@ -0,0 +1,25 @@
+package com.github.shpiyu.huml.parser;
+
+/**
+ * Tokens produced by {@link HumlTokenizer}.
+ */
+public enum HumlToken {
+    START_DICT,
+    END_DICT,
+    START_LIST,
+    END_LIST,
+    KEY,
+    STRING,
+    LONG,
+    DOUBLE,
+    BOOLEAN,
+    NULL,
+    END_DOCUMENT;
+
+    /**
+     * Returns whether this token is a scalar value.
+     */
+    public boolean isScalar() {
+        return this == STRING || this == LONG || this == DOUBLE || this == BOOLEAN || this == NULL;
+    }
+}
@@ -0,0 +1,722 @@
+package com.github.shpiyu.huml.parser;
+
+import java.util.Arrays;
+
+import com.github.shpiyu.huml.HumlStringView;
+
+/**
+ * Pull tokenizer for HUML documents.
+ *
+ * <p>The tokenizer is an iterative state machine: nesting is tracked on an explicit frame stack
+ * holding the indentation level and kind of every open container, so arbitrarily deep documents
+ * never grow the thread stack. The root of a document is a dict, so the first token is always
+ * {@link HumlToken#START_DICT} and the last one {@link HumlToken#END_DOCUMENT}.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class HumlTokenizer {
+    private static final int SCAN_CHUNK_SIZE = 16 * 1024;
+
+    // frame kinds
+    private static final byte DICT = 0;
+    private static final byte LIST = 1;
+    private static final byte INLINE_DICT = 2;
+    private static final byte INLINE_LIST = 3;
+
+    // values waiting to be emitted after a key or "- ::"
+    private static final int NO_VALUE = 0;
+    private static final int SCALAR_VALUE = 1;
+    private static final int INLINE_DICT_VALUE = 2;
+    private static final int INLINE_LIST_VALUE = 3;
+    private static final int BLOCK_DICT_VALUE = 4;
+    private static final int BLOCK_LIST_VALUE = 5;
+
+    private final String src;
+    // tokenized range of the source and the root container enclosing it
+    private final int rangeFrom;
+    private final int rangeTo;
+    private final byte rootKind;
+    private final int rootIndent;
+    private final boolean shareSourceStrings;
+    private final int maxDepth;
+    private final long maxNodes;
+    private final int maxStringLength;
+    private final int maxKeyLength;
+    private final int maxEntries;
+    private final NumberDecoder numbers = new NumberDecoder();
+    private final StructuralIndex structural;
+    private final TokenizerBuffers buffers;
+
+    // start and end (exclusive, without the line terminator) of each line
+    private int[] lineStarts;
+    private int[] lineEnds;
+    // index of the first structural position of each line, plus one past the last line
+    private int[] lineFirstStructural;
+    private int lineCount;
+
+    // structural positions of the line being tokenized
+    private int lineStructuralFrom;
+    private int lineStructuralTo;
+
+    // open containers
+    private int[] frameIndents = new int[16];
+    private byte[] frameKinds = new byte[16];
+    // entries read so far in each open container
+    private int[] frameEntries = new int[16];
+    private int depth;
+    // values read so far, the root included
+    private long nodes;
+
+    private HumlToken token;
+    private boolean started;
+    private int line = -1;
+    private int pendingValue;
+    private int keyFrom;
+    private int keyTo;
+    private int valueFrom;
+    private int valueTo;
+
+    // position inside an inline vector
+    private int cursor;
+    private int cursorEnd;
+    private boolean inlineValueNext;
+
+    // current scalar
+    private int stringFrom;
+    private int stringTo;
+    private boolean stringEscaped;
+    private long longValue;
+    private double doubleValue;
+    private boolean booleanValue;
+
+    public HumlTokenizer(String src) {
+        this(src, ParserOptions.defaults());
+    }
+
+    public HumlTokenizer(String src, ParserOptions options) {
+        this(src, 0, src.length(), DICT, 0, options, null);
+    }
+
+    /**
+     * Creates a tokenizer that records the lines and structural characters of the document in
+     * the given buffers instead of allocating its own.
+     *
+     * @param src The document.
+     * @param options The parser options.
+     * @param buffers The buffers to use, owned by this tokenizer until it is discarded.
+     */
+    public HumlTokenizer(String src, ParserOptions options, TokenizerBuffers buffers) {
+        this(src, 0, src.length(), DICT, 0, options, buffers);
+    }
+
+    private HumlTokenizer(String src, int from, int to, byte rootKind, int rootIndent, ParserOptions options,
+            TokenizerBuffers buffers) {
+        this.src = src;
+        this.buffers = buffers;
+        this.structural = buffers != null ? buffers.structural : new StructuralIndex();
+        this.rangeFrom = from;
+        this.rangeTo = to;
+        this.rootKind = rootKind;
+        this.rootIndent = rootIndent;
+        this.shareSourceStrings = options.isShareSourceStrings();
+        HumlReadLimits limits = options.getReadLimits();
+        this.maxDepth = limits.getMaxDepth();
+        this.maxNodes = limits.getMaxNodes();
+        this.maxStringLength = limits.getMaxStringLength();
+        this.maxKeyLength = limits.getMaxKeyLength();
+        this.maxEntries = limits.getMaxEntries();
+        if (to - from > limits.getMaxDocumentLength()) {
+            throw new ParserException("Maximum document length of " + limits.getMaxDocumentLength()
+                    + " characters exceeded: " + (to - from));
+        }
+        splitLines();
+    }
+
+    /**
+     * Creates a tokenizer over the items of a multi-line list only, for reading a slice of a
+     * larger document. The range must start at the beginning of a line and hold whole items
+     * indented by {@code indent}; the first token is then {@link HumlToken#START_LIST}. Line
+     * numbers are counted from the start of the range.
+     *
+     * @param src The document.
+     * @param from The index of the first line of the items.
+     * @param to The index past the last line of the items.
+     * @param indent The indentation of the items.
+     * @param options The parser options.
+     * @return The tokenizer.
+     */
+    public static HumlTokenizer forListItems(String src, int from, int to, int indent, ParserOptions options) {
+        return new HumlTokenizer(src, from, to, LIST, indent, options, null);
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @return The new current token.
+     * @throws ParserException If the document is malformed.
+     */
+    public HumlToken next() {
+        if (pendingValue != NO_VALUE) {
+            return token = emitPendingValue();
+        }
+        if (depth > 0) {
+            byte kind = frameKinds[depth - 1];
+            if (kind == INLINE_LIST) {
+                return token = nextInlineItem();
+            }
+            if (kind == INLINE_DICT) {
+                return token = nextInlinePair();
+            }
+            return token = nextLine();
+        }
+        if (!started) {
+            started = true;
+            nodes = 1;
+            push(rootKind, rootIndent);
+            return token = rootKind == DICT ? HumlToken.START_DICT : HumlToken.START_LIST;
+        }
+        return token = HumlToken.END_DOCUMENT;
+    }
+
+    public HumlToken token() {
+        return token;
+    }
+
+    /**
+     * Returns the number of open containers, the root dict included.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the 1-based number of the line the current token was read from.
+     */
+    public int line() {
+        return line + 1;
+    }
+
+    public String source() {
+        return src;
+    }
+
+    /**
+     * Returns the current key. Only valid when the current token is {@link HumlToken#KEY}.
+     */
+    public String key() {
+        return src.substring(keyFrom, keyTo);
+    }
+
+    /**
+     * Returns whether the current key equals the given name, without copying the key out of the
+     * source. Only valid when the current token is {@link HumlToken#KEY}.
+     */
+    public boolean keyEquals(String name) {
+        return keyTo - keyFrom == name.length() && src.startsWith(name, keyFrom);
+    }
+
+    /**
+     * Returns the start index of the current key in {@link #source()}.
+     */
+    public int keyStart() {
+        return keyFrom;
+    }
+
+    /**
+     * Returns the end index, exclusive, of the current key in {@link #source()}.
+     */
+    public int keyEnd() {
+        return keyTo;
+    }
+
+    /**
+     * Returns the start index of the current string value in {@link #source()}.
+     */
+    public int stringStart() {
+        return stringFrom;
+    }
+
+    /**
+     * Returns the end index, exclusive, of the current string value in {@link #source()}.
+     */
+    public int stringEnd() {
+        return stringTo;
+    }
+
+    /**
+     * Returns whether the current string value holds escape sequences, in which case the range
+     * from {@link #stringStart()} to {@link #stringEnd()} is not the value itself.
+     */
+    public boolean stringHasEscapes() {
+        return stringEscaped;
+    }
+
+    /**
+     * Returns the current string value, as a view over the source if the tokenizer was created
+     * with {@link ParserOptions#shareSourceStrings(boolean)}. Values with escape sequences are
+     * always decoded into a copy.
+     */
+    public CharSequence stringValue() {
+        if (stringEscaped) {
+            try {
+                return HumlStrings.unescape(src, stringFrom, stringTo);
+            } catch (IllegalArgumentException e) {
+                throw new ParserException(e.getMessage() + " at line " + (line + 1));
+            }
+        }
+        if (shareSourceStrings) {
+            return new HumlStringView(src, stringFrom, stringTo);
+        }
+        return src.substring(stringFrom, stringTo);
+    }
+
+    public long longValue() {
+        return longValue;
+    }
+
+    public double doubleValue() {
+        return doubleValue;
+    }
+
+    public boolean booleanValue() {
+        return booleanValue;
+    }
+
+    /**
+     * Skips the value starting at the current token, leaving the tokenizer on its last token: the
+     * scalar itself, or the closing token of a container. Multi-line blocks are skipped by
+     * comparing the indentation of the following lines, without tokenizing them, so the skipped
+     * lines are not validated.
+     *
+     * @return The new current token.
+     */
+    public HumlToken skipValue() {
+        if (token != HumlToken.START_DICT && token != HumlToken.START_LIST) {
+            return token;
+        }
+        byte kind = frameKinds[depth - 1];
+        if (kind == INLINE_DICT || kind == INLINE_LIST) {
+            cursor = cursorEnd;
+            inlineValueNext = false;
+        } else {
+            int indent = frameIndents[depth - 1];
+            int i = nextContentLine(line + 1);
+            while (i < lineCount && countLeadingSpaces(i) >= indent) {
+                i = nextContentLine(i + 1);
+            }
+            line = i - 1;
+        }
+        return token = pop();
+    }
+
+    private HumlToken nextLine() {
+        int i = nextContentLine(line + 1);
+        if (i == lineCount) {
+            return pop(); // end of document closes every open block
+        }
+
+        int indent = countLeadingSpaces(i);
+        int frameIndent = frameIndents[depth - 1];
+        if (indent < frameIndent) {
+            line = i - 1; // the line belongs to an enclosing block
+            return pop();
+        }
+        if (indent > frameIndent) {
+            if (frameKinds[depth - 1] == LIST) {
+                throw new ParserException("Invalid list indentation at line " + (i + 1));
+            }
+            throw new ParserException("Invalid indentation at line " + (i + 1));
+        }
+
+        line = i;
+        enterLine(i);
+        int from = trimStart(lineStarts[i], lineEnds[i]);
+        int to = trimEnd(from, lineEnds[i]);
+        return frameKinds[depth - 1] == DICT ? dictEntry(from, to) : listItem(from, to);
+    }
+
+    private HumlToken dictEntry(int from, int to) {
+        int vectorIndicator = indexOfDoubleColon(from, to);
+        if (vectorIndicator >= 0) {
+            keyFrom = from;
+            keyTo = trimEnd(from, vectorIndicator);
+            entry(true);
+            vectorValue(trimStart(vectorIndicator + 2, to), to);
+            return HumlToken.KEY;
+        }
+
+        int colon = find(':', from, to);
+        if (colon >= 0) {
+            keyFrom = from;
+            keyTo = trimEnd(from, colon);
+            entry(true);
+            valueFrom = trimStart(colon + 1, to);
+            valueTo = to;
+            // "key:" with nothing after it opens a nested dict
+            pendingValue = valueFrom < to ? SCALAR_VALUE : BLOCK_DICT_VALUE;
+            return HumlToken.KEY;
+        }
+
+        throw new ParserException("Invalid line at " + (line + 1) + ": " + src.substring(lineStarts[line], lineEnds[line]));
+    }
+
+    private void vectorValue(int from, int to) {
+        if (from == to) {
+            // multi-line vector, a list if the next line is a list item
+            pendingValue = nextContentStartsWith(line + 1, '-') ? BLOCK_LIST_VALUE : BLOCK_DICT_VALUE;
+            return;
+        }
+
+        int firstComma = find(',', from, to);
+        valueFrom = from;
+        valueTo = to;
+        if (firstComma >= 0) {
+            valueTo = stripTrailingCommas(from, to);
+            pendingValue = find(':', from, to) >= 0 ? INLINE_DICT_VALUE : INLINE_LIST_VALUE;
+        } else if (matches(from, to, "[]")) {
+            valueTo = from;
+            pendingValue = INLINE_LIST_VALUE;
+        } else if (matches(from, to, "{}")) {
+            valueTo = from;
+            pendingValue = INLINE_DICT_VALUE;
+        } else {
+            // single value list
+            pendingValue = INLINE_LIST_VALUE;
+        }
+    }
+
+    private HumlToken listItem(int from, int to) {
+        if (to - from < 2 || src.charAt(from) != '-' || src.charAt(from + 1) != ' ') {
+            throw new ParserException("Invalid list item at line " + (line + 1));
+        }
+        entry(false);
+
+        int itemFrom = trimStart(from + 2, to);
+        if (matches(from + 2, to, "::")) {
+            pendingValue = nextContentStartsWith(line + 1, '-') ? BLOCK_LIST_VALUE : BLOCK_DICT_VALUE;
+            return emitPendingValue();
+        }
+        if (matches(itemFrom, to, "[]") || matches(itemFrom, to, "{}")) {
+            // empty vector item
+            valueFrom = itemFrom;
+            valueTo = itemFrom;
+            pendingValue = src.charAt(itemFrom) == '[' ? INLINE_LIST_VALUE : INLINE_DICT_VALUE;
+            return emitPendingValue();
+        }
+        return scalar(itemFrom, to);
+    }
+
+    private HumlToken emitPendingValue() {
+        int kind = pendingValue;
+        pendingValue = NO_VALUE;
+        switch (kind) {
+            case SCALAR_VALUE:
+                return scalar(valueFrom, valueTo);
+            case INLINE_LIST_VALUE:
+                push(INLINE_LIST, -1);
+                cursor = valueFrom;
+                cursorEnd = valueTo;
+                return HumlToken.START_LIST;
+            case INLINE_DICT_VALUE:
+                push(INLINE_DICT, -1);
+                cursor = valueFrom;
+                cursorEnd = valueTo;
+                inlineValueNext = false;
+                return HumlToken.START_DICT;
+            case BLOCK_LIST_VALUE:
+                push(LIST, frameIndents[depth - 1] + 2);
+                return HumlToken.START_LIST;
+            default:
+                push(DICT, frameIndents[depth - 1] + 2);
+                return HumlToken.START_DICT;
+        }
+    }
+
+    private HumlToken nextInlineItem() {
+        if (cursor >= cursorEnd) {
+            return pop();
+        }
+        entry(false);
+        int itemEnd = indexOfOrEnd(',', cursor, cursorEnd);
+        int from = trimStart(cursor, itemEnd);
+        cursor = itemEnd + 1;
+        return scalar(from, trimEnd(from, itemEnd));
+    }
+
+    private HumlToken nextInlinePair() {
+        if (inlineValueNext) {
+            inlineValueNext = false;
+            return scalar(valueFrom, valueTo);
+        }
+        if (cursor >= cursorEnd) {
+            return pop();
+        }
+        int pairEnd = indexOfOrEnd(',', cursor, cursorEnd);
+        int colon = find(':', cursor, pairEnd);
+        if (colon < 0) {
+            throw new ParserException("Invalid key-value pair at line " + (line + 1));
+        }
+        keyFrom = trimStart(cursor, colon);
+        keyTo = trimEnd(keyFrom, colon);
+        entry(true);
+        valueFrom = trimStart(colon + 1, pairEnd);
+        valueTo = trimEnd(valueFrom, pairEnd);
+        cursor = pairEnd + 1;
+        inlineValueNext = true;
+        return HumlToken.KEY;
+    }
+
+    private void push(byte kind, int indent) {
+        if (depth == maxDepth) {
+            throw new ParserException("Maximum nesting depth of " + maxDepth + " exceeded at line " + (line + 1));
+        }
+        if (depth == frameKinds.length) {
+            frameKinds = Arrays.copyOf(frameKinds, depth * 2);
+            frameIndents = Arrays.copyOf(frameIndents, depth * 2);
+            frameEntries = Arrays.copyOf(frameEntries, depth * 2);
+        }
+        frameKinds[depth] = kind;
+        frameIndents[depth] = indent;
+        frameEntries[depth] = 0;
+        depth++;
+    }
+
+    /**
+     * Counts a new entry of the innermost container, and its key if it has one, against the
+     * read limits.
+     */
+    private void entry(boolean keyed) {
+        if (++frameEntries[depth - 1] > maxEntries) {
+            throw new ParserException("Maximum of " + maxEntries + " entries per container exceeded at line " + (line + 1));
+        }
+        if (++nodes > maxNodes) {
+            throw new ParserException("Maximum of " + maxNodes + " values exceeded at line " + (line + 1));
+        }
+        if (keyed && keyTo - keyFrom > maxKeyLength) {
+            throw new ParserException("Maximum key length of " + maxKeyLength + " exceeded at line " + (line + 1));
+        }
+    }
+
+    private HumlToken string(int from, int to, boolean quoted) {
+        if (to - from > maxStringLength) {
+            throw new ParserException("Maximum string length of " + maxStringLength + " exceeded at line " + (line + 1));
+        }
+        stringFrom = from;
+        stringTo = to;
+        // one intrinsic scan; strings without a backslash are used as they are
+        stringEscaped = quoted && src.indexOf('\\', from, to) >= 0;
+        return HumlToken.STRING;
+    }
+
+    /**
+     * Checks whether the character at the position is escaped by an odd number of backslashes
+     */
+    private boolean isEscaped(int position) {
+        int i = position;
+        while (i > 0 && src.charAt(i - 1) == '\\') {
+            i--;
+        }
+        return ((position - i) & 1) != 0;
+    }
+
+    private HumlToken pop() {
+        byte kind = frameKinds[--depth];
+        return kind == DICT || kind == INLINE_DICT ? HumlToken.END_DICT : HumlToken.END_LIST;
+    }
+
+    /**
+     * Classifies the trimmed source range {@code [from, to)} as a scalar token
+     */
+    private HumlToken scalar(int from, int to) {
+        int length = to - from;
+        if (length >= 2 && src.charAt(from) == '"' && src.charAt(to - 1) == '"' && !isEscaped(to - 1)) {
+            return string(from + 1, to - 1, true);
+        }
+        if (length == 4 && src.regionMatches(true, from, "null", 0, 4)) {
+            return HumlToken.NULL;
+        }
+        if (length == 4 && src.regionMatches(true, from, "true", 0, 4)) {
+            booleanValue = true;
+            return HumlToken.BOOLEAN;
+        }
+        if (length == 5 && src.regionMatches(true, from, "false", 0, 5)) {
+            booleanValue = false;
+            return HumlToken.BOOLEAN;
+        }
+        char first = length > 0 ? src.charAt(from) : 0;
+        if (first == '-' || (first >= '0' && first <= '9')) {
+            int kind = numbers.decode(src, from, to);
+            if (kind == NumberDecoder.LONG) {
+                longValue = numbers.longValue();
+                return HumlToken.LONG;
+            } else if (kind == NumberDecoder.DOUBLE) {
+                doubleValue = numbers.doubleValue();
+                return HumlToken.DOUBLE;
+            }
+        }
+        return string(from, to, false); // fallback
+    }
+
+    /**
+     * Records the bounds of every line and the position of every structural character. Lines
+     * are never copied out of the source; the tokenizer works on index ranges so that values can
+     * be sliced straight from the input.
+     */
+    @SuppressWarnings("deprecation")
+    private void splitLines() {
+        // Scan a low-byte projection of the source in chunks; candidates that came from the
+        // low byte of a wider character are filtered out against the source below.
+        StructuralScanner scanner = StructuralScanner.get();
+        int chunkSize = Math.min(SCAN_CHUNK_SIZE, Math.max(rangeTo - rangeFrom, 1));
+        byte[] chunk = buffers != null && buffers.chunk.length >= chunkSize ? buffers.chunk : new byte[chunkSize];
+        structural.clear();
+        for (int start = rangeFrom; start < rangeTo; start += chunk.length) {
+            int end = Math.min(start + chunk.length, rangeTo);
+            src.getBytes(start, end, chunk, 0);
+            scanner.scan(chunk, 0, end - start, start, structural);
+        }
+
+        if (buffers != null) {
+            lineStarts = buffers.lineStarts;
+            lineEnds = buffers.lineEnds;
+            lineFirstStructural = buffers.lineFirstStructural;
+        } else {
+            lineStarts = new int[16];
+            lineEnds = new int[16];
+            lineFirstStructural = new int[17];
+        }
+        int start = rangeFrom;
+        for (int k = 0; k < structural.size(); k++) {
+            int position = structural.get(k);
+            if (src.charAt(position) == '\n') {
+                addLine(start, position, k);
+                start = position + 1;
+            }
+        }
+        addLine(start, rangeTo, structural.size());
+
+        if (buffers != null) {
+            // hand the grown arrays on to the next tokenizer
+            buffers.chunk = chunk;
+            buffers.lineStarts = lineStarts;
+            buffers.lineEnds = lineEnds;
+            buffers.lineFirstStructural = lineFirstStructural;
+        }
+    }
+
+    private void addLine(int start, int end, int structuralEnd) {
+        if (lineCount + 1 == lineFirstStructural.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+            lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+            lineFirstStructural = Arrays.copyOf(lineFirstStructural, lineCount * 2 + 1);
+        }
+        lineStarts[lineCount] = start;
+        lineEnds[lineCount] = end > start && src.charAt(end - 1) == '\r' ? end - 1 : end;
+        lineCount++;
+        lineFirstStructural[lineCount] = structuralEnd;
+    }
+
+    /**
+     * Returns the first line at or after {@code line} that is neither blank nor a comment, or
+     * the line count if there is none.
+     */
+    private int nextContentLine(int line) {
+        for (int i = line; i < lineCount; i++) {
+            int from = trimStart(lineStarts[i], lineEnds[i]);
+            if (from < lineEnds[i] && src.charAt(from) != '#') {
+                return i;
+            }
+        }
+        return lineCount;
+    }
+
+    /**
+     * Checks whether the next non-blank, non-comment line starts with the given character
+     */
+    private boolean nextContentStartsWith(int line, char c) {
+        int i = nextContentLine(line);
+        return i < lineCount && src.charAt(trimStart(lineStarts[i], lineEnds[i])) == c;
+    }
+
+    private void enterLine(int line) {
+        lineStructuralFrom = lineFirstStructural[line];
+        lineStructuralTo = lineFirstStructural[line + 1];
+    }
+
+    /**
+     * Finds the first occurrence of a structural character in {@code [from, to)} of the current
+     * line using the positions recorded by the scanner. Occurrences inside quoted strings are
+     * skipped; the quotes are structural characters themselves, so this takes no extra pass.
+     * The range must not start inside a string.
+     */
+    private int find(char c, int from, int to) {
+        int k = structural.firstAtOrAfter(from, lineStructuralFrom, lineStructuralTo);
+        boolean quoted = false;
+        for (; k < lineStructuralTo; k++) {
+            int position = structural.get(k);
+            if (position >= to) {
+                break;
+            }
+            char found = src.charAt(position);
+            if (found == '"') {
+                if (!isEscaped(position)) {
+                    quoted = !quoted;
+                }
+            } else if (found == c && !quoted) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfDoubleColon(int from, int to) {
+        int colon = find(':', from, to);
+        while (colon >= 0 && colon + 1 < to) {
+            if (src.charAt(colon + 1) == ':') {
+                return colon;
+            }
+            colon = find(':', colon + 1, to);
+        }
+        return -1;
+    }
+
+    private int indexOfOrEnd(char c, int from, int to) {
+        int index = find(c, from, to);
+        return index < 0 ? to : index;
+    }
+
+    private int stripTrailingCommas(int from, int to) {
+        while (to > from && src.charAt(to - 1) == ',') {
+            to--;
+        }
+        return to;
+    }
+
+    private boolean matches(int from, int to, String s) {
+        return to - from == s.length() && src.startsWith(s, from);
+    }
+
+    private int trimStart(int from, int to) {
+        while (from < to && src.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimEnd(int from, int to) {
+        while (to > from && src.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    private int countLeadingSpaces(int line) {
+        int from = lineStarts[line];
+        int to = lineEnds[line];
+        int count = 0;
+        while (from + count < to && src.charAt(from + count) == ' ') {
+            count++;
+        }
+        return count;
+    }
+}
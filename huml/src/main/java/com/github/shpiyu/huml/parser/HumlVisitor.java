@@ -0,0 +1,55 @@
+package com.github.shpiyu.huml.parser;
+
+/**
+ * Receives the contents of a document from {@link Parser#parse(String, HumlVisitor)} in
+ * document order, without a tree being built.
+ *
+ * <p>Every container is reported by {@link #startDict()} or {@link #startList()}, its contents,
+ * then {@link #end()}; the root dict included. Dict entries are a {@link #key(CharSequence)}
+ * followed by the value. Keys and strings are passed as a flyweight over the source that is
+ * reused by the next call, so it must be copied with {@code toString()} to be kept.
+ *
+ * <p>Returning false from any method stops the parse right away. Every method does nothing and
+ * continues by default, so visitors only implement what they need.
+ */
+public interface HumlVisitor {
+
+    default boolean startDict() {
+        return true;
+    }
+
+    default boolean startList() {
+        return true;
+    }
+
+    /**
+     * Closes the innermost dict or list.
+     */
+    default boolean end() {
+        return true;
+    }
+
+    default boolean key(CharSequence key) {
+        return true;
+    }
+
+    default boolean stringValue(CharSequence value) {
+        return true;
+    }
+
+    default boolean longValue(long value) {
+        return true;
+    }
+
+    default boolean doubleValue(double value) {
+        return true;
+    }
+
+    default boolean booleanValue(boolean value) {
+        return true;
+    }
+
+    default boolean nullValue() {
+        return true;
+    }
+}
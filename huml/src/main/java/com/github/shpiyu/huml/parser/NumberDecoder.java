@@ -0,0 +1,267 @@
+package com.github.shpiyu.huml.parser;
+
+import java.math.BigInteger;
+
+/**
+ * Decodes HUML numbers ({@code -?\d+(\.\d+)?([eE][+-]?\d+)?}) straight from a range of a
+ * character sequence in a single pass, without regular expressions or intermediate strings.
+ *
+ * <p>Integers that fit in a {@code long} decode to a {@code long}. Everything else, including
+ * integers with an exponent or too many digits, decodes to the correctly rounded {@code double}.
+ * Doubles are computed with Clinger's exact fast path when possible, then with the Eisel-Lemire
+ * algorithm, and only fall back to {@link Double#parseDouble(String)} for the rare inputs neither
+ * can decide.
+ *
+ * <p>Instances hold the last decoded value and are not thread-safe; reuse one per parse.
+ */
+public final class NumberDecoder {
+    public static final int NOT_A_NUMBER = 0;
+    public static final int LONG = 1;
+    public static final int DOUBLE = 2;
+
+    private static final int MAX_SIGNIFICANT_DIGITS = 19;
+    private static final int MAX_EXPONENT_DIGITS_VALUE = 100_000;
+
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private long longValue;
+    private double doubleValue;
+
+    /**
+     * Decodes {@code s[from, to)}.
+     *
+     * @return {@link #LONG}, {@link #DOUBLE} or {@link #NOT_A_NUMBER} if the range is not a number.
+     */
+    public int decode(CharSequence s, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && s.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+
+        long significand = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+
+        int integerStart = i;
+        char c;
+        while (i < to && (c = s.charAt(i)) >= '0' && c <= '9') {
+            if (significantDigits < MAX_SIGNIFICANT_DIGITS) {
+                significand = significand * 10 + (c - '0');
+                if (significand != 0) {
+                    significantDigits++;
+                }
+            } else {
+                exponent++;
+                truncated |= c != '0';
+            }
+            i++;
+        }
+        if (i == integerStart) {
+            return NOT_A_NUMBER;
+        }
+
+        boolean isDouble = false;
+        if (i < to && s.charAt(i) == '.') {
+            int fractionStart = ++i;
+            while (i < to && (c = s.charAt(i)) >= '0' && c <= '9') {
+                if (significantDigits < MAX_SIGNIFICANT_DIGITS) {
+                    significand = significand * 10 + (c - '0');
+                    if (significand != 0) {
+                        significantDigits++;
+                    }
+                    exponent--;
+                } else {
+                    truncated |= c != '0';
+                }
+                i++;
+            }
+            if (i == fractionStart) {
+                return NOT_A_NUMBER;
+            }
+            isDouble = true;
+        }
+
+        if (i < to && ((c = s.charAt(i)) == 'e' || c == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && ((c = s.charAt(i)) == '+' || c == '-')) {
+                negativeExponent = c == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int explicitExponent = 0;
+            while (i < to && (c = s.charAt(i)) >= '0' && c <= '9') {
+                if (explicitExponent < MAX_EXPONENT_DIGITS_VALUE) {
+                    explicitExponent = explicitExponent * 10 + (c - '0');
+                }
+                i++;
+            }
+            if (i == exponentStart) {
+                return NOT_A_NUMBER;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+            isDouble = true;
+        }
+
+        if (i != to) {
+            return NOT_A_NUMBER;
+        }
+
+        if (!isDouble && !truncated && exponent == 0) {
+            // significand is unsigned and may use all 64 bits
+            if (negative ? Long.compareUnsigned(significand, Long.MIN_VALUE) <= 0 : significand >= 0) {
+                longValue = negative ? -significand : significand;
+                return LONG;
+            }
+        }
+
+        doubleValue = toDouble(s, from, to, negative, significand, exponent, truncated);
+        return DOUBLE;
+    }
+
+    public long longValue() {
+        return longValue;
+    }
+
+    public double doubleValue() {
+        return doubleValue;
+    }
+
+    /**
+     * Returns the value decoded last as a {@code double}, whichever kind it was.
+     */
+    public double numberAsDouble(int kind) {
+        return kind == LONG ? longValue : doubleValue;
+    }
+
+    private static double toDouble(CharSequence s, int from, int to, boolean negative, long significand,
+            int exponent, boolean truncated) {
+        if (significand == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (!truncated && exponent >= -22 && exponent <= 22 && Long.compareUnsigned(significand, 1L << 53) <= 0) {
+            // Clinger's fast path: both operands are exact, so one rounding gives the right answer
+            double d = significand;
+            d = exponent < 0 ? d / EXACT_POWERS_OF_TEN[-exponent] : d * EXACT_POWERS_OF_TEN[exponent];
+            return negative ? -d : d;
+        }
+
+        long bits = eiselLemire(significand, exponent);
+        if (truncated && bits >= 0 && bits != eiselLemire(significand + 1, exponent)) {
+            // the dropped digits could change the rounding
+            bits = -1;
+        }
+        if (bits < 0) {
+            return Double.parseDouble(s.subSequence(from, to).toString());
+        }
+        double d = Double.longBitsToDouble(bits);
+        return negative ? -d : d;
+    }
+
+    /**
+     * Computes the bits of the double nearest to {@code w * 10^q}, or -1 if it cannot be decided
+     * without more precision.
+     *
+     * @see <a href="https://arxiv.org/abs/2101.11408">Number Parsing at a Gigabyte per Second</a>
+     */
+    static long eiselLemire(long w, int q) {
+        if (q < PowersOfFive.SMALLEST_POWER) {
+            return 0L;
+        }
+        if (q > PowersOfFive.LARGEST_POWER) {
+            return 0x7FFL << 52;
+        }
+
+        int leadingZeros = Long.numberOfLeadingZeros(w);
+        w <<= leadingZeros;
+
+        // 128-bit approximation of w * 5^q, refined only when the low bits are inconclusive
+        int index = 2 * (q - PowersOfFive.SMALLEST_POWER);
+        long[] table = PowersOfFive.TABLE;
+        long high = Math.unsignedMultiplyHigh(w, table[index]);
+        long low = w * table[index];
+        long precisionMask = 0xFFFFFFFFFFFFFFFFL >>> 55;
+        if ((high & precisionMask) == precisionMask) {
+            long secondHigh = Math.unsignedMultiplyHigh(w, table[index + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0) {
+                high++;
+            }
+        }
+
+        int upperBit = (int) (high >>> 63);
+        int shift = upperBit + 64 - 52 - 3;
+        long mantissa = high >>> shift;
+        int power2 = (((152170 + 65536) * q) >> 16) + 63 + upperBit - leadingZeros + 1023;
+
+        if (power2 <= 0) {
+            // subnormal
+            if (-power2 + 1 >= 64) {
+                return 0L;
+            }
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = mantissa < (1L << 52) ? 0 : 1;
+            return (long) power2 << 52 | (mantissa & ((1L << 52) - 1));
+        }
+
+        if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1
+                && (mantissa << shift) == high) {
+            // exactly halfway between two doubles: round to even
+            mantissa &= ~1L;
+        }
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << 52)) {
+            mantissa = 1L << 52;
+            power2++;
+        }
+        mantissa &= ~(1L << 52);
+        if (power2 >= 0x7FF) {
+            return 0x7FFL << 52;
+        }
+        return (long) power2 << 52 | mantissa;
+    }
+
+    /**
+     * Truncated 128-bit approximations of 5^q for every q a double can need, built on first use.
+     */
+    private static final class PowersOfFive {
+        static final int SMALLEST_POWER = -342;
+        static final int LARGEST_POWER = 308;
+        static final long[] TABLE = build();
+
+        private static long[] build() {
+            long[] table = new long[2 * (LARGEST_POWER - SMALLEST_POWER + 1)];
+            BigInteger five = BigInteger.valueOf(5);
+            BigInteger twoTo128 = BigInteger.ONE.shiftLeft(128);
+            for (int q = SMALLEST_POWER; q <= LARGEST_POWER; q++) {
+                BigInteger c;
+                if (q < 0) {
+                    BigInteger power = five.pow(-q);
+                    int z = power.subtract(BigInteger.ONE).bitLength();
+                    int b = q >= -27 ? z + 127 : 2 * z + 128;
+                    c = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+                    if (c.compareTo(twoTo128) >= 0) {
+                        c = c.shiftRight(c.bitLength() - 128);
+                    }
+                } else {
+                    c = five.pow(q);
+                    c = c.bitLength() < 128 ? c.shiftLeft(128 - c.bitLength()) : c.shiftRight(c.bitLength() - 128);
+                }
+                int index = 2 * (q - SMALLEST_POWER);
+                table[index] = c.shiftRight(64).longValue();
+                table[index + 1] = c.longValue();
+            }
+            return table;
+        }
+    }
+}
@@ -1,206 +1,153 @@
 package com.github.shpiyu.huml.parser;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 import com.github.shpiyu.huml.HumlDocument;
 import com.github.shpiyu.huml.HumlValue;
 
 public class Parser {
-    private static final Pattern NUMBER_PATTERN = Pattern.compile("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?");
-    private static final Pattern BOOLEAN_PATTERN = Pattern.compile("true|false", Pattern.CASE_INSENSITIVE);
 
     public static HumlDocument parse(String huml) {
-        if (huml == null || huml.trim().isEmpty()) {
+        return parse(huml, ParserOptions.defaults());
+    }
+
+    public static HumlDocument parse(String huml, ParserOptions options) {
+        if (huml == null || isBlank(huml)) {
             throw new ParserException("Empty document is undefined");
         }
 
-        String[] lines = huml.split("\\r?\\n");
-        Map<String, HumlValue> rootMap = new LinkedHashMap<>(); 
-        parseBlock(lines, 0, 0, rootMap);
+        HumlTokenizer tokens = new HumlTokenizer(huml, options);
+        tokens.next();
+        return new HumlDocument(readValue(tokens));
+    }
 
-        return new HumlDocument(HumlValue.ofDict(rootMap));
+    public static boolean parse(String huml, HumlVisitor visitor) {
+        return parse(huml, ParserOptions.defaults(), visitor);
     }
 
     /**
-     * Recursive block parser
+     * Reports the contents of a document to a visitor in one pass, without building a tree.
+     * Beyond the tokenizer itself nothing is allocated per value: numbers and booleans are passed
+     * as primitives, keys and strings as one reused view over the source. Only strings with
+     * escape sequences are decoded into copies.
+     *
+     * @param huml The document.
+     * @param options The parser options.
+     * @param visitor The visitor to report to.
+     * @return False if the visitor stopped the parse, true if the whole document was visited.
+     * @throws ParserException If the document is malformed.
      */
-    private static int parseBlock(String[] lines, int startLine, int indentLevel, Map<String, HumlValue> map) {
-        for (int i = startLine; i < lines.length; i++) {
-            String line = lines[i];
-            if (line.trim().isEmpty() || line.trim().startsWith("#")) {
-                continue; // skip blank lines and comments
-            }
-
-            int leadingSpaces = countLeadingSpaces(line);
-            if (leadingSpaces < indentLevel) {
-                return i; // end of this block
-            }
-            if (leadingSpaces > indentLevel) {
-                throw new ParserException("Invalid indentation at line " + (i + 1));
-            }
-
-            String trimmed = line.trim();
-
-            // Handle vectors
-            if (trimmed.contains("::")) {
-                String[] parts = trimmed.split("::", 2);
-                String key = parts[0].trim();
-                String valuePart = parts.length > 1 ? parts[1].trim() : "";
-
-                if (valuePart.contains(",") && valuePart.contains(":")) {
-                    // inline dict
-                    Map<String, HumlValue> dict = new LinkedHashMap<>();
-                    for (String pair: valuePart.split(",")) {
-                        String[] kv = pair.split(":", 2);
-                        if (kv.length != 2) {
-                            throw new ParserException("Invalid key-value pair at line " + (i + 1));
-                        }
-                        String k = kv[0].trim();
-                        String v = kv[1].trim();
-                        dict.put(k, parseScalar(v));
-                    }
-                    map.put(key, HumlValue.ofDict(dict));
-                } else if (valuePart.contains(",")) {
-                    // inline list
-                    List<HumlValue> list = new ArrayList<>();
-                    for (String item : valuePart.split(",")) {
-                        list.add(parseScalar(item.trim()));
-                    }
-                    map.put(key, HumlValue.ofList(list));
-                } else if (!valuePart.isEmpty()) {
-                    if (valuePart.equals("[]")) {
-                        // empty list
-                        map.put(key, HumlValue.ofList(List.of()));
-                    } else if (valuePart.equals("{}")) {
-                        // empty dict
-                        map.put(key, HumlValue.ofDict(Map.of()));
-                    } else {
-                        // single value list
-                        map.put(key, HumlValue.ofList(List.of(parseScalar(valuePart))));
-                    }
-                } else {
-                    // multi-line vector
-                    int j = i + 1;
-                    while (j < lines.length && (lines[j].trim().isEmpty() || lines[j].trim().startsWith("#"))) {
-                        j++;
-                    }
-                    if (j < lines.length && lines[j].trim().startsWith("-")) {
-                        // multi-line list
-                        List<HumlValue> list = new ArrayList<>();
-                        i = parseList(lines, i + 1, indentLevel + 2, list) - 1;
-                        map.put(key, HumlValue.ofList(list));
-                    } else {
-                        // multi-line dict
-                        Map<String, HumlValue> dict = new LinkedHashMap<>();
-                        i = parseBlock(lines, i + 1, indentLevel + 2, dict) - 1;
-                        map.put(key, HumlValue.ofDict(dict));
-                    }
-                }
-            }
-            // Handle dict entry
-            else if (trimmed.contains(":")) {
-                String[] parts = trimmed.split(":", 2);
-                String key = parts[0].trim();
-                String valuePart = parts.length > 1 ? parts[1].trim() : "";
+    public static boolean parse(String huml, ParserOptions options, HumlVisitor visitor) {
+        if (huml == null || isBlank(huml)) {
+            throw new ParserException("Empty document is undefined");
+        }
 
-                if (!valuePart.isEmpty()) {
-                    map.put(key, parseScalar(valuePart));
-                } else {
-                    // nested dict
-                    Map<String, HumlValue> child = new LinkedHashMap<>();
-                    i = parseBlock(lines, i + 1, indentLevel + 2, child) - 1;
-                    map.put(key, HumlValue.ofDict(child));
-                }
-            } else {
-                throw new ParserException("Invalid line at " + (i + 1) + ": " + line);
+        HumlTokenizer tokens = new HumlTokenizer(huml, options);
+        SourceSlice slice = new SourceSlice(huml);
+        for (HumlToken token = tokens.next(); token != HumlToken.END_DOCUMENT; token = tokens.next()) {
+            boolean proceed = switch (token) {
+                case START_DICT -> visitor.startDict();
+                case START_LIST -> visitor.startList();
+                case END_DICT, END_LIST -> visitor.end();
+                case KEY -> visitor.key(slice.set(tokens.keyStart(), tokens.keyEnd()));
+                case STRING -> visitor.stringValue(tokens.stringHasEscapes() ? tokens.stringValue()
+                        : slice.set(tokens.stringStart(), tokens.stringEnd()));
+                case LONG -> visitor.longValue(tokens.longValue());
+                case DOUBLE -> visitor.doubleValue(tokens.doubleValue());
+                case BOOLEAN -> visitor.booleanValue(tokens.booleanValue());
+                case NULL -> visitor.nullValue();
+                case END_DOCUMENT -> true;
+            };
+            if (!proceed) {
+                return false;
             }
         }
-        return lines.length;
+        return true;
     }
 
     /**
-     * Parses a list block
+     * Builds the value starting at the current token of the tokenizer. Containers are read up to
+     * and including their closing token. Nesting is tracked on an explicit stack, so the depth of
+     * the value is not limited by the thread stack.
      */
-    private static int parseList(String[] lines, int startLine, int indentLevel, List<HumlValue> list) {
-        for (int i = startLine; i < lines.length; i++) {
-            String line = lines[i];
-            if (line.trim().isEmpty() || line.trim().startsWith("#")) {
-                continue;
-            }
-
-            if (!line.trim().startsWith("- ")) {
-                throw new ParserException("Invalid list item at line " + (i + 1));
-            }
-
-            int leadingSpaces = countLeadingSpaces(line);
-            if (leadingSpaces < indentLevel) {
-                return i; // end of list
-            }
-            if (leadingSpaces > indentLevel) {
-                throw new ParserException("Invalid list indentation at line " + (i + 1));
-            }
-
-            // remove the "- " prefix from list item
-            line = line.trim().substring(2);
-
-            // nested vector
-            if (line.equals("::")) {
-                int j = i + 1;
-                while (j < lines.length && (lines[j].trim().isEmpty() || lines[j].trim().startsWith("#"))) {
-                    j++;
-                }
-                if (j < lines.length && lines[j].trim().startsWith("-")) {
-                    // multi-line list
-                    List<HumlValue> nestedList = new ArrayList<>();
-                    i = parseList(lines, i + 1, indentLevel + 2, nestedList) - 1;
-                    list.add(HumlValue.ofList(nestedList));
+    @SuppressWarnings("unchecked")
+    public static HumlValue readValue(HumlTokenizer tokens) {
+        Object[] containers = new Object[16];
+        String[] keys = new String[16];
+        int depth = 0;
+
+        HumlToken token = tokens.token();
+        while (true) {
+            HumlValue value;
+            switch (token) {
+                case START_DICT:
+                case START_LIST:
+                    if (depth == containers.length) {
+                        containers = Arrays.copyOf(containers, depth * 2);
+                        keys = Arrays.copyOf(keys, depth * 2);
+                    }
+                    containers[depth++] = token == HumlToken.START_DICT ? new LinkedHashMap<>() : new ArrayList<>();
+                    token = tokens.next();
                     continue;
-                } else {
-                    // multi-line dict
-                    Map<String, HumlValue> nestedDict = new LinkedHashMap<>();
-                    i = parseBlock(lines, i + 1, indentLevel + 2, nestedDict) - 1;
-                    list.add(HumlValue.ofDict(nestedDict));
+                case KEY:
+                    keys[depth - 1] = tokens.key();
+                    token = tokens.next();
                     continue;
-                }
+                case END_DICT:
+                    value = HumlValue.ofDict((Map<String, HumlValue>) containers[--depth]);
+                    break;
+                case END_LIST:
+                    value = HumlValue.ofList((List<HumlValue>) containers[--depth]);
+                    break;
+                case END_DOCUMENT:
+                    throw new ParserException("Unexpected end of document");
+                default:
+                    value = scalarValue(tokens);
             }
 
-            list.add(parseScalar(line.trim()));
+            if (depth == 0) {
+                return value;
+            }
+            Object parent = containers[depth - 1];
+            if (parent instanceof Map) {
+                ((Map<String, HumlValue>) parent).put(keys[depth - 1], value);
+            } else {
+                ((List<HumlValue>) parent).add(value);
+            }
+            token = tokens.next();
         }
-        return lines.length;
     }
 
     /**
-     * Parses a scalar value from a string
+     * Converts the current scalar token of the tokenizer to a value
      */
-    private static HumlValue parseScalar(String raw) {
-        if (raw.startsWith("\"") && raw.endsWith("\"")) {
-            return HumlValue.ofString(raw.substring(1, raw.length() - 1));
-        }
-        if (raw.equalsIgnoreCase("null")) {
-            return HumlValue.nullValue();
-        }
-        if (BOOLEAN_PATTERN.matcher(raw).matches()) {
-            return HumlValue.ofBoolean(Boolean.parseBoolean(raw));
+    public static HumlValue scalarValue(HumlTokenizer tokens) {
+        switch (tokens.token()) {
+            case STRING:
+                return HumlValue.ofString(tokens.stringValue());
+            case LONG:
+                return HumlValue.ofLong(tokens.longValue());
+            case DOUBLE:
+                return HumlValue.ofDouble(tokens.doubleValue());
+            case BOOLEAN:
+                return HumlValue.ofBoolean(tokens.booleanValue());
+            case NULL:
+                return HumlValue.nullValue();
+            default:
+                throw new ParserException("Expected a scalar at line " + tokens.line() + " but found " + tokens.token());
         }
-        if (NUMBER_PATTERN.matcher(raw).matches()) {
-            if (raw.contains(".")) {
-                return HumlValue.ofNumber(Double.parseDouble(raw));
-            } else {
-                return HumlValue.ofNumber(Long.parseLong(raw));
-            }
-        }
-        return HumlValue.ofString(raw); // fallback
     }
 
-    private static int countLeadingSpaces(String s) {
-        int count = 0;
-        while (count < s.length() && s.charAt(count) == ' ') {
-            count++;
+    private static boolean isBlank(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > ' ') {
+                return false;
+            }
         }
-        return count;
+        return true;
     }
 }
@@ -0,0 +1,87 @@
+package com.github.shpiyu.huml.parser;
+
+/**
+ * Options controlling how {@link Parser} builds a document.
+ */
+public class ParserOptions {
+    public static final int DEFAULT_MAX_DEPTH = HumlReadLimits.DEFAULT_MAX_DEPTH;
+
+    private boolean shareSourceStrings;
+    private HumlReadLimits readLimits = HumlReadLimits.defaults();
+    private boolean failOnUnknownKeys;
+
+    /**
+     * Returns a new instance with the default options.
+     */
+    public static ParserOptions defaults() {
+        return new ParserOptions();
+    }
+
+    /**
+     * When enabled, string values are backed by views over the source text instead of copies.
+     * The source string stays reachable for as long as any of its values are.
+     *
+     * @param enabled Whether string values should share the source.
+     * @return This instance.
+     */
+    public ParserOptions shareSourceStrings(boolean enabled) {
+        this.shareSourceStrings = enabled;
+        return this;
+    }
+
+    public boolean isShareSourceStrings() {
+        return shareSourceStrings;
+    }
+
+    /**
+     * Sets the maximum number of nested containers, the root dict included. Parsing fails with a
+     * {@link ParserException} as soon as a document nests deeper. Shorthand for
+     * {@link HumlReadLimits#maxDepth(int)} on the current limits.
+     *
+     * @param maxDepth The maximum depth, at least 1.
+     * @return This instance.
+     */
+    public ParserOptions maxDepth(int maxDepth) {
+        readLimits.maxDepth(maxDepth);
+        return this;
+    }
+
+    public int getMaxDepth() {
+        return readLimits.getMaxDepth();
+    }
+
+    /**
+     * Sets the resource limits documents are parsed under. The limits are read when a parse
+     * starts, so changing them afterwards does not affect parses in progress.
+     *
+     * @param readLimits The limits.
+     * @return This instance.
+     */
+    public ParserOptions readLimits(HumlReadLimits readLimits) {
+        if (readLimits == null) {
+            throw new IllegalArgumentException("readLimits must not be null");
+        }
+        this.readLimits = readLimits;
+        return this;
+    }
+
+    public HumlReadLimits getReadLimits() {
+        return readLimits;
+    }
+
+    /**
+     * When enabled, binding fails with a {@link ParserException} on keys the target type has no
+     * field for, instead of skipping their values.
+     *
+     * @param enabled Whether unknown keys are an error.
+     * @return This instance.
+     */
+    public ParserOptions failOnUnknownKeys(boolean enabled) {
+        this.failOnUnknownKeys = enabled;
+        return this;
+    }
+
+    public boolean isFailOnUnknownKeys() {
+        return failOnUnknownKeys;
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.shpiyu.huml.parser;
+
+/**
+ * A mutable view over a range of the source, moved along by the parser to hand out keys and
+ * strings without allocating.
+ */
+final class SourceSlice implements CharSequence {
+    private final String source;
+    private int start;
+    private int end;
+
+    SourceSlice(String source) {
+        this.source = source;
+    }
+
+    SourceSlice set(int start, int end) {
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= end - start) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + (end - start));
+        }
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to > end - start || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ") for length " + (end - start));
+        }
+        return source.substring(start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        return source.substring(start, end);
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.shpiyu.huml.parser;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of source positions that may hold a structural character.
+ */
+final class StructuralIndex {
+    private int[] positions = new int[64];
+    private int count;
+
+    void add(int position) {
+        if (count == positions.length) {
+            positions = Arrays.copyOf(positions, count * 2);
+        }
+        positions[count++] = position;
+    }
+
+    int get(int i) {
+        return positions[i];
+    }
+
+    int size() {
+        return count;
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    int capacity() {
+        return positions.length;
+    }
+
+    /**
+     * Returns the first index in {@code [lo, hi)} whose position is at or after {@code position},
+     * or {@code hi} if there is none.
+     */
+    int firstAtOrAfter(int position, int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (positions[mid] < position) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.shpiyu.huml.parser;
+
+/**
+ * Finds the positions of the characters the parser cares about ({@code \n}, {@code :},
+ * {@code ,} and {@code "}) in a buffer, several bytes at a time.
+ *
+ * <p>Scanners work on bytes. Callers scanning text that may contain characters above
+ * {@code U+00FF} must check each reported position against the source, since only the low byte
+ * of every character is compared.
+ *
+ * <p>A Vector API implementation is used when the {@code jdk.incubator.vector} module is
+ * available; otherwise a portable SWAR implementation is used. The choice can be forced with the
+ * {@code huml.scanner} system property set to {@code vector} or {@code swar}.
+ */
+abstract class StructuralScanner {
+    private static final StructuralScanner INSTANCE = load();
+
+    static StructuralScanner get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Appends {@code base + i} to the index for every {@code i} in {@code [from, to)} where
+     * {@code buf[i]} is a structural character.
+     */
+    abstract void scan(byte[] buf, int from, int to, int base, StructuralIndex index);
+
+    static boolean isStructural(byte b) {
+        return b == '\n' || b == ':' || b == ',' || b == '"';
+    }
+
+    static void scanScalar(byte[] buf, int from, int to, int base, StructuralIndex index) {
+        for (int i = from; i < to; i++) {
+            if (isStructural(buf[i])) {
+                index.add(base + i);
+            }
+        }
+    }
+
+    private static StructuralScanner load() {
+        String forced = System.getProperty("huml.scanner", "");
+        if (!forced.equals("swar") && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (StructuralScanner) Class.forName("com.github.shpiyu.huml.parser.VectorStructuralScanner")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall back to the portable scanner
+            }
+        }
+        return new SwarStructuralScanner();
+    }
+}
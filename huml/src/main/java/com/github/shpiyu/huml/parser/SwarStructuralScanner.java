@@ -0,0 +1,40 @@
+package com.github.shpiyu.huml.parser;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Scans eight bytes at a time using arithmetic on {@code long} words.
+ */
+final class SwarStructuralScanner extends StructuralScanner {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long COLONS = 0x3A3A3A3A3A3A3A3AL;
+    private static final long COMMAS = 0x2C2C2C2C2C2C2C2CL;
+    private static final long QUOTES = 0x2222222222222222L;
+
+    @Override
+    void scan(byte[] buf, int from, int to, int base, StructuralIndex index) {
+        int i = from;
+        for (; i <= to - Long.BYTES; i += Long.BYTES) {
+            long word = (long) LONGS.get(buf, i);
+            long mask = zeroBytes(word ^ NEWLINES) | zeroBytes(word ^ COLONS)
+                    | zeroBytes(word ^ COMMAS) | zeroBytes(word ^ QUOTES);
+            while (mask != 0) {
+                index.add(base + i + (Long.numberOfTrailingZeros(mask) >>> 3));
+                mask &= mask - 1;
+            }
+        }
+        scanScalar(buf, i, to, base, index);
+    }
+
+    /**
+     * Returns a word with the high bit set in exactly those bytes of {@code x} that are zero.
+     */
+    private static long zeroBytes(long x) {
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.shpiyu.huml.parser;
+
+/**
+ * Scratch arrays of a {@link HumlTokenizer} that can be handed on to the next tokenizer, so that
+ * parsing many documents does not allocate and grow them again for every document.
+ *
+ * <p>A tokenizer keeps using the buffers until it is discarded; they must only be passed to
+ * another tokenizer after that. Instances are not thread-safe.
+ */
+public final class TokenizerBuffers {
+    final StructuralIndex structural = new StructuralIndex();
+    byte[] chunk = new byte[0];
+    int[] lineStarts = new int[16];
+    int[] lineEnds = new int[16];
+    int[] lineFirstStructural = new int[17];
+
+    /**
+     * Returns the approximate number of bytes held by the buffers, for callers that do not want
+     * to keep the buffers of unusually large documents around.
+     */
+    public long retainedBytes() {
+        return chunk.length + 4L * (lineStarts.length + lineEnds.length + lineFirstStructural.length + structural.capacity());
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.shpiyu.huml.parser;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Scans a full vector register of bytes at a time using the incubating Vector API. Only loaded
+ * when the {@code jdk.incubator.vector} module is present.
+ */
+final class VectorStructuralScanner extends StructuralScanner {
+    // masks are read as a long, one bit per lane, so registers wider than 512 bits (SVE) are used
+    // 512 bits at a time
+    static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() <= Long.SIZE
+            ? ByteVector.SPECIES_PREFERRED : ByteVector.SPECIES_512;
+
+    @Override
+    void scan(byte[] buf, int from, int to, int base, StructuralIndex index) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            ByteVector v = ByteVector.fromArray(SPECIES, buf, i);
+            VectorMask<Byte> mask = v.eq((byte) '\n')
+                    .or(v.eq((byte) ':'))
+                    .or(v.eq((byte) ','))
+                    .or(v.eq((byte) '"'));
+            long bits = mask.toLong();
+            while (bits != 0) {
+                index.add(base + i + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        scanScalar(buf, i, to, base, index);
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.shpiyu.huml;
+
+@Huml
+public class Account {
+    final String id;
+    final Integer balance;
+    final boolean frozen;
+
+    @HumlCreator
+    Account(String id, Integer balance) {
+        this.id = id;
+        this.balance = balance;
+        this.frozen = balance != null && balance < 0;
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.shpiyu.huml;
+
+@Huml
+public class Address {
+    String city;
+    Integer zip;
+}
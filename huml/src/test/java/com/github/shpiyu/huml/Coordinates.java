@@ -0,0 +1,7 @@
+package com.github.shpiyu.huml;
+
+import java.util.List;
+
+@Huml
+public record Coordinates(String label, int x, long y, List<String> tags, Address address) {
+}
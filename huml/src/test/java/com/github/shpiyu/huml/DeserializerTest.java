@@ -3,9 +3,21 @@ package com.github.shpiyu.huml;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.shpiyu.huml.parser.ParserException;
+import com.github.shpiyu.huml.parser.ParserOptions;
 
 public class DeserializerTest {
     
@@ -15,6 +27,9 @@ public class DeserializerTest {
     void setUp() {
         mapper = new HumlMapper();
         mapper.registerAdapter(Person.class, new PersonHumlAdapter());
+        mapper.registerAdapter(Employee.class, new EmployeeHumlAdapter());
+        mapper.registerAdapter(Coordinates.class, new CoordinatesHumlAdapter());
+        mapper.registerAdapter(Account.class, new AccountHumlAdapter());
     }
 
     @Test
@@ -108,4 +123,262 @@ public class DeserializerTest {
         assertEquals(Integer.MAX_VALUE, person.age);
         assertEquals(Double.MAX_VALUE, person.points);
     }
+
+    @Test
+    void testCollectionsAndNestedTypes() throws IOException {
+        String huml = """
+                name: "ada"
+                active: true
+                address::
+                  city: "London"
+                  zip: 12345
+                tags:: "a", "b"
+                previousAddresses::
+                  - ::
+                    city: "Paris"
+                  - null
+                skills::
+                  java: 5
+                  go: 3
+                matrix::
+                  - ::
+                    - 1
+                    - 2
+                  - []
+                scores:: 1, 2, 3
+                ids::
+                  - 10000000000
+                  - -1
+                weights:: []
+                unknown::
+                  nested: 1
+                """;
+
+        Employee employee = mapper.readValue(huml, Employee.class);
+
+        assertEquals("ada", employee.name);
+        assertTrue(employee.active);
+        assertEquals("London", employee.address.city);
+        assertEquals(12345, employee.address.zip);
+        assertEquals(List.of("a", "b"), employee.tags);
+        assertEquals(2, employee.previousAddresses.size());
+        assertEquals("Paris", employee.previousAddresses.get(0).city);
+        assertNull(employee.previousAddresses.get(0).zip);
+        assertNull(employee.previousAddresses.get(1));
+        assertEquals(Map.of("java", 5, "go", 3), employee.skills);
+        assertEquals(List.of(List.of(1, 2), List.of()), employee.matrix);
+        assertArrayEquals(new int[] { 1, 2, 3 }, employee.scores);
+        assertArrayEquals(new long[] { 10000000000L, -1 }, employee.ids);
+        assertArrayEquals(new double[0], employee.weights);
+    }
+
+    @Test
+    void testMissingAndNullCollections() throws IOException {
+        String huml = """
+                address: null
+                scores: null
+                """;
+
+        Employee employee = mapper.readValue(huml, Employee.class);
+
+        assertNull(employee.address);
+        assertNull(employee.scores);
+        assertNull(employee.tags);
+        assertFalse(employee.active);
+    }
+
+    @Test
+    void testIntArrayOutOfRange() {
+        String huml = """
+                scores:: 1, 2147483648
+                """;
+
+        assertThrows(NumberFormatException.class, () -> mapper.readValue(huml, Employee.class));
+    }
+
+    @Test
+    void testUnknownKeysAreSkipped() throws IOException {
+        String huml = """
+                extra::
+                  - ::
+                    deep:: 1, 2
+                  - "x"
+                name: "piyush"
+                inline:: a: 1, b: 2
+                age: 29
+                """;
+
+        Person person = mapper.readValue(huml, Person.class);
+
+        assertEquals("piyush", person.name);
+        assertEquals(29, person.age);
+    }
+
+    @Test
+    void testFailOnUnknownKeys() {
+        mapper.setParserOptions(ParserOptions.defaults().failOnUnknownKeys(true));
+        String huml = """
+                name: "piyush"
+                nickname: "p"
+                """;
+
+        ParserException e = assertThrows(ParserException.class, () -> mapper.readValue(huml, Person.class));
+        assertEquals("Unknown key 'nickname' at line 2", e.getMessage());
+    }
+
+    @Test
+    void testRecordDeserialization() throws IOException {
+        String huml = """
+                label: "home"
+                x: 3
+                y: 10000000000
+                tags:: "a", "b"
+                address::
+                  city: "Oslo"
+                """;
+
+        Coordinates coordinates = mapper.readValue(huml, Coordinates.class);
+
+        assertEquals("home", coordinates.label());
+        assertEquals(3, coordinates.x());
+        assertEquals(10000000000L, coordinates.y());
+        assertEquals(List.of("a", "b"), coordinates.tags());
+        assertEquals("Oslo", coordinates.address().city);
+    }
+
+    @Test
+    void testRecordMissingComponents() throws IOException {
+        Coordinates coordinates = mapper.readValue("label: \"only\"\n", Coordinates.class);
+
+        assertEquals(new Coordinates("only", 0, 0, null, null), coordinates);
+    }
+
+    @Test
+    void testCreatorDeserialization() throws IOException {
+        String huml = """
+                balance: -5
+                id: "acc-1"
+                frozen: false
+                """;
+
+        Account account = mapper.readValue(huml, Account.class);
+
+        assertEquals("acc-1", account.id);
+        assertEquals(-5, account.balance);
+        assertTrue(account.frozen);
+    }
+
+    @Test
+    void testCreatorRoundTripWithUnknownKeysFailing() throws IOException {
+        mapper.setParserOptions(ParserOptions.defaults().failOnUnknownKeys(true));
+        String huml = mapper.writeValueAsString(new Account("acc-2", -1));
+
+        assertTrue(huml.contains("frozen: true"));
+        Account account = mapper.readValue(huml, Account.class);
+        assertEquals("acc-2", account.id);
+        assertEquals(-1, account.balance);
+        assertTrue(account.frozen);
+        assertThrows(ParserException.class,
+                () -> mapper.readValue("id: \"acc-3\"\nowner: \"x\"\n", Account.class));
+    }
+
+    @Test
+    void testReadAll(@TempDir Path dir) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Path path = dir.resolve("person" + i + ".huml");
+            Files.writeString(path, "name: \"p" + i + "\"\nage: " + i + "\n");
+            paths.add(path);
+        }
+        Path broken = dir.resolve("broken.huml");
+        Files.writeString(broken, "");
+        paths.add(10, broken);
+        Path missing = dir.resolve("missing.huml");
+        paths.add(missing);
+        mapper.setReadConcurrency(3);
+
+        HumlBatchResult<Person> result = mapper.readAll(paths, Person.class);
+
+        assertEquals(52, result.size());
+        assertTrue(result.hasErrors());
+        assertEquals(List.of(broken, missing), new ArrayList<>(result.getErrors().keySet()));
+        assertInstanceOf(ParserException.class, result.getError(10));
+        assertInstanceOf(NoSuchFileException.class, result.getError(51));
+        assertNull(result.get(10));
+        for (int i = 0; i < 50; i++) {
+            Person person = result.get(i < 10 ? i : i + 1);
+            assertEquals("p" + i, person.name);
+            assertEquals(i, person.age);
+        }
+    }
+
+    @Test
+    void testReadAllRecordsErrors(@TempDir Path dir) throws IOException {
+        Path good = dir.resolve("good.huml");
+        Path bad = dir.resolve("bad.huml");
+        Files.writeString(good, "name: \"ok\"\n");
+        Files.writeString(bad, "name: \"overflow\"\n");
+        mapper.registerAdapter(Person.class, new HumlAdapter<>() {
+            @Override
+            public Person fromHUML(HumlReader reader) throws IOException {
+                Person person = new PersonHumlAdapter().fromHUML(reader);
+                if (person.name.equals("overflow")) {
+                    throw new StackOverflowError();
+                }
+                return person;
+            }
+
+            @Override
+            public void toHUML(HumlWriter writer, Person value) {
+            }
+        });
+
+        HumlBatchResult<Person> result = mapper.readAll(List.of(good, bad), Person.class);
+
+        assertTrue(result.hasErrors());
+        assertEquals("ok", result.get(0).name);
+        assertNull(result.get(1));
+        assertInstanceOf(ExecutionException.class, result.getError(1));
+        assertInstanceOf(StackOverflowError.class, result.getError(1).getCause());
+        assertEquals(List.of(bad), new ArrayList<>(result.getErrors().keySet()));
+    }
+
+    @Test
+    void testReadAllWithoutAdapter() {
+        assertThrows(IllegalArgumentException.class, () -> mapper.readAll(List.of(), String.class));
+    }
+
+    @Test
+    void testPooledBuffersAcrossDocuments() throws Exception {
+        // a large document grows the pooled buffers, smaller ones must not see its leftovers
+        StringBuilder large = new StringBuilder("name: \"large\"\nage: 1\nignored::\n");
+        for (int i = 0; i < 10_000; i++) {
+            large.append("  - ").append(i).append('\n');
+        }
+        assertEquals("large", mapper.readValue(large.toString(), Person.class).name);
+        assertEquals("small", mapper.readValue("name: \"small\"\nage: 2\n", Person.class).name);
+        assertEquals(3, mapper.readValue("age: 3", Person.class).age);
+
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        for (int t = 0; t < 32; t++) {
+            int id = t;
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    for (int i = 0; i < 200; i++) {
+                        String huml = i % 50 == 0 ? large.toString().replace("\"large\"", "\"t" + id + "\"")
+                                : "name: \"t" + id + "\"\nage: " + i + "\n";
+                        Person person = mapper.readValue(huml, Person.class);
+                        assertEquals("t" + id, person.name);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(), failures);
+    }
 }
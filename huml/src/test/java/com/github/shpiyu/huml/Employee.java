@@ -0,0 +1,18 @@
+package com.github.shpiyu.huml;
+
+import java.util.List;
+import java.util.Map;
+
+@Huml
+public class Employee {
+    String name;
+    boolean active;
+    Address address;
+    List<String> tags;
+    List<Address> previousAddresses;
+    Map<String, Integer> skills;
+    List<List<Integer>> matrix;
+    int[] scores;
+    long[] ids;
+    double[] weights;
+}
@@ -0,0 +1,254 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.shpiyu.huml.parser.ParserException;
+
+public class HumlConfigSourceTest {
+    private static final Duration DEBOUNCE = Duration.ofMillis(50);
+
+    @Test
+    void testReloadsChangedFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("app.huml");
+        Files.writeString(file, "port: 1\n");
+
+        BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        try (HumlConfigSource<HumlDocument> config = HumlConfigSource.forFile(file).debounce(DEBOUNCE)
+                .addListener(listener(events)).start()) {
+            assertEquals(1, port(config.get()));
+            HumlDocument first = config.get();
+
+            Files.writeString(file, "port: 2\n");
+            HumlDocument reloaded = (HumlDocument) next(events);
+            assertEquals(2, port(reloaded));
+            assertSame(reloaded, config.get());
+            assertEquals(1, port(first));
+            assertTrue(config.getReloadCount() >= 1);
+            assertTrue(config.getLastReloadLatency().compareTo(DEBOUNCE) >= 0);
+
+            // other files of the directory are ignored
+            Files.writeString(dir.resolve("other.huml"), "port: 3\n");
+            Files.writeString(file, "port: 4\n");
+            assertEquals(4, port((HumlDocument) next(events)));
+        }
+    }
+
+    @Test
+    void testKeepsLastGoodSnapshot(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("app.huml");
+        Files.writeString(file, "port: 1\n");
+
+        BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        try (HumlConfigSource<HumlDocument> config = HumlConfigSource.forFile(file).debounce(DEBOUNCE)
+                .addListener(listener(events)).start()) {
+            Files.writeString(file, "");
+            assertInstanceOf(ParserException.class, next(events));
+            assertEquals(1, port(config.get()));
+            assertEquals(1, config.getFailureCount());
+            assertInstanceOf(ParserException.class, config.getLastError());
+
+            Files.writeString(file, "port: 5\n");
+            assertEquals(5, port((HumlDocument) next(events)));
+            assertEquals(5, port(config.get()));
+        }
+    }
+
+    @Test
+    void testDirectoryOfObjects(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("b.huml"), "name: \"bob\"\nage: 40\n");
+        Files.writeString(dir.resolve("a.huml"), "name: \"ann\"\nage: 30\n");
+        Files.writeString(dir.resolve("notes.txt"), "not huml");
+        HumlMapper mapper = new HumlMapper();
+        mapper.registerAdapter(Person.class, new PersonHumlAdapter());
+
+        BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        try (HumlConfigSource<Map<String, Person>> config = HumlConfigSource.forDirectory(dir, mapper, Person.class)
+                .debounce(DEBOUNCE).addListener(listener(events)).start()) {
+            Map<String, Person> people = config.get();
+            assertEquals(2, people.size());
+            assertEquals("a.huml", people.keySet().iterator().next());
+            assertEquals("bob", people.get("b.huml").name);
+
+            Files.writeString(dir.resolve("c.huml"), "name: \"cid\"\nage: 50\n");
+            @SuppressWarnings("unchecked")
+            Map<String, Person> reloaded = (Map<String, Person>) next(events);
+            assertEquals(3, reloaded.size());
+            assertEquals(50, reloaded.get("c.huml").age);
+            assertThrows(UnsupportedOperationException.class, () -> reloaded.remove("a.huml"));
+        }
+    }
+
+    @Test
+    void testStartAndManualReload(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("app.huml");
+        Files.writeString(file, "");
+        assertThrows(ParserException.class, () -> HumlConfigSource.forFile(file).start());
+
+        Files.writeString(file, "port: 1\n");
+        // a long debounce keeps the watch from reloading during the test
+        try (HumlConfigSource<HumlDocument> config = HumlConfigSource.forFile(file).debounce(Duration.ofMinutes(1)).start()) {
+            assertThrows(IllegalStateException.class, config::start);
+            Files.writeString(file, "port: 2\n");
+            assertTrue(config.reload());
+            assertEquals(2, port(config.get()));
+
+            Files.writeString(file, "port");
+            assertFalse(config.reload());
+            assertEquals(2, port(config.get()));
+            assertNotNull(config.getLastError());
+        }
+    }
+
+    @Test
+    void testSurvivesErrors(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("person.huml");
+        Files.writeString(file, "name: \"ann\"\nage: 30\n");
+        HumlMapper mapper = new HumlMapper();
+        mapper.registerAdapter(Person.class, new HumlAdapter<>() {
+            @Override
+            public Person fromHUML(HumlReader reader) throws IOException {
+                Person person = new PersonHumlAdapter().fromHUML(reader);
+                if (person.name.equals("overflow")) {
+                    throw new StackOverflowError();
+                }
+                return person;
+            }
+
+            @Override
+            public void toHUML(HumlWriter writer, Person value) {
+            }
+        });
+        HumlConfigSource.Listener<Person> failing = new HumlConfigSource.Listener<>() {
+            @Override
+            public void onReload(Person previous, Person current) {
+                throw new AssertionError("onReload");
+            }
+
+            @Override
+            public void onError(Exception error) {
+                throw new AssertionError("onError");
+            }
+        };
+
+        BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        try (HumlConfigSource<Person> config = HumlConfigSource.forFile(file, mapper, Person.class).debounce(DEBOUNCE)
+                .addListener(failing).addListener(listener(events)).start()) {
+            Files.writeString(file, "name: \"overflow\"\nage: 1\n");
+            Exception error = (Exception) next(events);
+            assertInstanceOf(ExecutionException.class, error);
+            assertInstanceOf(StackOverflowError.class, error.getCause());
+            assertSame(error, config.getLastError());
+            assertEquals("ann", config.get().name);
+
+            Files.writeString(file, "name: \"bob\"\nage: 40\n");
+            assertEquals("bob", ((Person) next(events)).name);
+            Files.writeString(file, "name: \"cid\"\nage: 50\n");
+            assertEquals("cid", ((Person) next(events)).name);
+        }
+    }
+
+    @Test
+    void testCloseDoesNotWaitForReload(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("person.huml");
+        Files.writeString(file, "name: \"ann\"\nage: 30\n");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        HumlMapper mapper = new HumlMapper();
+        mapper.registerAdapter(Person.class, new HumlAdapter<>() {
+            @Override
+            public Person fromHUML(HumlReader reader) throws IOException {
+                Person person = new PersonHumlAdapter().fromHUML(reader);
+                if (person.name.equals("slow")) {
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return person;
+            }
+
+            @Override
+            public void toHUML(HumlWriter writer, Person value) {
+            }
+        });
+
+        HumlConfigSource<Person> config = HumlConfigSource.forFile(file, mapper, Person.class).debounce(DEBOUNCE).start();
+        try {
+            Files.writeString(file, "name: \"slow\"\nage: 1\n");
+            assertTrue(loading.await(10, TimeUnit.SECONDS), "no reload within 10 seconds");
+            assertTimeoutPreemptively(Duration.ofSeconds(5), config::close);
+            assertEquals("ann", config.get().name);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testDeletedDirectory(@TempDir Path dir) throws Exception {
+        Path sub = Files.createDirectory(dir.resolve("conf"));
+        Path file = sub.resolve("app.huml");
+        Files.writeString(file, "port: 1\n");
+
+        BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        try (HumlConfigSource<HumlDocument> config = HumlConfigSource.forFile(file).debounce(DEBOUNCE)
+                .addListener(listener(events)).start()) {
+            Files.delete(file);
+            Files.delete(sub);
+            // reloading the deleted file fails first, then the watch stops
+            Object event;
+            do {
+                event = next(events);
+                assertInstanceOf(IOException.class, event);
+            } while (!((IOException) event).getMessage().startsWith("Directory is no longer watched"));
+            assertSame(event, config.getLastError());
+            assertEquals(1, port(config.get()));
+        }
+    }
+
+    private static <T> HumlConfigSource.Listener<T> listener(BlockingQueue<Object> events) {
+        return new HumlConfigSource.Listener<>() {
+            @Override
+            public void onReload(T previous, T current) {
+                events.add(current);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                events.add(error);
+            }
+        };
+    }
+
+    private static Object next(BlockingQueue<Object> events) throws InterruptedException {
+        Object event = events.poll(10, TimeUnit.SECONDS);
+        assertNotNull(event, "no reload within 10 seconds");
+        return event;
+    }
+
+    private static int port(HumlDocument doc) {
+        return doc.getRoot().asDict().get("port").asInteger();
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.shpiyu.huml.parser.Parser;
+
+public class HumlDiffTest {
+
+    private static final String BEFORE = """
+            name: "app"
+            server::
+              host: "localhost"
+              ports:: 80, 443
+              tls::
+                enabled: true
+            limits::
+              rate: 10
+            removed: 1
+            """;
+
+    @Test
+    void testStructuralEquality() {
+        HumlDocument a = Parser.parse(BEFORE);
+        HumlDocument b = Parser.parse(BEFORE);
+        assertEquals(a.getRoot(), b.getRoot());
+        assertEquals(a.getRoot().hashCode(), b.getRoot().hashCode());
+
+        // key order does not matter for dicts
+        assertEquals(Parser.parse("a: 1\nb: 2\n").getRoot(), Parser.parse("b: 2\na: 1\n").getRoot());
+        // but item order does for lists
+        assertNotEquals(Parser.parse("a:: 1, 2\n").getRoot(), Parser.parse("a:: 2, 1\n").getRoot());
+        assertNotEquals(HumlValue.ofNumber(1L), HumlValue.ofNumber(1.0));
+        assertEquals(HumlValue.ofNumber(1), HumlValue.ofNumber(1L));
+        assertEquals(HumlValue.ofString(new HumlStringView("xabc", 1, 4)), HumlValue.ofString("abc"));
+        assertEquals(HumlValue.nullValue(), HumlValue.nullValue());
+    }
+
+    @Test
+    void testDiff() {
+        HumlDocument before = Parser.parse(BEFORE);
+        HumlDocument after = Parser.parse("""
+                name: "app"
+                server::
+                  host: "example.com"
+                  ports:: 80, 443, 8080
+                  tls: null
+                limits::
+                  rate: 10
+                added::
+                  nested: true
+                """);
+
+        HumlDiff diff = HumlDiff.between(before, after);
+
+        assertEquals(List.of("added", "server.ports[2]"), diff.getAdded());
+        assertEquals(List.of("removed"), diff.getRemoved());
+        assertEquals(List.of("server.host", "server.tls"), diff.getChanged());
+    }
+
+    @Test
+    void testIdenticalDocuments() {
+        HumlDiff diff = HumlDiff.between(Parser.parse(BEFORE), Parser.parse(BEFORE));
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    void testLargeDocumentsWithFewChanges() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            sb.append("k").append(i).append("::\n")
+                    .append("  value: ").append(i).append('\n')
+                    .append("  tags:: \"a\", \"b\"\n");
+        }
+        String base = sb.toString();
+        HumlDocument before = Parser.parse(base);
+        HumlDocument after = Parser.parse(base.replace("k123::\n  value: 123\n", "k123::\n  value: -1\n"));
+
+        HumlDiff diff = HumlDiff.between(before, after);
+
+        assertEquals(List.of("k123.value"), diff.getChanged());
+        assertTrue(diff.getAdded().isEmpty());
+        assertTrue(diff.getRemoved().isEmpty());
+    }
+
+    @Test
+    void testDeepTreesDoNotGrowThreadStack() {
+        HumlValue a = HumlValue.ofNumber(1L);
+        HumlValue b = HumlValue.ofNumber(1L);
+        for (int i = 0; i < 100_000; i++) {
+            a = HumlValue.ofList(List.of(a));
+            b = HumlValue.ofList(List.of(b));
+        }
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.shpiyu.huml.parser.Parser;
+
+public class HumlDocumentTest {
+
+    private static final String BASE = """
+            name: "service"
+            server::
+              host: "localhost"
+              port: 8080
+              tls::
+                enabled: false
+            features:: "a", "b"
+            catalog::
+              big: 1
+            """;
+
+    @Test
+    void testMergeOverlays() {
+        HumlDocument base = Parser.parse(BASE);
+        HumlDocument region = Parser.parse("""
+                server::
+                  host: "eu.example.com"
+                  tls::
+                    enabled: true
+                features:: "c"
+                """);
+        HumlDocument env = Parser.parse("""
+                server::
+                  port: 9090
+                debug: true
+                """);
+
+        HumlDocument merged = base.merge(region, env);
+
+        assertEquals(Parser.parse("""
+                name: "service"
+                server::
+                  host: "eu.example.com"
+                  port: 9090
+                  tls::
+                    enabled: true
+                features:: "c"
+                catalog::
+                  big: 1
+                debug: true
+                """).getRoot(), merged.getRoot());
+        assertEquals(List.of("name", "server", "features", "catalog", "debug"),
+                new ArrayList<>(merged.getRoot().asDict().keySet()));
+        assertEquals(List.of("host", "port", "tls"),
+                new ArrayList<>(merged.get("server").asDict().keySet()));
+        assertEquals(8080, base.get("server").asDict().get("port").asInteger());
+    }
+
+    @Test
+    void testMergeSharesUntouchedSubtrees() {
+        HumlDocument base = Parser.parse(BASE);
+        HumlDocument merged = base.merge(Parser.parse("server::\n  port: 1\n"));
+
+        assertSame(base.get("catalog"), merged.get("catalog"));
+        assertSame(base.get("server").asDict().get("tls"), merged.get("server").asDict().get("tls"));
+        assertSame(base.getRoot(), base.merge().getRoot());
+    }
+
+    @Test
+    void testOverlayReplacesNonDictValues() {
+        HumlDocument base = Parser.parse(BASE);
+        HumlDocument merged = base.merge(Parser.parse("server: null\nname::\n  first: \"x\"\n"));
+
+        assertTrue(merged.get("server").isNull());
+        assertEquals("x", merged.get("name").asDict().get("first").asString());
+    }
+
+    @Test
+    void testManyOverlaysOverOneBase() {
+        HumlDocument base = Parser.parse(BASE);
+        List<HumlDocument> tenants = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tenants.add(base.merge(Parser.parse("tenant: " + i + "\nserver::\n  port: " + i + "\n")));
+        }
+        for (int i = 0; i < tenants.size(); i++) {
+            HumlDocument tenant = tenants.get(i);
+            assertEquals(i, tenant.get("tenant").asInteger());
+            assertEquals(i, tenant.get("server").asDict().get("port").asInteger());
+            assertSame(base.get("catalog"), tenant.get("catalog"));
+        }
+    }
+}
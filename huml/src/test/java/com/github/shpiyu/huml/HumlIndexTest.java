@@ -0,0 +1,106 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.shpiyu.huml.parser.Parser;
+
+public class HumlIndexTest {
+
+    private static final String CATALOG = """
+            # product catalog
+            name: "catalog"
+            items::
+              sku1::
+                title: "Lamp"
+                price: 12.5
+                tags:: "home", "light"
+
+              sku2::
+                title: "Désk"
+                sizes::
+                  - 1
+                  - ::
+                    inner: 2
+            version: 3
+            """;
+
+    @Test
+    void testLookup(@TempDir Path dir) throws IOException {
+        Path huml = dir.resolve("catalog.huml");
+        Path index = dir.resolve("catalog.huml.idx");
+        Files.writeString(huml, CATALOG);
+        HumlIndex.build(huml, index);
+
+        HumlDocument doc = Parser.parse(CATALOG);
+        try (HumlIndex idx = HumlIndex.open(huml, index)) {
+            assertEquals(10, idx.size());
+            assertEquals(doc.getRoot().asDict().get("items"), idx.get("items"));
+            assertEquals(doc.getRoot().asDict().get("items").asDict().get("sku2"), idx.get("items.sku2"));
+            assertEquals("Désk", idx.get("items.sku2.title").asString());
+            assertEquals(12.5, idx.get("items.sku1.price").asDouble());
+            assertEquals(2, idx.get("items.sku1.tags").asList().size());
+            assertEquals(3, idx.get("version").asInteger());
+            assertEquals("catalog", idx.get("name").asString());
+
+            // entries inside lists are not indexed
+            assertFalse(idx.contains("items.sku2.sizes.inner"));
+            assertNull(idx.get("missing"));
+            assertNull(idx.reader("items.missing"));
+
+            HumlReader reader = idx.reader("items.sku1");
+            assertTrue(reader.beginDict());
+            assertEquals("title", reader.nextKey());
+            assertEquals("Lamp", reader.readString());
+        }
+    }
+
+    @Test
+    void testStaleIndex(@TempDir Path dir) throws IOException {
+        Path huml = dir.resolve("catalog.huml");
+        Path index = dir.resolve("catalog.huml.idx");
+        Files.writeString(huml, CATALOG);
+        HumlIndex.build(huml, index);
+        assertTrue(HumlIndex.isCurrent(huml, index));
+
+        Files.writeString(huml, CATALOG.replace("version: 3", "version: 42"));
+        assertFalse(HumlIndex.isCurrent(huml, index));
+        IOException e = assertThrows(IOException.class, () -> HumlIndex.open(huml, index));
+        assertTrue(e.getMessage().contains("stale"));
+
+        try (HumlIndex idx = HumlIndex.openOrBuild(huml, index)) {
+            assertEquals(42, idx.get("version").asInteger());
+        }
+        assertTrue(HumlIndex.isCurrent(huml, index));
+        assertFalse(HumlIndex.isCurrent(huml, dir.resolve("missing.idx")));
+    }
+
+    @Test
+    void testManyEntries(@TempDir Path dir) throws IOException {
+        StringBuilder sb = new StringBuilder("entries::\n");
+        for (int i = 0; i < 5000; i++) {
+            sb.append("  e").append(i).append("::\n    id: ").append(i).append("\n    name: \"n").append(i).append("\"\n");
+        }
+        Path huml = dir.resolve("big.huml");
+        Path index = dir.resolve("big.huml.idx");
+        Files.writeString(huml, sb);
+
+        try (HumlIndex idx = HumlIndex.openOrBuild(huml, index)) {
+            assertEquals(1 + 5000 * 3, idx.size());
+            for (int i = 0; i < 5000; i += 97) {
+                assertEquals(i, idx.get("entries.e" + i + ".id").asInteger());
+                assertEquals("n" + i, idx.get("entries.e" + i).asDict().get("name").asString());
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.shpiyu.huml.parser.Parser;
+import com.github.shpiyu.huml.parser.ParserException;
+
+public class HumlJsonTest {
+
+    @Test
+    void testHumlToJson() throws IOException {
+        String huml = """
+                name: "say \"hi\""
+                count: 3
+                ratio: 0.5
+                enabled: true
+                missing: null
+                tags:: "a", "b"
+                empty:: []
+                server::
+                  host: "localhost"
+                  ports::
+                    - 80
+                    - ::
+                      secure: true
+                """;
+
+        assertEquals("{\"name\":\"say \\\"hi\\\"\",\"count\":3,\"ratio\":0.5,\"enabled\":true,"
+                + "\"missing\":null,\"tags\":[\"a\",\"b\"],\"empty\":[],"
+                + "\"server\":{\"host\":\"localhost\",\"ports\":[80,{\"secure\":true}]}}",
+                HumlJson.humlToJson(huml));
+    }
+
+    @Test
+    void testJsonToHuml() throws IOException {
+        String json = """
+                {
+                  "name": "caf\\u00e9",
+                  "count": -12,
+                  "big": 1e300,
+                  "tags": ["a", "b", 1, true, null],
+                  "empty": [],
+                  "none": {},
+                  "labels": ["x:y", "z"],
+                  "matrix": [[1, 2], [3]],
+                  "server": {"host": "localhost", "ports": [80, {"secure": false}]}
+                }
+                """;
+
+        assertEquals("""
+                name: "café"
+                count: -12
+                big: 1e300
+                tags:: "a", "b", 1, true, null
+                empty:: []
+                none:: {}
+                labels:: "x:y", "z"
+                matrix::
+                  - ::
+                    - 1
+                    - 2
+                  - ::
+                    - 3
+                server::
+                  host: "localhost"
+                  ports::
+                    - 80
+                    - ::
+                      secure: false
+                """, HumlJson.jsonToHuml(json));
+    }
+
+    @Test
+    void testEmptyObjectRoundTrip() throws IOException {
+        String huml = HumlJson.jsonToHuml(" { } ");
+
+        assertEquals("# empty\n", huml);
+        assertTrue(Parser.parse(huml).isEmpty());
+        assertEquals("{}", HumlJson.humlToJson(huml));
+    }
+
+    @Test
+    void testLongListsAreWrittenAsBlocks() throws IOException {
+        StringBuilder json = new StringBuilder("{\"items\": [");
+        for (int i = 0; i < 100; i++) {
+            json.append(i == 0 ? "" : ", ").append(i);
+        }
+        json.append("]}");
+
+        String huml = HumlJson.jsonToHuml(json.toString());
+
+        assertEquals(101, huml.lines().count());
+        assertEquals(100, Parser.parse(huml).get("items").asList().size());
+        assertEquals(json.toString().replace(" ", ""), HumlJson.humlToJson(huml));
+    }
+
+    @Test
+    void testMalformedJson() throws IOException {
+        assertThrows(ParserException.class, () -> HumlJson.jsonToHuml("[1, 2]"));
+        assertThrows(ParserException.class, () -> HumlJson.jsonToHuml("{\"a\": 1,}"));
+        assertThrows(ParserException.class, () -> HumlJson.jsonToHuml("{\"a\" 1}"));
+        assertThrows(ParserException.class, () -> HumlJson.jsonToHuml("{\"a\": tru}"));
+        assertThrows(ParserException.class, () -> HumlJson.jsonToHuml("{\"a\": 1} 2"));
+        assertThrows(ParserException.class, () -> HumlJson.jsonToHuml("{\"a\": \"open"));
+        // the JSON number grammar has no leading zeros
+        assertThrows(ParserException.class, () -> HumlJson.jsonToHuml("{\"a\": 01}"));
+        assertThrows(ParserException.class, () -> HumlJson.jsonToHuml("{\"a\": -01}"));
+        assertThrows(ParserException.class, () -> HumlJson.jsonToHuml("{\"a\": 00}"));
+        assertThrows(ParserException.class, () -> HumlJson.jsonToHuml("{\"a\": 1.}"));
+        assertThrows(ParserException.class, () -> HumlJson.jsonToHuml("{\"a\": 1e}"));
+        assertEquals("a: -0.5e-3\nb: 0\n", HumlJson.jsonToHuml("{\"a\": -0.5e-3, \"b\": 0}"));
+    }
+
+    @Test
+    void testUnrepresentableJson() {
+        assertThrows(IllegalArgumentException.class, () -> HumlJson.jsonToHuml("{\"a:b\": 1}"));
+        // keys are written unquoted, so a quote would start a string when read back
+        assertThrows(IllegalArgumentException.class, () -> HumlJson.jsonToHuml("{\"a\\\"b\": 1}"));
+
+        IllegalArgumentException infinite = assertThrows(IllegalArgumentException.class,
+                () -> HumlJson.humlToJson("a: 1\nb: 1e400\n"));
+        assertEquals("Number at line 2 cannot be written as JSON: Infinity", infinite.getMessage());
+    }
+
+    @Test
+    void testEscapedStrings() throws IOException {
+        String json = "{\"a\":\"two\\nlines\",\"b\":[\"q\\\"uote\",\"x::y, z\"],\"c\":\"back\\\\slash\\t\"}";
+        String huml = HumlJson.jsonToHuml(json);
+        assertEquals("a: \"two\\nlines\"\nb:: \"q\\\"uote\", \"x::y, z\"\nc: \"back\\\\slash\\t\"\n", huml);
+        assertEquals(json, HumlJson.humlToJson(huml));
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.shpiyu.huml.parser.Parser;
+import com.github.shpiyu.huml.parser.ParserException;
+
+public class HumlReaderTest {
+
+    private static String largeList(int items) {
+        StringBuilder sb = new StringBuilder("name: \"large\"\ndata::\n  version: 2\n  items::\n");
+        for (int i = 0; i < items; i++) {
+            switch (i % 4) {
+                case 0 -> sb.append("    - ").append(i).append('\n');
+                case 1 -> sb.append("    - \"item ").append(i).append("\"\n");
+                case 2 -> sb.append("    # comment\n\n    - ::\n      id: ").append(i).append("\n      tags:: \"a\", \"b\"\n");
+                default -> sb.append("    - ::\n      - ").append(i).append("\n      - ::\n        deep: true\n");
+            }
+        }
+        sb.append("after: 1\n");
+        return sb.toString();
+    }
+
+    @Test
+    void testStreamListInParallel() {
+        String huml = largeList(20_000);
+        List<HumlValue> expected = Parser.parse(huml).get("data").asDict().get("items").asList();
+
+        List<HumlValue> items = new HumlReader(huml).streamList("data", "items").parallel().collect(Collectors.toList());
+
+        assertEquals(expected, items);
+    }
+
+    @Test
+    void testStreamListSplitsAtItems() {
+        String huml = largeList(2_000);
+        Spliterator<HumlValue> second = new HumlReader(huml).streamList("data", "items").spliterator();
+        Spliterator<HumlValue> first = second.trySplit();
+        assertNotNull(first);
+
+        long count = 0;
+        while (first.tryAdvance(item -> { })) {
+            count++;
+        }
+        while (second.tryAdvance(item -> { })) {
+            count++;
+        }
+        assertEquals(2_000, count);
+    }
+
+    @Test
+    void testStreamInlineList() {
+        HumlReader reader = new HumlReader("ids:: 1, 2, 3\n");
+        assertEquals(6, reader.streamList("ids").mapToLong(HumlValue::asLong).sum());
+        assertEquals(0, new HumlReader("ids:: []\n").streamList("ids").count());
+    }
+
+    @Test
+    void testStreamListErrors() {
+        String huml = largeList(10);
+        assertThrows(ParserException.class, () -> new HumlReader(huml).streamList("data", "missing"));
+        assertThrows(ParserException.class, () -> new HumlReader(huml).streamList("data"));
+        assertThrows(ParserException.class, () -> new HumlReader(huml).streamList("name"));
+        assertThrows(ParserException.class, () -> new HumlReader("list::\n  - 1\n    - 2\n").streamList("list").count());
+    }
+}
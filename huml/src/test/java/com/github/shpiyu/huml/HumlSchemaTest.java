@@ -0,0 +1,133 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.shpiyu.huml.parser.Parser;
+import com.github.shpiyu.huml.parser.ParserException;
+
+public class HumlSchemaTest {
+
+    private static final String CONFIG = """
+            name: "app"
+            server::
+              host: "localhost"
+              port: 8080
+              ratio: 0.5
+              tls: true
+            tags:: "a", "b"
+            replicas::
+              - ::
+                zone: "eu"
+                weight: 1
+              - ::
+                zone: "us"
+                weight: null
+            extra::
+              anything:: 1, "x"
+            """;
+
+    private static HumlSchema configSchema() {
+        return HumlSchema.dict()
+                .required("name", HumlSchema.string())
+                .required("server", HumlSchema.dict()
+                        .required("host", HumlSchema.string())
+                        .optional("port", HumlSchema.integer().range(1, 65535))
+                        .optional("ratio", HumlSchema.number().range(0, 1))
+                        .optional("tls", HumlSchema.bool()))
+                .optional("tags", HumlSchema.list(HumlSchema.string()).size(1, 3))
+                .optional("replicas", HumlSchema.list(HumlSchema.dict()
+                        .required("zone", HumlSchema.string())
+                        .optional("weight", HumlSchema.integer().nullable())));
+    }
+
+    @Test
+    void testValidDocument() {
+        HumlDocument doc = configSchema().parse(CONFIG);
+        assertEquals(Parser.parse(CONFIG).getRoot(), doc.getRoot());
+    }
+
+    @Test
+    void testTypeMismatch() {
+        assertViolation("Schema violation at server.port on line 4: expected an integer but found a string",
+                CONFIG.replace("port: 8080", "port: \"8080\""));
+        assertViolation("Schema violation at tags[1] on line 7: expected a string but found an integer",
+                CONFIG.replace("\"a\", \"b\"", "\"a\", 2"));
+        assertViolation("Schema violation at server on line 2: expected a dict but found a list",
+                "name: \"app\"\nserver:: 1, 2\n");
+        assertViolation("Schema violation at replicas[0].zone on line 10: expected a string but found null",
+                CONFIG.replace("zone: \"eu\"", "zone: null"));
+    }
+
+    @Test
+    void testRanges() {
+        assertViolation("Schema violation at server.port on line 4: 70000 is out of range 1..65535",
+                CONFIG.replace("port: 8080", "port: 70000"));
+        assertViolation("Schema violation at server.ratio on line 5: 1.5 is out of range 0..1",
+                CONFIG.replace("ratio: 0.5", "ratio: 1.5"));
+        assertViolation("Schema violation at tags on line 7: 4 items, expected 1..3",
+                CONFIG.replace("\"a\", \"b\"", "\"a\", \"b\", \"c\", \"d\""));
+    }
+
+    @Test
+    void testIntegerRangesAreExact() {
+        HumlSchema schema = HumlSchema.dict().required("id", HumlSchema.integer().range(0, 9007199254740992L));
+        schema.parse("id: 9007199254740992\n");
+        ParserException e = assertThrows(ParserException.class, () -> schema.parse("id: 9007199254740993\n"));
+        assertEquals("Schema violation at id on line 1: 9007199254740993 is out of range 0..9007199254740992",
+                e.getMessage());
+
+        HumlSchema top = HumlSchema.dict().required("id", HumlSchema.integer().range(Long.MAX_VALUE - 1, Long.MAX_VALUE));
+        top.parse("id: 9223372036854775807\n");
+        assertThrows(ParserException.class, () -> top.parse("id: 9223372036854775805\n"));
+
+        // fractional bounds round inwards for integers
+        HumlSchema fractional = HumlSchema.dict().required("n", HumlSchema.number().range(0.5, 2.5));
+        fractional.parse("n: 2\n");
+        fractional.parse("n: 0.75\n");
+        e = assertThrows(ParserException.class, () -> fractional.parse("n: 3\n"));
+        assertEquals("Schema violation at n on line 1: 3 is out of range 0.5..2.5", e.getMessage());
+    }
+
+    @Test
+    void testRequiredKeys() {
+        assertViolation("Schema violation at replicas[1] on line 14: missing required key zone",
+                CONFIG.replace("zone: \"us\"", "other: \"us\""));
+        assertViolation("Schema violation at the root on line 1: missing required key server",
+                "name: \"app\"\n");
+    }
+
+    @Test
+    void testUnknownKeys() {
+        HumlSchema closed = configSchema().unknownKeys(HumlSchema.UnknownKeys.REJECT);
+        ParserException e = assertThrows(ParserException.class, () -> closed.parse(CONFIG));
+        assertEquals("Schema violation at extra on line 15: unknown key", e.getMessage());
+
+        HumlDocument skipped = configSchema().unknownKeys(HumlSchema.UnknownKeys.SKIP).parse(CONFIG);
+        assertFalse(skipped.getRoot().asDict().containsKey("extra"));
+        assertEquals(Parser.parse(CONFIG).getRoot().asDict().get("replicas"), skipped.getRoot().asDict().get("replicas"));
+
+        // values of unknown keys are kept unchecked by default
+        HumlDocument kept = HumlSchema.dict().parse("a:: 1, \"x\"\nb: true\n");
+        assertEquals(2, kept.getRoot().asDict().size());
+    }
+
+    @Test
+    void testInvalidConfiguration() {
+        assertThrows(IllegalStateException.class, () -> HumlSchema.string().range(0, 1));
+        assertThrows(IllegalStateException.class, () -> HumlSchema.integer().size(0, 1));
+        assertThrows(IllegalStateException.class, () -> HumlSchema.list().required("a", HumlSchema.any()));
+        assertThrows(IllegalStateException.class, () -> HumlSchema.any().nullable());
+        assertThrows(IllegalArgumentException.class,
+                () -> HumlSchema.dict().optional("a", HumlSchema.any()).required("a", HumlSchema.any()));
+        assertThrows(IllegalArgumentException.class, () -> HumlSchema.number().range(2, 1));
+    }
+
+    private static void assertViolation(String message, String huml) {
+        ParserException e = assertThrows(ParserException.class, () -> configSchema().parse(huml));
+        assertEquals(message, e.getMessage());
+    }
+}
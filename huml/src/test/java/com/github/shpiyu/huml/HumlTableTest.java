@@ -0,0 +1,103 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.shpiyu.huml.parser.ParserException;
+
+public class HumlTableTest {
+
+    private static final String ROWS = """
+            name: "sales"
+            data::
+              rows::
+                - ::
+                  id: 1
+                  price: 9.5
+                  region: "eu"
+                  notes::
+                    - "skipped"
+                - ::
+                  region: "us"
+                  id: 2
+                  price: 3
+                - ::
+                  id: 3
+                  price: null
+                  region: "eu"
+                - ::
+                  id: 4
+              other: "ignored"
+            """;
+
+    private static HumlTableReader reader() {
+        return new HumlTableReader("data", "rows")
+                .longColumn("id")
+                .doubleColumn("price")
+                .stringColumn("region");
+    }
+
+    @Test
+    void testReadColumns() {
+        HumlTable table = reader().read(ROWS);
+
+        assertEquals(4, table.getRowCount());
+        assertEquals(List.of("id", "price", "region"), table.getColumnNames());
+        assertArrayEquals(new long[] { 1, 2, 3, 4 }, table.getLongColumn("id"));
+        assertArrayEquals(new double[] { 9.5, 3.0, 0.0, 0.0 }, table.getDoubleColumn("price"));
+        assertArrayEquals(new int[] { 0, 1, 0, -1 }, table.getStringCodes("region"));
+        assertEquals(List.of("eu", "us"), table.getDictionary("region"));
+        assertEquals("us", table.getString("region", 1));
+        assertNull(table.getString("region", 3));
+
+        assertFalse(table.isNull("price", 1));
+        assertTrue(table.isNull("price", 2));
+        assertTrue(table.isNull("price", 3));
+        assertFalse(table.isNull("id", 3));
+    }
+
+    @Test
+    void testEmptyList() {
+        HumlTable table = new HumlTableReader("rows").longColumn("id").read("rows:: []\n");
+
+        assertEquals(0, table.getRowCount());
+        assertEquals(0, table.getLongColumn("id").length);
+    }
+
+    @Test
+    void testManyRowsAndDistinctStrings() {
+        StringBuilder huml = new StringBuilder("rows::\n");
+        int rows = 10_000;
+        for (int i = 0; i < rows; i++) {
+            huml.append("  - ::\n")
+                    .append("    id: ").append(i).append('\n')
+                    .append("    key: \"k").append(i % 1000).append("\"\n");
+        }
+
+        HumlTable table = new HumlTableReader("rows").longColumn("id").stringColumn("key").read(huml.toString());
+
+        assertEquals(rows, table.getRowCount());
+        assertEquals(1000, table.getDictionary("key").size());
+        for (int i = 0; i < rows; i++) {
+            assertEquals(i, table.getLong("id", i));
+            assertEquals("k" + (i % 1000), table.getString("key", i));
+        }
+    }
+
+    @Test
+    void testErrors() {
+        assertThrows(ParserException.class, () -> new HumlTableReader("missing").longColumn("id").read(ROWS));
+        assertThrows(ParserException.class, () -> new HumlTableReader("name").longColumn("id").read(ROWS));
+        assertThrows(ParserException.class, () -> new HumlTableReader("data", "rows").longColumn("price").read(ROWS));
+        assertThrows(IllegalArgumentException.class, () -> reader().read(ROWS).getDoubleColumn("id"));
+        assertThrows(IllegalArgumentException.class, () -> reader().longColumn("id"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.shpiyu.huml.parser.Parser;
+
+public class HumlTapeTest {
+
+    private static final String DOCUMENT = """
+            name: "catalog"
+            version: 3
+            ratio: 0.25
+            enabled: true
+            missing: null
+            servers::
+              - ::
+                host: "a"
+                port: 80
+              - ::
+                host: "b"
+                port: 8080
+            tags:: "x", "y"
+            empty:: {}
+            """;
+
+    @Test
+    void testViewsMatchParsedTree() {
+        HumlTape tape = HumlTape.parse(DOCUMENT);
+
+        assertEquals(Parser.parse(DOCUMENT).getRoot(), tape.getRoot());
+        HumlDocument document = tape.toDocument();
+        assertEquals("catalog", document.get("name").asString());
+        assertEquals(3, document.get("version").asInteger());
+        assertEquals(0.25, document.get("ratio").asDouble());
+        assertEquals(List.of("name", "version", "ratio", "enabled", "missing", "servers", "tags", "empty"),
+                List.copyOf(document.getRoot().asDict().keySet()));
+        assertEquals(8080, document.get("servers").asList().get(1).asDict().get("port").asInteger());
+    }
+
+    @Test
+    void testCursorNavigation() {
+        HumlTapeCursor cursor = HumlTape.parse(DOCUMENT).cursor();
+        assertEquals(HumlType.DICT, cursor.getType());
+        assertEquals(8, cursor.size());
+
+        assertTrue(cursor.find("servers"));
+        assertEquals("servers", cursor.getKey());
+        assertEquals(2, cursor.size());
+        assertTrue(cursor.down());
+        long ports = 0;
+        do {
+            assertTrue(cursor.find("port"));
+            assertTrue(cursor.isIntegral());
+            ports += cursor.getLong();
+            assertTrue(cursor.up());
+        } while (cursor.next());
+        assertEquals(8160, ports);
+
+        assertTrue(cursor.up());
+        assertEquals("servers", cursor.getKey());
+        assertTrue(cursor.up());
+        assertFalse(cursor.up());
+        assertEquals(0, cursor.getDepth());
+        assertFalse(cursor.find("nope"));
+        assertTrue(cursor.find("ratio"));
+        assertEquals(0.25, cursor.getDouble());
+        assertTrue(cursor.next());
+        assertTrue(cursor.keyEquals("enabled"));
+        assertTrue(cursor.getBoolean());
+        assertTrue(cursor.next());
+        assertEquals(HumlType.NULL, cursor.getType());
+
+        cursor.up();
+        cursor.find("empty");
+        assertFalse(cursor.down());
+        cursor.up();
+        cursor.find("tags");
+        cursor.down();
+        assertNull(cursor.getKey());
+        assertEquals("x", cursor.getString().toString());
+    }
+
+    @Test
+    void testRepeatedKeysKeepTheLastValue() {
+        String huml = """
+                a: 1
+                b: 2
+                a::
+                  x: 1
+                  x: 2
+                c:: 1, 2
+                a: 3
+                """;
+        HumlTape tape = HumlTape.parse(huml);
+        HumlValue root = tape.getRoot();
+
+        assertEquals(Parser.parse(huml).getRoot(), root);
+        assertEquals(3, root.asDict().get("a").asInteger());
+        assertEquals(3, root.asDict().size());
+        assertEquals(3, root.asDict().entrySet().size());
+        assertEquals(List.of("b", "c", "a"), List.copyOf(root.asDict().keySet()));
+        assertEquals(Parser.parse("x: 2\n").getRoot(), HumlTape.parse("a:\n  x: 1\n  x: 2\n").getRoot().asDict().get("a"));
+
+        HumlTapeCursor cursor = tape.cursor();
+        assertEquals(3, cursor.size());
+        assertTrue(cursor.find("a"));
+        assertEquals(3, cursor.getLong());
+    }
+
+    @Test
+    void testOffHeap() {
+        HumlTape tape = HumlTape.parse(DOCUMENT);
+        HumlTape offHeap = tape.toOffHeap();
+
+        assertTrue(offHeap.isOffHeap());
+        assertFalse(tape.isOffHeap());
+        assertEquals(tape.getWordCount(), offHeap.getWordCount());
+        assertEquals(tape.getRoot(), offHeap.getRoot());
+    }
+
+    @Test
+    void testRandomTrees() throws IOException {
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            HumlWriter writer = new HumlWriter();
+            writer.writeDocument(new HumlDocument(HumlWriterTest.randomDict(random, 0)));
+            String huml = writer.getOutput();
+            if (huml.isBlank()) {
+                continue;
+            }
+            HumlValue expected = Parser.parse(huml).getRoot();
+            assertEquals(expected, HumlTape.parse(huml).getRoot(), huml);
+            assertEquals(expected, HumlTape.parse(huml).toOffHeap().getRoot(), huml);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.shpiyu.huml.parser.Parser;
+
+public class HumlValueTest {
+
+    @Test
+    void testParsedValueTypes() {
+        HumlDocument doc = Parser.parse("""
+                s: "text"
+                l: 42
+                d: 2.5
+                b: true
+                n: null
+                list:: 1, 2
+                dict::
+                  k: "v"
+                """);
+
+        assertEquals(new HumlString("text"), doc.get("s"));
+        assertEquals(new HumlLong(42), doc.get("l"));
+        assertEquals(new HumlDouble(2.5), doc.get("d"));
+        assertSame(HumlValue.ofBoolean(true), doc.get("b"));
+        assertInstanceOf(HumlNull.class, doc.get("n"));
+        assertEquals(2, ((HumlList) doc.get("list")).size());
+        assertEquals("v", ((HumlDict) doc.get("dict")).get("k").asString());
+    }
+
+    @Test
+    void testPatternMatchingWalk() {
+        HumlValue root = Parser.parse("""
+                a: 1
+                b:: 2, 3.5, "x", null, false
+                c::
+                  d::
+                    - 4
+                    - ::
+                      e: 5
+                """).getRoot();
+
+        assertEquals(15.5, sum(root));
+    }
+
+    // Sums every number in a tree with an exhaustive switch
+    private static double sum(HumlValue value) {
+        return switch (value) {
+            case HumlLong l -> l.value();
+            case HumlDouble d -> d.value();
+            case HumlList list -> list.asList().stream().mapToDouble(HumlValueTest::sum).sum();
+            case HumlDict dict -> dict.asDict().values().stream().mapToDouble(HumlValueTest::sum).sum();
+            case HumlString s -> 0;
+            case HumlBool b -> 0;
+            case HumlNull n -> 0;
+        };
+    }
+
+    @Test
+    void testNumberFactories() {
+        assertInstanceOf(HumlLong.class, HumlValue.ofNumber((short) 3));
+        assertInstanceOf(HumlLong.class, HumlValue.ofNumber(BigInteger.valueOf(Long.MAX_VALUE)));
+        assertInstanceOf(HumlDouble.class, HumlValue.ofNumber(BigInteger.TWO.pow(64)));
+        assertInstanceOf(HumlDouble.class, HumlValue.ofNumber(1.5f));
+        assertEquals(HumlValue.ofNumber(7), HumlValue.ofLong(7));
+    }
+
+    @Test
+    void testAccessors() {
+        HumlValue number = HumlValue.ofLong(300);
+        assertEquals(300, number.asInteger());
+        assertEquals(300.0, number.asDouble());
+        assertThrows(NumberFormatException.class, number::asByte);
+        assertThrows(NumberFormatException.class, HumlValue.ofDouble(1.5)::asLong);
+        assertNull(number.asString());
+        assertNull(HumlValue.ofString("x").asInteger());
+        assertTrue(HumlValue.nullValue().isNull());
+        assertTrue(number.asList().isEmpty());
+        assertEquals(Map.of(), HumlValue.ofBoolean(false).asDict());
+        assertEquals("300", number.toString());
+        assertEquals("1.5", HumlValue.ofDouble(1.5).toString());
+    }
+}
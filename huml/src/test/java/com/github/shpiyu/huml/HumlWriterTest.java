@@ -0,0 +1,178 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.shpiyu.huml.parser.Parser;
+
+public class HumlWriterTest {
+
+    static void assertSameTree(HumlValue expected, HumlValue actual) {
+        assertEquals(expected.getType(), actual.getType());
+        switch (expected.getType()) {
+            case DICT:
+                assertEquals(List.copyOf(expected.asDict().keySet()), List.copyOf(actual.asDict().keySet()));
+                for (String key : expected.asDict().keySet()) {
+                    assertSameTree(expected.asDict().get(key), actual.asDict().get(key));
+                }
+                break;
+            case LIST:
+                assertEquals(expected.asList().size(), actual.asList().size());
+                for (int i = 0; i < expected.asList().size(); i++) {
+                    assertSameTree(expected.asList().get(i), actual.asList().get(i));
+                }
+                break;
+            case STRING:
+                assertEquals(expected.asString(), actual.asString());
+                break;
+            case NUMBER:
+                assertEquals(expected.asDouble(), actual.asDouble());
+                break;
+            default:
+                assertEquals(expected.toString(), actual.toString());
+        }
+    }
+
+    private static String write(HumlDocument doc) throws IOException {
+        HumlWriter writer = new HumlWriter();
+        writer.writeDocument(doc);
+        return writer.getOutput();
+    }
+
+    @Test
+    void testWriteNestedDocument() throws IOException {
+        String huml = """
+                name: "huml"
+                version: 1
+                ratio: 0.5
+                enabled: true
+                missing: null
+                tags:: "a", "b", "c"
+                empty_list:: []
+                empty_dict:: {}
+                owner::
+                  name: "piyush"
+                  langs:: "java", "go"
+                items::
+                  - 1
+                  - ::
+                    id: 2
+                  - ::
+                    - "nested"
+                  - []
+                """;
+
+        assertEquals(huml, write(Parser.parse(huml)));
+    }
+
+    @Test
+    void testRoundTripStringsWithSeparators() throws IOException {
+        String huml = """
+                parts:: "a,b", "c: d", "e::f"
+                escaped: "say \\"hi\\"\\n\\\\ \\u0001"
+                """;
+        HumlDocument doc = Parser.parse(huml);
+        String written = write(doc);
+        assertEquals(huml, written);
+        assertSameTree(doc.getRoot(), Parser.parse(written).getRoot());
+    }
+
+    @Test
+    void testStreamingApi() throws IOException {
+        StringWriter out = new StringWriter();
+        HumlWriter writer = new HumlWriter(out);
+        writer.writeField("a", "1");
+        writer.startDict("b");
+        writer.startList("c");
+        writer.writeItem("2");
+        writer.startDict(null);
+        writer.end();
+        writer.end();
+        writer.startDict("d");
+        writer.end();
+        writer.end();
+
+        assertEquals("""
+                a: 1
+                b::
+                  c::
+                    - 2
+                    - {}
+                  d:: {}
+                """, out.toString());
+        assertThrows(IllegalStateException.class, writer::end);
+        assertThrows(IllegalStateException.class, () -> writer.writeItem("1"));
+    }
+
+    @Test
+    void testRejectsKeysThatDoNotReadBack() {
+        for (String key : List.of("a: b", " x", "x ", "#k", "-k", "a\"b", "a\nb", "")) {
+            HumlWriter writer = new HumlWriter();
+            assertThrows(IllegalArgumentException.class, () -> writer.writeField(key, "1"), key);
+            assertThrows(IllegalArgumentException.class, () -> writer.startDict(key), key);
+            assertThrows(IllegalArgumentException.class, () -> writer.writeVector(key, List.of("1")), key);
+            assertEquals("", writer.getOutput());
+        }
+        HumlDocument doc = new HumlDocument(HumlValue.ofDict(Map.of("a: b", HumlValue.ofNumber(1))));
+        assertThrows(IllegalArgumentException.class, () -> new HumlWriter().writeDocument(doc));
+
+        HumlWriter writer = new HumlWriter();
+        writer.writeField("a-b c", "1");
+        assertEquals("a-b c: 1\n", writer.getOutput());
+    }
+
+    @Test
+    void testRoundTripRandomTrees() throws IOException {
+        Random random = new Random(3);
+        for (int n = 0; n < 200; n++) {
+            HumlDocument doc = new HumlDocument(randomDict(random, 0));
+            if (doc.isEmpty()) {
+                continue;
+            }
+            assertSameTree(doc.getRoot(), Parser.parse(write(doc)).getRoot());
+        }
+    }
+
+    static HumlValue randomDict(Random random, int depth) {
+        Map<String, HumlValue> dict = new LinkedHashMap<>();
+        for (int i = random.nextInt(5); i > 0; i--) {
+            dict.put("key" + random.nextInt(10), randomValue(random, depth + 1));
+        }
+        return HumlValue.ofDict(dict);
+    }
+
+    private static HumlValue randomValue(Random random, int depth) {
+        switch (random.nextInt(depth < 5 ? 8 : 6)) {
+            case 0:
+                return HumlValue.ofString(random.nextBoolean() ? "text " + random.nextInt() : "x,y: z");
+            case 1:
+                return HumlValue.ofNumber(random.nextLong());
+            case 2:
+                return HumlValue.ofNumber(random.nextDouble() * 1e10);
+            case 3:
+                return HumlValue.ofBoolean(random.nextBoolean());
+            case 4:
+                return HumlValue.nullValue();
+            case 5:
+                return HumlValue.ofString("");
+            case 6:
+                return randomDict(random, depth);
+            default:
+                List<HumlValue> list = new ArrayList<>();
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    list.add(randomValue(random, depth + 1));
+                }
+                return HumlValue.ofList(list);
+        }
+    }
+}
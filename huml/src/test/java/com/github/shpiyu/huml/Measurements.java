@@ -0,0 +1,12 @@
+package com.github.shpiyu.huml;
+
+import java.util.List;
+import java.util.Map;
+
+@Huml
+public class Measurements {
+    String unit;
+    List<? extends Number> values;
+    Map<String, ? extends Number> limits;
+    List<List<? extends Integer>> buckets;
+}
@@ -0,0 +1,343 @@
+package com.github.shpiyu.huml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.github.shpiyu.huml.parser.HumlToken;
+import com.github.shpiyu.huml.parser.HumlTokenizer;
+import com.github.shpiyu.huml.parser.HumlVisitor;
+import com.github.shpiyu.huml.parser.Parser;
+
+/**
+ * Allocation budgets and scaling checks for the parser, the writer and generated adapters.
+ *
+ * <p>Allocations are counted per thread with {@link com.sun.management.ThreadMXBean}, after
+ * warming up the measured code. Budgets are deliberately loose so that only real regressions
+ * fail.
+ *
+ * <p>Throughput is checked on generated documents growing from 1 KB by factors of four, up to
+ * 4 MB by default or {@code -Dhuml.perf.maxBytes} (for example 104857600 for 100 MB); the time
+ * per byte must stay roughly flat, which catches quadratic work such as repeated trimming or
+ * splitting of long lines. Wall-clock timings are too noisy for every build, so these sweeps
+ * only run with {@code -Dhuml.perf.scaling=true}.
+ */
+public class PerformanceRegressionTest {
+    private static final int WARMUP_RUNS = 5;
+    private static final long MAX_BYTES = Long.getLong("huml.perf.maxBytes", 4L << 20);
+    // a step of 4x in size may cost at most this much more time per byte
+    private static final double MAX_SCALING_FACTOR = 2.5;
+    private static final int SCALING_ATTEMPTS = 3;
+    private static final String SCALING_PROPERTY = "huml.perf.scaling";
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void setUp() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    void testBytesPerParsedScalar() {
+        int scalars = 100_000;
+        String huml = listOfNumbers(scalars);
+
+        long bytes = allocatedBytes(() -> Parser.parse(huml).getRoot().hashCode());
+
+        assertBudget("bytes per parsed scalar", bytes / scalars, 192);
+    }
+
+    @Test
+    void testTokenizerSetupBytesPerChar() {
+        String huml = listOfNumbers(100_000);
+
+        long bytes = allocatedBytes(() -> new HumlTokenizer(huml).depth());
+
+        assertBudget("tokenizer bytes per source char", bytes / huml.length(), 8);
+    }
+
+    @Test
+    void testTokenizingAllocatesNothing() {
+        String huml = mixedDocument(64 * 1024);
+
+        long bytes = smallestOf(() -> {
+            HumlTokenizer tokens = new HumlTokenizer(huml);
+            long start = threads.getCurrentThreadAllocatedBytes();
+            long sum = 0;
+            for (HumlToken token = tokens.next(); token != HumlToken.END_DOCUMENT; token = tokens.next()) {
+                if (token == HumlToken.LONG) {
+                    sum += tokens.longValue();
+                } else if (token == HumlToken.DOUBLE) {
+                    sum += (long) tokens.doubleValue();
+                }
+            }
+            return threads.getCurrentThreadAllocatedBytes() - start + (sum & 0);
+        });
+
+        assertEquals(0, bytes, "bytes allocated while tokenizing");
+    }
+
+    @Test
+    void testVisitingAllocatesOnlyTheTokenizer() {
+        String huml = mixedDocument(64 * 1024);
+        HumlVisitor visitor = new HumlVisitor() {
+            long sum;
+
+            @Override
+            public boolean key(CharSequence key) {
+                sum += key.length();
+                return true;
+            }
+
+            @Override
+            public boolean longValue(long value) {
+                sum += value;
+                return true;
+            }
+        };
+
+        long tokenizer = allocatedBytes(() -> new HumlTokenizer(huml).depth());
+        long visiting = allocatedBytes(() -> Parser.parse(huml, visitor) ? 1 : 0);
+
+        assertBudget("bytes allocated by visiting beyond the tokenizer", visiting - tokenizer, 256);
+    }
+
+    @Test
+    void testPrimitiveReadsAllocateNothing() {
+        String huml = listOfNumbers(10_000);
+
+        long bytes = smallestOf(() -> {
+            HumlReader reader = new HumlReader(huml);
+            reader.beginDict();
+            reader.nextKey();
+            reader.beginList();
+            long start = threads.getCurrentThreadAllocatedBytes();
+            long sum = 0;
+            while (reader.hasNextItem()) {
+                sum += reader.readPrimitiveInt();
+            }
+            return threads.getCurrentThreadAllocatedBytes() - start + (sum & 0);
+        });
+
+        assertEquals(0, bytes, "bytes allocated by primitive reads");
+    }
+
+    @Test
+    void testTapeCursorReadsAllocateNothing() {
+        HumlTape tape = HumlTape.parse(listOfNumbers(10_000));
+
+        long bytes = smallestOf(() -> {
+            HumlTapeCursor cursor = tape.cursor();
+            cursor.find("items");
+            cursor.down();
+            long start = threads.getCurrentThreadAllocatedBytes();
+            long sum = 0;
+            do {
+                sum += cursor.getLong();
+            } while (cursor.next());
+            return threads.getCurrentThreadAllocatedBytes() - start + (sum & 0);
+        });
+
+        assertEquals(0, bytes, "bytes allocated by cursor reads");
+    }
+
+    @Test
+    void testStreamingWritesAllocateNothing() {
+        int items = 100_000;
+
+        long bytes = smallestOf(() -> {
+            StringBuilder out = new StringBuilder(items * 8);
+            HumlWriter writer = new HumlWriter(out);
+            long start = threads.getCurrentThreadAllocatedBytes();
+            writer.startList("items");
+            for (int i = 0; i < items; i++) {
+                writer.writeItem("1");
+            }
+            writer.end();
+            return threads.getCurrentThreadAllocatedBytes() - start;
+        });
+
+        assertEquals(0, bytes, "bytes allocated while writing to a presized sink");
+    }
+
+    @Test
+    void testGeneratedAdapterBudget() throws IOException {
+        HumlMapper mapper = new HumlMapper();
+        mapper.registerAdapter(Person.class, new PersonHumlAdapter());
+        String huml = """
+                name: "piyush"
+                age: 29
+                points: 32.5
+                empty: ""
+                nullString: null
+                nullDouble: 0.0
+                ignored::
+                  - 1
+                  - 2
+                """;
+
+        long bytes = allocatedBytes(() -> {
+            try {
+                return mapper.readValue(huml, Person.class).age;
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+
+        assertBudget("bytes per adapter read", bytes, 4096);
+    }
+
+    @Test
+    void testPooledMapperReadsReuseBuffers() {
+        HumlMapper mapper = new HumlMapper();
+        mapper.registerAdapter(Person.class, new PersonHumlAdapter());
+        String huml = "name: \"piyush\"\nage: 29\n" + listOfNumbers(20_000).replace("items::", "ignored::");
+
+        long bytes = allocatedBytes(() -> {
+            try {
+                return mapper.readValue(huml, Person.class).age;
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+
+        assertBudget("pooled mapper bytes per source char", bytes / huml.length(), 0);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = SCALING_PROPERTY, matches = "true")
+    void testParseScalesLinearly() {
+        assertLinear("parse", size -> {
+            String huml = mixedDocument(size);
+            return bestNanos(() -> Parser.parse(huml).isEmpty() ? 0 : 1) * 1.0 / huml.length();
+        });
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = SCALING_PROPERTY, matches = "true")
+    void testLongLinesScaleLinearly() {
+        assertLinear("parse of one long inline vector", size -> {
+            StringBuilder sb = new StringBuilder("items:: ");
+            for (int i = 0; sb.length() < size; i++) {
+                sb.append(i).append(", ");
+            }
+            sb.append("0\n");
+            String huml = sb.toString();
+            return bestNanos(() -> Parser.parse(huml).isEmpty() ? 0 : 1) * 1.0 / huml.length();
+        });
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = SCALING_PROPERTY, matches = "true")
+    void testWriteScalesLinearly() {
+        assertLinear("write", size -> {
+            HumlDocument document = Parser.parse(mixedDocument(size));
+            return bestNanos(() -> {
+                HumlWriter writer = new HumlWriter();
+                writer.writeDocument(document);
+                return writer.getOutput().length();
+            }) * 1.0 / size;
+        });
+    }
+
+    private interface NanosPerByte {
+        double measure(int size);
+    }
+
+    private static void assertLinear(String operation, NanosPerByte nanosPerByte) {
+        // timings of a shared JVM are noisy, so a sweep is retried; real quadratic work fails every time
+        String failure = null;
+        for (int attempt = 0; attempt < SCALING_ATTEMPTS; attempt++) {
+            failure = scalingFailure(operation, nanosPerByte);
+            if (failure == null) {
+                return;
+            }
+        }
+        throw new AssertionError(failure);
+    }
+
+    private static String scalingFailure(String operation, NanosPerByte nanosPerByte) {
+        double previous = 0;
+        for (long size = 1024; size <= MAX_BYTES; size *= 4) {
+            System.gc();
+            double current = nanosPerByte.measure((int) size);
+            // small documents are dominated by fixed costs, so only larger steps are compared
+            if (size >= 64 * 1024 && current > previous * MAX_SCALING_FACTOR) {
+                return operation + " took " + current + " ns/byte at " + size + " bytes, "
+                        + previous + " ns/byte at a quarter of the size";
+            }
+            previous = current;
+        }
+        return null;
+    }
+
+    // Best time of a few runs, to keep garbage collection and other noise out
+    private static long bestNanos(LongSupplier operation) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            long start = System.nanoTime();
+            operation.getAsLong();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static long allocatedBytes(LongSupplier operation) {
+        return smallestOf(() -> {
+            long start = threads.getCurrentThreadAllocatedBytes();
+            operation.getAsLong();
+            return threads.getCurrentThreadAllocatedBytes() - start;
+        });
+    }
+
+    // Runs the measurement a few times and returns the smallest result, once the code is warm
+    private static long smallestOf(LongSupplier measurement) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP_RUNS * 4; i++) {
+            long bytes = measurement.getAsLong();
+            if (i >= WARMUP_RUNS) {
+                best = Math.min(best, bytes);
+            }
+        }
+        return best;
+    }
+
+    private static void assertBudget(String what, long actual, long budget) {
+        assertTrue(actual <= budget, what + " is " + actual + ", over the budget of " + budget);
+    }
+
+    private static String listOfNumbers(int count) {
+        StringBuilder sb = new StringBuilder("items::\n");
+        for (int i = 0; i < count; i++) {
+            sb.append("  - ").append(i).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // A document of roughly the given size mixing nested dicts, lists, vectors and scalars
+    static String mixedDocument(int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("entry").append(i).append("::\n")
+                    .append("  name: \"item ").append(i).append("\"\n")
+                    .append("  price: ").append(i % 1000).append('.').append(i % 97).append('\n')
+                    .append("  active: ").append(i % 2 == 0).append('\n')
+                    .append("  tags:: \"a\", \"b\", \"c\"\n")
+                    .append("  sizes::\n")
+                    .append("    - ").append(i).append('\n')
+                    .append("    - ").append(-i).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -1,8 +1,16 @@
 package com.github.shpiyu.huml;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +24,9 @@ public class SerializerTest {
     void setUp() {
         mapper = new HumlMapper();
         mapper.registerAdapter(Person.class, new PersonHumlAdapter());
+        mapper.registerAdapter(Employee.class, new EmployeeHumlAdapter());
+        mapper.registerAdapter(Coordinates.class, new CoordinatesHumlAdapter());
+        mapper.registerAdapter(Measurements.class, new MeasurementsHumlAdapter());
         person = new Person();
     }
     
@@ -82,4 +93,133 @@ public class SerializerTest {
                 """, huml);
     }
 
+    @Test
+    void testCollectionsAndNestedTypes() throws IOException {
+        Address address = new Address();
+        address.city = "London";
+        address.zip = 12345;
+
+        Employee employee = new Employee();
+        employee.name = "ada";
+        employee.active = true;
+        employee.address = address;
+        employee.tags = List.of("a", "b");
+        employee.previousAddresses = Arrays.asList(address, null);
+        employee.skills = new LinkedHashMap<>();
+        employee.skills.put("java", 5);
+        employee.matrix = List.of(List.of(1, 2), List.of());
+        employee.scores = new int[] { 1, 2 };
+        employee.weights = new double[0];
+
+        String huml = mapper.writeValueAsString(employee);
+
+        assertEquals("""
+                name: "ada"
+                active: true
+                address::
+                  city: "London"
+                  zip: 12345
+                tags::
+                  - "a"
+                  - "b"
+                previousAddresses::
+                  - ::
+                    city: "London"
+                    zip: 12345
+                  - null
+                skills::
+                  java: 5
+                matrix::
+                  - ::
+                    - 1
+                    - 2
+                  - []
+                scores::
+                  - 1
+                  - 2
+                ids: null
+                weights:: []
+                """, huml);
+
+        Employee read = mapper.readValue(huml, Employee.class);
+        assertEquals(new ArrayList<>(employee.tags), read.tags);
+        assertEquals(employee.matrix, read.matrix);
+        assertEquals(employee.skills, read.skills);
+        assertArrayEquals(employee.scores, read.scores);
+        assertArrayEquals(employee.weights, read.weights);
+        assertEquals("London", read.previousAddresses.get(0).city);
+    }
+
+    @Test
+    void testWildcardSerialization() throws IOException {
+        Measurements measurements = new Measurements();
+        measurements.unit = "m";
+        measurements.values = List.of(1, 2.5);
+        measurements.limits = Map.of("max", 10L);
+        measurements.buckets = List.of(List.of(3));
+
+        String huml = mapper.writeValueAsString(measurements);
+
+        assertEquals("""
+                unit: "m"
+                values::
+                  - 1
+                  - 2.5
+                limits::
+                  max: 10
+                buckets::
+                  - ::
+                    - 3
+                """, huml);
+
+        // wildcard fields are not bound on read
+        Measurements read = mapper.readValue(huml, Measurements.class);
+        assertEquals("m", read.unit);
+        assertNull(read.values);
+    }
+
+    @Test
+    void testStringHelpersRoundTrip() {
+        for (String value : List.of("", "plain", "a\"b", "back\\slash", "line\nbreak\t\u0001")) {
+            assertEquals(value, HumlParserUtils.parseString(HumlParserUtils.handleNullString(value)));
+        }
+        assertNull(HumlParserUtils.parseString(HumlParserUtils.handleNullString(null)));
+    }
+
+    @Test
+    void testMapKeysThatDoNotReadBack() {
+        Employee employee = new Employee();
+        employee.skills = Map.of("a: b", 1);
+
+        assertThrows(IllegalArgumentException.class, () -> mapper.writeValueAsString(employee));
+    }
+
+    @Test
+    void testRecordSerialization() throws IOException {
+        Coordinates coordinates = new Coordinates("home", 3, -4, List.of("a"), null);
+
+        String huml = mapper.writeValueAsString(coordinates);
+
+        assertEquals("""
+                label: "home"
+                x: 3
+                y: -4
+                tags::
+                  - "a"
+                address: null
+                """, huml);
+        assertEquals(coordinates, mapper.readValue(huml, Coordinates.class));
+    }
+
+    @Test
+    void testPooledBuffersAcrossWrites() throws IOException {
+        person.name = "first";
+        person.age = 1;
+        String first = mapper.writeValueAsString(person);
+        person.name = "second";
+        String second = mapper.writeValueAsString(person);
+
+        assertEquals(first.replace("first", "second"), second);
+        assertEquals(first.replace("first", "second"), mapper.writeValueAsString(person));
+    }
 }
@@ -0,0 +1,93 @@
+package com.github.shpiyu.huml.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class NumberDecoderTest {
+
+    private final NumberDecoder decoder = new NumberDecoder();
+
+    private void assertLong(String s) {
+        assertEquals(NumberDecoder.LONG, decoder.decode(s, 0, s.length()), s);
+        assertEquals(Long.parseLong(s), decoder.longValue(), s);
+    }
+
+    private void assertDouble(String s) {
+        assertEquals(NumberDecoder.DOUBLE, decoder.decode(s, 0, s.length()), s);
+        assertEquals(Double.doubleToRawLongBits(Double.parseDouble(s)),
+                Double.doubleToRawLongBits(decoder.doubleValue()), s);
+    }
+
+    @Test
+    void testLongs() {
+        assertLong("0");
+        assertLong("-0");
+        assertLong("29");
+        assertLong("007");
+        assertLong("9223372036854775807");
+        assertLong("-9223372036854775808");
+    }
+
+    @Test
+    void testDoubles() {
+        assertDouble("32.5");
+        assertDouble("-0.0");
+        assertDouble("1e5");
+        assertDouble("1E-5");
+        assertDouble("9223372036854775808");
+        assertDouble("1.7976931348623157E308");
+        assertDouble("1.7976931348623159e308");
+        assertDouble("2.2250738585072011e-308");
+        assertDouble("4.9e-324");
+        assertDouble("2.4703282292062328e-324");
+        assertDouble("1e-400");
+        assertDouble("1e400");
+        assertDouble("9007199254740993.0");
+        assertDouble("1.00000000000000011102230246251565404236316680908203125");
+        assertDouble("1.00000000000000011102230246251565404236316680908203124");
+        assertDouble("123456789012345678901234567890");
+    }
+
+    @Test
+    void testRejectsNonNumbers() {
+        for (String s : new String[] { "", "-", "1.", ".5", "1.e5", "1e", "1e+", "--1", "+1", "1x", "0x10", " 1" }) {
+            assertEquals(NumberDecoder.NOT_A_NUMBER, decoder.decode(s, 0, s.length()), s);
+        }
+    }
+
+    @Test
+    void testDecodesRange() {
+        String s = "[-12.5e1]";
+        assertEquals(NumberDecoder.DOUBLE, decoder.decode(s, 1, s.length() - 1));
+        assertEquals(-125.0, decoder.doubleValue());
+    }
+
+    @Test
+    void testRandomDoublesRoundTrip() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                continue;
+            }
+            assertDouble(Double.toString(d));
+        }
+    }
+
+    @Test
+    void testRandomDigitStrings() {
+        Random random = new Random(11);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            sb.setLength(0);
+            for (int n = 1 + random.nextInt(25); n > 0; n--) {
+                sb.append((char) ('0' + random.nextInt(10)));
+            }
+            sb.append('.').append(random.nextInt(1000)).append('e').append(random.nextInt(700) - 350);
+            assertDouble(sb.toString());
+        }
+    }
+}
@@ -2,11 +2,21 @@ package com.github.shpiyu.huml.parser;
 
 import org.junit.jupiter.api.Test;
 import com.github.shpiyu.huml.HumlDocument;
+import com.github.shpiyu.huml.HumlJson;
+import com.github.shpiyu.huml.HumlStringView;
 import com.github.shpiyu.huml.HumlType;
+import com.github.shpiyu.huml.HumlValue;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
 
 public class ParserTest {
 
@@ -20,6 +30,7 @@ public class ParserTest {
     void testStringScalar() {
         String huml = "greeting: \"Hello\"";
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals("Hello", doc.get("greeting").asString());
     }
 
@@ -27,6 +38,7 @@ public class ParserTest {
     void testBoolean() {
         String huml = "valid: true";
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(true, doc.get("valid").asBoolean());
     }
 
@@ -34,6 +46,7 @@ public class ParserTest {
     void testNumberScalar() {
         String huml = "age: 29";
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(29, doc.get("age").asInteger());
         assertEquals(29.0, doc.get("age").asDouble());
         assertEquals(29L, doc.get("age").asLong());
@@ -44,13 +57,29 @@ public class ParserTest {
     void testMaxDouble() {
         String huml = "maxDouble: 1.7976931348623157E308";
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(Double.MAX_VALUE, doc.get("maxDouble").asDouble());
     }
 
+    @Test
+    void testExponentNumber() {
+        String huml = """
+                big: 1e5
+                small: -2.5E-3
+                huge: 92233720368547758070
+                """;
+        HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
+        assertEquals(100000.0, doc.get("big").asDouble());
+        assertEquals(-0.0025, doc.get("small").asDouble());
+        assertEquals(9.223372036854776E19, doc.get("huge").asDouble());
+    }
+
     @Test
     void testNull() {
         String huml = "age: null";
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(null, doc.get("age").asInteger());
     }
 
@@ -60,6 +89,7 @@ public class ParserTest {
                 names:: "Ram", "Lakshman", "Seeta"
                 """;
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(3, doc.get("names").asList().size());
         assertEquals("Ram", doc.get("names").asList().get(0).asString());
         assertEquals("Lakshman", doc.get("names").asList().get(1).asString());
@@ -72,6 +102,7 @@ public class ParserTest {
                 numbers:: 1, 2, 3
                 """;
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(3, doc.get("numbers").asList().size());
         assertEquals(1, doc.get("numbers").asList().get(0).asInteger());
         assertEquals(2, doc.get("numbers").asList().get(1).asInteger());
@@ -84,6 +115,7 @@ public class ParserTest {
                 booleans:: true, false, true
                 """;
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(3, doc.get("booleans").asList().size());
         assertEquals(true, doc.get("booleans").asList().get(0).asBoolean());
         assertEquals(false, doc.get("booleans").asList().get(1).asBoolean());
@@ -96,6 +128,7 @@ public class ParserTest {
                 nulls:: null, null, null
                 """;
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(3, doc.get("nulls").asList().size());
         assertEquals(null, doc.get("nulls").asList().get(0).asInteger());
         assertEquals(null, doc.get("nulls").asList().get(1).asInteger());
@@ -108,6 +141,7 @@ public class ParserTest {
                 mixed:: "Ram", 29, true, null
                 """;
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(4, doc.get("mixed").asList().size());
         assertEquals("Ram", doc.get("mixed").asList().get(0).asString());
         assertEquals(29, doc.get("mixed").asList().get(1).asInteger());
@@ -124,6 +158,7 @@ public class ParserTest {
                   - "three"
                 """;
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(3, doc.get("multiline_list").asList().size());
         assertEquals(1, doc.get("multiline_list").asList().get(0).asInteger());
         assertEquals(2, doc.get("multiline_list").asList().get(1).asInteger());
@@ -167,6 +202,7 @@ public class ParserTest {
                     - 3
                 """;
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(4, doc.get("nested_list").asList().size());
         assertEquals(1, doc.get("nested_list").asList().get(0).asInteger());
         assertEquals(2, doc.get("nested_list").asList().get(1).asInteger());
@@ -181,6 +217,7 @@ public class ParserTest {
     void testEmptyList() {
         String huml = "empty_list:: []";
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(HumlType.LIST, doc.get("empty_list").getType());
         assertEquals(0, doc.get("empty_list").asList().size());
     }
@@ -190,6 +227,7 @@ public class ParserTest {
     void testInlineDict() {
         String huml = "person:: name: \"John\", age: 30";
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals("John", doc.get("person").asDict().get("name").asString());
         assertEquals(30, doc.get("person").asDict().get("age").asInteger());
     }
@@ -202,6 +240,7 @@ public class ParserTest {
                   foo: "bar"
                 """;
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(1, doc.get("multiline_dict").asDict().get("one").asInteger());
         assertEquals("bar", doc.get("multiline_dict").asDict().get("foo").asString());
     }
@@ -217,6 +256,7 @@ public class ParserTest {
                     foo: "baz"
                 """;
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(1, doc.get("nested_dict").asDict().get("one").asInteger());
         assertEquals("bar", doc.get("nested_dict").asDict().get("foo").asString());     
         assertEquals(2, doc.get("nested_dict").asDict().get("nested").asDict().get("two").asInteger());
@@ -227,6 +267,7 @@ public class ParserTest {
     void testEmptyDict() {
         String huml = "empty_dict:: {}";
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(HumlType.DICT, doc.get("empty_dict").getType());
         assertEquals(0, doc.get("empty_dict").asDict().size());
     }
@@ -244,12 +285,369 @@ public class ParserTest {
                 """;
         
         HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
         assertEquals(2, doc.get("list_of_dicts").asList().size());
         assertEquals(1, doc.get("list_of_dicts").asList().get(0).asDict().get("one").asInteger());
         assertEquals("bar", doc.get("list_of_dicts").asList().get(0).asDict().get("foo").asString());
         assertEquals(2, doc.get("list_of_dicts").asList().get(1).asDict().get("two").asInteger());
         assertEquals("baz", doc.get("list_of_dicts").asList().get(1).asDict().get("foo").asString());
     }
-        
-    
+
+    @Test
+    void testSharedSourceStrings() {
+        String huml = """
+                greeting: "Hello"
+                bare: world
+                names:: "Ram", "Seeta"
+                """;
+        HumlDocument doc = Parser.parse(huml, ParserOptions.defaults().shareSourceStrings(true));
+        assertInstanceOf(HumlStringView.class, doc.get("greeting").asCharSequence());
+        assertEquals("Hello", doc.get("greeting").asCharSequence().toString());
+        assertEquals("Hello", doc.get("greeting").asString());
+        assertEquals("world", doc.get("bare").asString());
+        assertEquals("Seeta", doc.get("names").asList().get(1).asString());
+    }
+
+    @Test
+    void testListFollowedByKey() {
+        String huml = """
+                list::
+                  - 1
+                  - 2
+                after: "done"
+                """;
+        HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
+        assertEquals(2, doc.get("list").asList().size());
+        assertEquals("done", doc.get("after").asString());
+    }
+
+    // Converting to JSON and back must give the same tree
+    private static void assertJsonRoundTrip(String huml) {
+        try {
+            String json = HumlJson.humlToJson(huml);
+            assertEquals(Parser.parse(huml).getRoot(), Parser.parse(HumlJson.jsonToHuml(json)).getRoot(), json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String nestedDicts(int depth) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append("  ".repeat(i)).append("k").append(i).append("::\n");
+        }
+        sb.append("  ".repeat(depth)).append("leaf: 1\n");
+        return sb.toString();
+    }
+
+    @Test
+    void testMaxDepthExceeded() {
+        String huml = nestedDicts(ParserOptions.DEFAULT_MAX_DEPTH);
+        ParserException e = assertThrows(ParserException.class, () -> Parser.parse(huml));
+        assertEquals("Maximum nesting depth of 1000 exceeded at line 1000", e.getMessage());
+
+        ParserException custom = assertThrows(ParserException.class,
+                () -> Parser.parse(nestedDicts(3), ParserOptions.defaults().maxDepth(3)));
+        assertEquals("Maximum nesting depth of 3 exceeded at line 3", custom.getMessage());
+    }
+
+    @Test
+    void testDeepNestingDoesNotGrowThreadStack() throws InterruptedException {
+        int depth = 3000;
+        String huml = nestedDicts(depth);
+        AtomicReference<Object> result = new AtomicReference<>();
+        // a recursive parser would overflow a stack this small long before reaching the leaf
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.set(Parser.parse(huml, ParserOptions.defaults().maxDepth(depth + 1)));
+            } catch (Throwable t) {
+                result.set(t);
+            }
+        }, "deep-parse", 64 * 1024);
+        thread.start();
+        thread.join();
+
+        assertInstanceOf(HumlDocument.class, result.get());
+        HumlValue value = ((HumlDocument) result.get()).getRoot();
+        for (int i = 0; i < depth; i++) {
+            value = value.asDict().get("k" + i);
+        }
+        assertEquals(1, value.asDict().get("leaf").asInteger());
+        assertEquals(1, value.asDict().size());
+    }
+
+    @Test
+    void testDocumentLengthLimit() {
+        String huml = "a: 1\nb: 2\n";
+        assertEquals(2, Parser.parse(huml, withLimits(HumlReadLimits.defaults().maxDocumentLength(10))).getRoot().asDict().size());
+        ParserException e = assertThrows(ParserException.class,
+                () -> Parser.parse(huml, withLimits(HumlReadLimits.defaults().maxDocumentLength(9))));
+        assertEquals("Maximum document length of 9 characters exceeded: 10", e.getMessage());
+    }
+
+    @Test
+    void testNodeLimit() {
+        // the root, the list and its three items
+        String huml = "items::\n  - 1\n  - 2\n  - 3\n";
+        Parser.parse(huml, withLimits(HumlReadLimits.defaults().maxNodes(5)));
+        ParserException e = assertThrows(ParserException.class,
+                () -> Parser.parse(huml, withLimits(HumlReadLimits.defaults().maxNodes(4))));
+        assertEquals("Maximum of 4 values exceeded at line 4", e.getMessage());
+
+        ParserException inline = assertThrows(ParserException.class,
+                () -> Parser.parse("a:: 1, 2, 3\n", withLimits(HumlReadLimits.defaults().maxNodes(4))));
+        assertEquals("Maximum of 4 values exceeded at line 1", inline.getMessage());
+    }
+
+    @Test
+    void testStringLengthLimit() {
+        HumlReadLimits limits = HumlReadLimits.defaults().maxStringLength(3);
+        Parser.parse("a: \"abc\"\nb:: \"xyz\", 1\n", withLimits(limits));
+        ParserException quoted = assertThrows(ParserException.class,
+                () -> Parser.parse("a: 1\nb: \"abcd\"\n", withLimits(limits)));
+        assertEquals("Maximum string length of 3 exceeded at line 2", quoted.getMessage());
+        assertThrows(ParserException.class, () -> Parser.parse("a:: 1, \"abcd\"\n", withLimits(limits)));
+        assertThrows(ParserException.class, () -> Parser.parse("a: abcd\n", withLimits(limits)));
+    }
+
+    @Test
+    void testKeyLengthLimit() {
+        HumlReadLimits limits = HumlReadLimits.defaults().maxKeyLength(3);
+        Parser.parse("abc: 1\nxyz:: a: 1\n", withLimits(limits));
+        ParserException block = assertThrows(ParserException.class,
+                () -> Parser.parse("abc: 1\nabcd: 2\n", withLimits(limits)));
+        assertEquals("Maximum key length of 3 exceeded at line 2", block.getMessage());
+        assertThrows(ParserException.class, () -> Parser.parse("abcd::\n  a: 1\n", withLimits(limits)));
+        assertThrows(ParserException.class, () -> Parser.parse("a:: abcd: 1, b: 2\n", withLimits(limits)));
+    }
+
+    @Test
+    void testEntriesLimit() {
+        HumlReadLimits limits = HumlReadLimits.defaults().maxEntries(2);
+        // nested containers count against their own limit, not their parent's
+        Parser.parse("a::\n  - 1\n  - 2\nb:: x: 1, y: 2\n", withLimits(limits));
+
+        ParserException dict = assertThrows(ParserException.class,
+                () -> Parser.parse("a: 1\nb: 2\nc: 3\n", withLimits(limits)));
+        assertEquals("Maximum of 2 entries per container exceeded at line 3", dict.getMessage());
+        ParserException list = assertThrows(ParserException.class,
+                () -> Parser.parse("a::\n  - 1\n  - 2\n  - 3\n", withLimits(limits)));
+        assertEquals("Maximum of 2 entries per container exceeded at line 4", list.getMessage());
+        assertThrows(ParserException.class, () -> Parser.parse("a:: 1, 2, 3\n", withLimits(limits)));
+        assertThrows(ParserException.class, () -> Parser.parse("a:: x: 1, y: 2, z: 3\n", withLimits(limits)));
+    }
+
+    @Test
+    void testReadLimitsValidation() {
+        assertThrows(IllegalArgumentException.class, () -> HumlReadLimits.defaults().maxEntries(0));
+        assertThrows(IllegalArgumentException.class, () -> HumlReadLimits.defaults().maxNodes(0));
+        assertThrows(IllegalArgumentException.class, () -> ParserOptions.defaults().maxDepth(0));
+        assertThrows(IllegalArgumentException.class, () -> ParserOptions.defaults().readLimits(null));
+
+        HumlReadLimits limits = HumlReadLimits.defaults();
+        ParserOptions options = ParserOptions.defaults().readLimits(limits).maxDepth(7);
+        assertEquals(7, limits.getMaxDepth());
+        assertEquals(7, options.getMaxDepth());
+    }
+
+    private static ParserOptions withLimits(HumlReadLimits limits) {
+        return ParserOptions.defaults().readLimits(limits);
+    }
+
+    @Test
+    void testSkipValue() {
+        String huml = """
+                block::
+                  nested::
+                    - 1
+                    # comment
+
+                    - ::
+                      deep: "x"
+                  other: 2
+                inline:: a: 1, b: 2
+                items:: 1, 2, 3
+                scalar: 4
+                last: 5
+                """;
+        HumlTokenizer tokens = new HumlTokenizer(huml);
+        assertEquals(HumlToken.START_DICT, tokens.next());
+        StringBuilder keys = new StringBuilder();
+        while (tokens.next() == HumlToken.KEY) {
+            keys.append(tokens.key()).append(' ');
+            tokens.next();
+            HumlToken last = tokens.skipValue();
+            if (tokens.key().equals("last")) {
+                assertEquals(HumlToken.LONG, last);
+                assertEquals(5, tokens.longValue());
+            }
+        }
+        assertEquals(HumlToken.END_DICT, tokens.token());
+        assertEquals(HumlToken.END_DOCUMENT, tokens.next());
+        assertEquals("block inline items scalar last ", keys.toString());
+    }
+
+    @Test
+    void testVisitor() {
+        String huml = """
+                name: "app"
+                ports:: 80, 443
+                limits::
+                  rate: 2.5
+                  enabled: true
+                  owner: null
+                jobs::
+                  - ::
+                    id: 1
+                  - []
+                """;
+        StringBuilder events = new StringBuilder();
+        HumlVisitor visitor = new HumlVisitor() {
+            @Override
+            public boolean startDict() {
+                events.append('{');
+                return true;
+            }
+
+            @Override
+            public boolean startList() {
+                events.append('[');
+                return true;
+            }
+
+            @Override
+            public boolean end() {
+                events.append(';');
+                return true;
+            }
+
+            @Override
+            public boolean key(CharSequence key) {
+                events.append(key).append('=');
+                return true;
+            }
+
+            @Override
+            public boolean stringValue(CharSequence value) {
+                events.append('"').append(value).append("\" ");
+                return true;
+            }
+
+            @Override
+            public boolean longValue(long value) {
+                events.append(value).append(' ');
+                return true;
+            }
+
+            @Override
+            public boolean doubleValue(double value) {
+                events.append(value).append(' ');
+                return true;
+            }
+
+            @Override
+            public boolean booleanValue(boolean value) {
+                events.append(value).append(' ');
+                return true;
+            }
+
+            @Override
+            public boolean nullValue() {
+                events.append("null ");
+                return true;
+            }
+        };
+
+        assertEquals(true, Parser.parse(huml, visitor));
+        assertEquals("{name=\"app\" ports=[80 443 ;limits={rate=2.5 enabled=true owner=null ;jobs=[{id=1 ;[;;;",
+                events.toString());
+    }
+
+    @Test
+    void testEscapedStrings() {
+        String huml = """
+                quote: "say \\"hi\\""
+                lines: "a\\nb\\tc\\\\d\\/e"
+                unicode: "caf\\u00e9"
+                plain: "no escapes"
+                items:: "x, y", "a\\", b", 3
+                pairs:: k: "v: 1, 2", other: "\\u003a:"
+                """;
+        HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
+        Map<String, HumlValue> root = doc.getRoot().asDict();
+        assertEquals("say \"hi\"", root.get("quote").asString());
+        assertEquals("a\nb\tc\\d/e", root.get("lines").asString());
+        assertEquals("caf\u00e9", root.get("unicode").asString());
+        assertEquals("no escapes", root.get("plain").asString());
+        List<HumlValue> items = root.get("items").asList();
+        assertEquals(3, items.size());
+        assertEquals("x, y", items.get(0).asString());
+        assertEquals("a\", b", items.get(1).asString());
+        assertEquals("v: 1, 2", root.get("pairs").asDict().get("k").asString());
+        assertEquals("::", root.get("pairs").asDict().get("other").asString());
+
+        // escaped values are decoded even when source strings are shared
+        HumlDocument shared = Parser.parse(huml, ParserOptions.defaults().shareSourceStrings(true));
+        assertEquals(doc.getRoot(), shared.getRoot());
+    }
+
+    @Test
+    void testQuotedSeparatorsInBlocks() {
+        String huml = """
+                text: "key:: value"
+                list::
+                  - "a: b"
+                  - "c, d"
+                """;
+        HumlDocument doc = Parser.parse(huml);
+        assertJsonRoundTrip(huml);
+        assertEquals("key:: value", doc.getRoot().asDict().get("text").asString());
+        assertEquals(HumlType.LIST, doc.getRoot().asDict().get("list").getType());
+        assertEquals("a: b", doc.getRoot().asDict().get("list").asList().get(0).asString());
+    }
+
+    @Test
+    void testInvalidEscapes() {
+        ParserException e = assertThrows(ParserException.class, () -> Parser.parse("a: 1\nb: \"x\\qy\"\n"));
+        assertEquals("Invalid escape sequence \\q at line 2", e.getMessage());
+        assertThrows(ParserException.class, () -> Parser.parse("a: \"\\u12\"\n"));
+        // a closing quote that is escaped does not end the string
+        assertEquals("\"x\\\"", Parser.parse("a: \"x\\\"\n").getRoot().asDict().get("a").asString());
+    }
+
+    @Test
+    void testVisitorDecodesEscapes() {
+        StringBuilder seen = new StringBuilder();
+        Parser.parse("a: \"x\\ty\"\nb: \"plain\"\n", new HumlVisitor() {
+            @Override
+            public boolean stringValue(CharSequence value) {
+                seen.append(value).append('|');
+                return true;
+            }
+        });
+        assertEquals("x\ty|plain|", seen.toString());
+    }
+
+    @Test
+    void testVisitorStops() {
+        String huml = """
+                a: 1
+                b: 2
+                c: 3
+                """;
+        long[] sum = new long[1];
+        HumlVisitor visitor = new HumlVisitor() {
+            @Override
+            public boolean longValue(long value) {
+                sum[0] += value;
+                return value < 2;
+            }
+        };
+
+        assertEquals(false, Parser.parse(huml, visitor));
+        assertEquals(3, sum[0]);
+        assertThrows(ParserException.class, () -> Parser.parse(" ", visitor));
+    }
 }
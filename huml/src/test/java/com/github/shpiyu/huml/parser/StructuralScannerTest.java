@@ -0,0 +1,82 @@
+package com.github.shpiyu.huml.parser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.shpiyu.huml.HumlDocument;
+
+public class StructuralScannerTest {
+
+    private static int[] scan(StructuralScanner scanner, byte[] buf, int from, int to) {
+        StructuralIndex index = new StructuralIndex();
+        scanner.scan(buf, from, to, 100, index);
+        int[] positions = new int[index.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = index.get(i);
+        }
+        return positions;
+    }
+
+    private static int[] scanScalar(byte[] buf, int from, int to) {
+        StructuralIndex index = new StructuralIndex();
+        StructuralScanner.scanScalar(buf, from, to, 100, index);
+        int[] positions = new int[index.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = index.get(i);
+        }
+        return positions;
+    }
+
+    private static byte[] randomInput(Random random, int length) {
+        byte[] alphabet = "ab :,\"\n -#ÿ".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] buf = new byte[length];
+        for (int i = 0; i < length; i++) {
+            buf[i] = random.nextInt(4) == 0 ? (byte) random.nextInt(256) : alphabet[random.nextInt(alphabet.length)];
+        }
+        return buf;
+    }
+
+    @Test
+    void testSwarMatchesScalar() {
+        Random random = new Random(42);
+        StructuralScanner scanner = new SwarStructuralScanner();
+        for (int n = 0; n < 500; n++) {
+            byte[] buf = randomInput(random, random.nextInt(300));
+            int from = buf.length == 0 ? 0 : random.nextInt(buf.length);
+            assertArrayEquals(scanScalar(buf, from, buf.length), scan(scanner, buf, from, buf.length));
+        }
+    }
+
+    @Test
+    void testVectorMatchesScalar() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+        Random random = new Random(42);
+        StructuralScanner scanner = new VectorStructuralScanner();
+        assertTrue(VectorStructuralScanner.SPECIES.length() <= Long.SIZE);
+        for (int n = 0; n < 500; n++) {
+            byte[] buf = randomInput(random, random.nextInt(300));
+            int from = buf.length == 0 ? 0 : random.nextInt(buf.length);
+            assertArrayEquals(scanScalar(buf, from, buf.length), scan(scanner, buf, from, buf.length));
+        }
+    }
+
+    @Test
+    void testWideCharactersAreNotStructural() {
+        // U+013A and U+220A share their low byte with ':' and '\n'
+        String huml = """
+                name: "ĺ∊ĺ"
+                other:: "xĺy", "z"
+                """;
+        HumlDocument doc = Parser.parse(huml);
+        assertEquals("ĺ∊ĺ", doc.get("name").asString());
+        assertEquals(2, doc.get("other").asList().size());
+        assertEquals("xĺy", doc.get("other").asList().get(0).asString());
+    }
+}